@@ -0,0 +1,54 @@
+package org.example;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ConcurrentIntMap lookups of random present keys as the number of accounts grows. The index
+// is used on its own, without a bank, so ten million entries fit in a few hundred megabytes.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class AccountIndexJmh {
+    @Param({"10", "1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private ConcurrentIntMap<Account> index;
+    private int[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        Account shared = new SavingsAccount(new Customer("bench", "bench", "0", "bench", "bench"));
+        index = new ConcurrentIntMap<>(size);
+        for (int i = 1; i <= size; i++) {
+            index.put(i, shared);
+        }
+        // Drawn up front, so the random number generator is not part of the measurement
+        keys = new int[1 << 16];
+        SplittableRandom random = new SplittableRandom(size);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 1 + random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public Account get() {
+        return index.get(keys[next++ & (keys.length - 1)]);
+    }
+}
@@ -0,0 +1,48 @@
+package org.example;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Balance-changing operations on random accounts of the fixture
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountOperationsJmh {
+    private static Account pick(BankFixture fixture) {
+        return fixture.accounts[ThreadLocalRandom.current().nextInt(fixture.population)];
+    }
+
+    @Benchmark
+    public void deposit(BankFixture fixture) {
+        pick(fixture).deposit(1.25);
+    }
+
+    @Benchmark
+    public void withdraw(BankFixture fixture) {
+        pick(fixture).withdraw(1.25);
+    }
+
+    @Benchmark
+    public void transfer(BankFixture fixture) {
+        pick(fixture).transfer(pick(fixture), 1.25);
+    }
+
+    @Benchmark
+    public long applyInterest(BankFixture fixture) {
+        Account account = pick(fixture);
+        // Reset first, so compounding never overflows however many times an account is picked
+        account.restoreSnapshot(BankFixture.OPENING_BALANCE, 0, Account.NO_INTEREST_RUN);
+        account.applyInterest();
+        return account.getBalanceMinor();
+    }
+}
@@ -0,0 +1,92 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Schedules for a portfolio of one loan per fixture customer, with varied rates and tenors:
+// a first build computes every schedule, a rebuild copies cached ones, and a rebuild after
+// a payment on every tenth loan recomputes only those
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AmortizationJmh {
+    @Param({"1", "4"})
+    public int threads;
+
+    private List<Loan> loans;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void prepare(BankFixture fixture) {
+        loans = new ArrayList<>(fixture.population);
+        for (int i = 0; i < fixture.population; i++) {
+            Customer customer = fixture.bank.findCustomerByUsername(fixture.usernames[i]);
+            loans.add(customer.applyForLoanMinor(100_000 + i, 700 + i % 1000, 12 + i % 349));
+        }
+        pool = new ForkJoinPool(threads);
+        Amortization.portfolio(loans, pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopPool() {
+        pool.shutdown();
+    }
+
+    // Drops the cached schedule of every step-th loan, as a payment would; the amounts stay as they are
+    void invalidate(int step) {
+        for (int i = 0; i < loans.size(); i += step) {
+            Loan loan = loans.get(i);
+            loan.restorePayment(loan.getLoanAmountMinor());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Uncached {
+        @Setup(Level.Invocation)
+        public void invalidate(AmortizationJmh benchmark) {
+            benchmark.invalidate(1);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class TenthPaid {
+        @Setup(Level.Invocation)
+        public void invalidate(AmortizationJmh benchmark) {
+            benchmark.invalidate(10);
+        }
+    }
+
+    @Benchmark
+    public Amortization.Portfolio firstBuild(Uncached uncached) {
+        return Amortization.portfolio(loans, pool);
+    }
+
+    @Benchmark
+    public Amortization.Portfolio cachedRebuild() {
+        return Amortization.portfolio(loans, pool);
+    }
+
+    @Benchmark
+    public Amortization.Portfolio tenthPaidRebuild(TenthPaid paid) {
+        return Amortization.portfolio(loans, pool);
+    }
+}
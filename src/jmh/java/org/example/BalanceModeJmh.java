@@ -0,0 +1,57 @@
+package org.example;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// A deposit and a withdrawal on one of a few accounts shared by eight threads, in each
+// Account.Mode, so nearly every operation contends for its account
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class BalanceModeJmh {
+    @Param({"LOCKING", "LOCK_FREE"})
+    public String mode;
+
+    @Param({"4"})
+    public int accounts;
+
+    private Account[] shared;
+
+    @Setup(Level.Trial)
+    public void open() {
+        Account.Mode previous = Account.getDefaultMode();
+        Account.setDefaultMode(Account.Mode.valueOf(mode));
+        Customer owner = new Customer("bench", "bench", "0", "bench", "bench");
+        shared = new Account[accounts];
+        for (int i = 0; i < accounts; i++) {
+            shared[i] = new SavingsAccount(owner);
+        }
+        Account.setDefaultMode(previous);
+    }
+
+    @Benchmark
+    public long depositThenWithdraw() {
+        Account account = shared[ThreadLocalRandom.current().nextInt(accounts)];
+        account.depositMinor(200);
+        account.withdrawMinor(100);
+        return account.getBalanceMinor();
+    }
+}
@@ -0,0 +1,83 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// A bank shaped like initializeData, scaled up to `population` customers: each customer has
+// a savings account and one loan, every other loan approved, and there is one employee per
+// ten customers. Console output goes to a null stream while benchmarks run.
+@State(Scope.Benchmark)
+public class BankFixture {
+    static final long OPENING_BALANCE = 1_000_000_000L;
+
+    @Param({"1000", "100000"})
+    public int population;
+
+    BankingSystem bank;
+    Account[] accounts;
+    String[] usernames;
+    int[] loanIds;
+    private PrintStream console;
+    private Path journalPath;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        bank = new BankingSystem();
+        accounts = new Account[population];
+        usernames = new String[population];
+        loanIds = new int[population];
+        for (int i = 0; i < population; i++) {
+            usernames[i] = "user" + i;
+            Customer customer = new Customer("Customer " + i, i + " Main St", "98765" + i, usernames[i], usernames[i]);
+            bank.addCustomer(customer);
+            Account account = new SavingsAccount(customer);
+            customer.addAccount(account);
+            account.depositMinor(OPENING_BALANCE);
+            customer.applyForLoan(1000 * (i % 10 + 1));
+            Loan loan = customer.getLoans().get(0);
+            if (i % 2 == 0) {
+                loan.approveLoan();
+            }
+            accounts[i] = account;
+            loanIds[i] = loan.getLoanId();
+            if (i % 10 == 0) {
+                bank.addEmployee(new Employee("Employee " + i, "12345" + i, "employee" + i, "employee" + i));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreConsole() {
+        System.setOut(console);
+    }
+
+    // Journals every later change in a temporary file with the named Journal.Durability;
+    // "none" leaves the bank in memory
+    void openJournal(String durability) throws IOException {
+        if (!durability.equals("none")) {
+            journalPath = Files.createTempFile("jmh", ".journal");
+            bank.setJournal(Journal.open(journalPath, Journal.Durability.valueOf(durability)));
+        }
+    }
+
+    void closeJournal() throws IOException {
+        if (journalPath != null) {
+            bank.getJournal().close();
+            bank.setJournal(null);
+            Files.delete(journalPath);
+            journalPath = null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Random-pair transfers from three threads, alone and while a fourth takes full-bank snapshots
+// back to back, and the time per snapshot. Every snapshot is checked to add up to the money in
+// the bank.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BankSnapshotJmh {
+    private BankFixture fixture;
+    private long total;
+
+    @Setup(Level.Trial)
+    public void prepare(BankFixture fixture) {
+        this.fixture = fixture;
+        total = fixture.bank.snapshot().getTotalBalanceMinor();
+    }
+
+    private String transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Account from = fixture.accounts[random.nextInt(fixture.population)];
+        Account to = fixture.accounts[random.nextInt(fixture.population)];
+        return from.applyTransfer(to, 1 + random.nextInt(100));
+    }
+
+    @Benchmark
+    @Threads(3)
+    public String transfersAlone() {
+        return transfer();
+    }
+
+    @Benchmark
+    @Group("reported")
+    @GroupThreads(3)
+    public String transfers() {
+        return transfer();
+    }
+
+    @Benchmark
+    @Group("reported")
+    @GroupThreads(1)
+    public long snapshot() {
+        long seen = fixture.bank.snapshot().getTotalBalanceMinor();
+        if (seen != total) {
+            throw new IllegalStateException("snapshot total " + seen + ", expected " + total);
+        }
+        return seen;
+    }
+}
@@ -0,0 +1,89 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Onboarding a batch of ROWS new customers into the fixture's bank, in memory and with a
+// BATCHED journal: BulkImporter over a CSV (one row in a thousand repeats a username) against
+// verify() plus addCustomer() per row, the way register() onboards one customer at a time.
+// One batch per iteration, each with fresh usernames, so the bank grows by a bounded amount.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkImportJmh {
+    static final int ROWS = 20_000;
+
+    @Param({"none", "BATCHED"})
+    public String journal;
+
+    private BankFixture fixture;
+    private int batch;
+    private byte[] csv;
+
+    @Setup(Level.Trial)
+    public void prepare(BankFixture fixture) throws IOException {
+        this.fixture = fixture;
+        fixture.openJournal(journal);
+    }
+
+    @Setup(Level.Iteration)
+    public void nextBatch() {
+        batch++;
+        StringBuilder out = new StringBuilder(ROWS * 80).append("name,address,phone,username,password,type,balance\n");
+        for (int i = 0; i < ROWS; i++) {
+            int user = i % 1000 == 999 ? i - 1 : i;
+            out.append("Customer ").append(i).append(",\"").append(i).append(" Main Street, Pune\",").append(9_000_000_000L + i)
+                    .append(',').append(username(user)).append(",secret").append(i).append(',')
+                    .append(i % 3 == 0 ? "CURRENT" : "SAVINGS").append(',').append(i % 5000).append(".25\n");
+        }
+        csv = out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        fixture.closeJournal();
+    }
+
+    private String username(int row) {
+        return "import" + batch + "_" + row;
+    }
+
+    @Benchmark
+    public long bulkImport() throws IOException {
+        return new BulkImporter(fixture.bank, ',').importFrom(new ByteArrayInputStream(csv), Writer.nullWriter()).getImported();
+    }
+
+    @Benchmark
+    public int registerPerRow() {
+        BankingSystem bank = fixture.bank;
+        for (int i = 0; i < ROWS; i++) {
+            Customer customer = bank.verify("Customer " + i, i + " Main Street, Pune", Long.toString(9_000_000_000L + i),
+                    username(i), "secret" + i);
+            Account account = bank.verifyAccount(customer, i % 3 == 0 ? 2 : 1);
+            customer.addAccount(account);
+            bank.addCustomer(customer);
+            account.depositMinor(i % 5000 * 100L + 25);
+        }
+        return ROWS;
+    }
+}
@@ -0,0 +1,74 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Random-pair transfers from several threads, each waiting for its own result: direct calls
+// on the caller's thread against the single-writer CommandPipeline with each wait strategy,
+// in memory and with a BATCHED journal. SampleTime reports the latency percentiles.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CommandPipelineJmh {
+    @Param({"DIRECT", "BUSY_SPIN", "YIELD", "PARK"})
+    public String mode;
+
+    @Param({"none", "BATCHED"})
+    public String journal;
+
+    private BankFixture fixture;
+    private CommandPipeline pipeline;
+
+    @Setup(Level.Trial)
+    public void start(BankFixture fixture) throws IOException {
+        this.fixture = fixture;
+        fixture.openJournal(journal);
+        if (!mode.equals("DIRECT")) {
+            pipeline = new CommandPipeline(fixture.bank, CommandPipeline.WaitStrategy.valueOf(mode));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+        fixture.closeJournal();
+    }
+
+    @Benchmark
+    public long transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(fixture.population);
+        // Never the same account twice, so no transfer is refused
+        int to = (from + 1 + random.nextInt(fixture.population - 1)) % fixture.population;
+        Account source = fixture.accounts[from];
+        Account destination = fixture.accounts[to];
+        if (pipeline == null) {
+            source.applyTransfer(destination, 1);
+            fixture.bank.awaitJournal();
+            return source.getBalanceMinor();
+        }
+        return pipeline.transfer(source.getAccountNumber(), destination.getAccountNumber(), 1).join();
+    }
+}
@@ -0,0 +1,115 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Headless scripts of deposits, withdrawals, transfers and balance checks over the fixture's
+// accounts, as text and as binary, in memory and with a BATCHED journal; scores are per command
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandProcessorJmh {
+    static final int COMMANDS = 1000;
+
+    @Param({"text", "binary"})
+    public String format;
+
+    @Param({"none", "BATCHED"})
+    public String journal;
+
+    private BankFixture fixture;
+    private byte[] script;
+
+    @Setup(Level.Trial)
+    public void prepare(BankFixture fixture) throws IOException {
+        this.fixture = fixture;
+        fixture.openJournal(journal);
+        script = format.equals("binary") ? binaryScript(fixture.accounts) : textScript(fixture.accounts);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        fixture.closeJournal();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public long run() throws IOException {
+        return new CommandProcessor(fixture.bank, new ByteArrayInputStream(script), OutputStream.nullOutputStream()).run();
+    }
+
+    // Both formats encode the same seeded sequence of commands
+    private static byte[] textScript(Account[] accounts) {
+        Random random = new Random(42);
+        StringBuilder script = new StringBuilder(COMMANDS * 24);
+        for (int i = 0; i < COMMANDS; i++) {
+            int a = accounts[random.nextInt(accounts.length)].getAccountNumber();
+            int kind = random.nextInt(4);
+            if (kind == 0) {
+                script.append("DEPOSIT ").append(a).append(" 12.50\n");
+            } else if (kind == 1) {
+                script.append("WITHDRAW ").append(a).append(" 7.25\n");
+            } else if (kind == 2) {
+                script.append("TRANSFER ").append(a).append(' ').append(accounts[random.nextInt(accounts.length)].getAccountNumber())
+                        .append(" 3\n");
+            } else {
+                script.append("BALANCE ").append(a).append('\n');
+            }
+        }
+        return script.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] binaryScript(Account[] accounts) throws IOException {
+        Random random = new Random(42);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(COMMANDS * 13);
+        DataOutputStream script = new DataOutputStream(bytes);
+        script.writeInt(CommandProcessor.BINARY_MAGIC);
+        for (int i = 0; i < COMMANDS; i++) {
+            int a = accounts[random.nextInt(accounts.length)].getAccountNumber();
+            int kind = random.nextInt(4);
+            if (kind == 0) {
+                script.writeByte(CommandProcessor.DEPOSIT);
+                script.writeInt(a);
+                script.writeLong(1250);
+            } else if (kind == 1) {
+                script.writeByte(CommandProcessor.WITHDRAW);
+                script.writeInt(a);
+                script.writeLong(725);
+            } else if (kind == 2) {
+                script.writeByte(CommandProcessor.TRANSFER);
+                script.writeInt(a);
+                script.writeInt(accounts[random.nextInt(accounts.length)].getAccountNumber());
+                script.writeLong(300);
+            } else {
+                script.writeByte(CommandProcessor.BALANCE);
+                script.writeInt(a);
+            }
+        }
+        script.flush();
+        return bytes.toByteArray();
+    }
+}
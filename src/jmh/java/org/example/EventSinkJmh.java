@@ -0,0 +1,55 @@
+package org.example;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Refused withdrawals, each of which publishes an event, from several threads through the
+// console, async and silent sinks
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class EventSinkJmh {
+    @Param({"console", "async", "silent"})
+    public String sink;
+
+    private EventSink previous;
+
+    // After the fixture, so the console and async sinks write to its null stream
+    @Setup(Level.Trial)
+    public void install(BankFixture fixture) {
+        previous = Events.setSink(Events.fromName(sink));
+    }
+
+    @TearDown(Level.Trial)
+    public void restore() {
+        EventSink installed = Events.setSink(previous);
+        if (installed instanceof AsyncEventSink) {
+            ((AsyncEventSink) installed).close();
+        }
+    }
+
+    @Benchmark
+    public void refusedWithdrawal(BankFixture fixture) {
+        // More than any fixture balance
+        fixture.accounts[ThreadLocalRandom.current().nextInt(fixture.population)].withdrawMinor(Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Showing a busy account's history: printing all of it against printing the first
+// newest-first page, while a writer keeps appending to the account
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryPagingJmh {
+    // Between the writer's deposits, so the history grows by a bounded amount per iteration
+    private static final long WRITER_PAUSE_NANOS = 10_000;
+
+    @Param({"10000", "1000000"})
+    public int historyLength;
+
+    private Account account;
+    private Thread writer;
+
+    @Setup(Level.Trial)
+    public void fill(BankFixture fixture) {
+        account = fixture.accounts[0];
+        for (int i = account.getTransactions().size(); i < historyLength; i++) {
+            account.depositMinor(1);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startWriter() {
+        writer = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                account.depositMinor(1);
+                LockSupport.parkNanos(WRITER_PAUSE_NANOS);
+            }
+        }, "history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopWriter() throws InterruptedException {
+        writer.interrupt();
+        writer.join();
+    }
+
+    @Benchmark
+    public void fullHistory() {
+        account.printTransactions();
+    }
+
+    @Benchmark
+    public int firstPage() {
+        HistoryCursor.Page page = account.history().next(HistoryCursor.DEFAULT_PAGE_SIZE);
+        for (Transaction t: page.getTransactions()) {
+            System.out.println(t);
+        }
+        return page.getTransactions().size();
+    }
+}
@@ -0,0 +1,44 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Id allocation from several threads: one shared counter against per-thread blocks. Allocators
+// are used on their own, not through a fixture bank, so the ids are never narrowed to an int
+// and a long run cannot exhaust them.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class IdAllocatorJmh {
+    @Param({"sequential", "block"})
+    public String allocator;
+
+    private IdAllocator ids;
+
+    @Setup(Level.Trial)
+    public void create() {
+        ids = allocator.equals("block") ? new BlockIdAllocator(0, BlockIdAllocator.DEFAULT_BLOCK_SIZE) : new SequentialIdAllocator(0);
+    }
+
+    @Benchmark
+    public long next() {
+        return ids.next();
+    }
+}
@@ -0,0 +1,62 @@
+package org.example;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Cost of the request id check on the deposit path, from several threads: plain deposits
+// against deposits with a fresh id each (every call claims and finishes a cache entry) and
+// against retries (every call is answered from the cache)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class IdempotencyJmh {
+    private final AtomicLong ids = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void installCache(BankFixture fixture) {
+        fixture.bank.setIdempotencyCache(new IdempotencyCache(1 << 20, IdempotencyCache.DEFAULT_TTL_MILLIS));
+    }
+
+    // Each thread retries its own 1024 request ids in turn
+    @State(Scope.Thread)
+    public static class Retries {
+        int next;
+    }
+
+    private static Account pick(BankFixture fixture) {
+        return fixture.accounts[ThreadLocalRandom.current().nextInt(fixture.population)];
+    }
+
+    @Benchmark
+    public boolean plain(BankFixture fixture) {
+        return pick(fixture).applyDeposit(1);
+    }
+
+    @Benchmark
+    public String fresh(BankFixture fixture) {
+        return pick(fixture).applyDeposit(ids.incrementAndGet(), 1);
+    }
+
+    @Benchmark
+    public String retry(BankFixture fixture, Retries retries) {
+        return pick(fixture).applyDeposit(retries.next++ & 1023, 1);
+    }
+}
@@ -0,0 +1,78 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Month-end interest over every fixture account: one applyInterest call per account, as admin
+// menu option 5 does, against InterestPostingJob on a pool of 1 and of 4 threads. Balances and
+// run marks are reset before each posting, so every posting credits every account and
+// compounding never overflows.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InterestPostingJmh {
+    private static final int RUN_ID = 202610;
+
+    private BankFixture fixture;
+
+    @Setup(Level.Trial)
+    public void prepare(BankFixture fixture) {
+        this.fixture = fixture;
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        for (Account account: fixture.accounts) {
+            account.restoreSnapshot(BankFixture.OPENING_BALANCE, 0, Account.NO_INTEREST_RUN);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pool {
+        @Param({"1", "4"})
+        public int threads;
+
+        ForkJoinPool pool;
+
+        @Setup(Level.Trial)
+        public void start() {
+            pool = new ForkJoinPool(threads);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public BankFixture applyInterestLoop() {
+        for (Account account: fixture.accounts) {
+            account.applyInterest();
+        }
+        return fixture;
+    }
+
+    @Benchmark
+    public InterestPostingJob.Report job(Pool pool) throws IOException {
+        return new InterestPostingJob(fixture.bank, RUN_ID, null).run(pool.pool);
+    }
+}
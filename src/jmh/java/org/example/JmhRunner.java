@@ -0,0 +1,123 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+// Runs the JMH benchmarks with the GC profiler, so every result also reports allocation.
+// Usage: JmhRunner [run|record|check]
+//   run     print results only
+//   record  also store every primary score in the baseline file
+//   check   also compare against the baseline and exit 1 on any regression beyond the threshold
+// System properties: jmh.include (regex, default all), jmh.population (comma-separated sizes),
+// jmh.baseline (default jmh-baseline.csv), jmh.regression (fraction, default 0.10),
+// jmh.smoke (true: one short iteration each, to check the benchmarks run; scores are meaningless).
+public class JmhRunner {
+    public static void main(String[] args) throws RunnerException, IOException {
+        String mode = args.length > 0 ? args[0] : "run";
+        Path baseline = Path.of(System.getProperty("jmh.baseline", "jmh-baseline.csv"));
+        double threshold = Double.parseDouble(System.getProperty("jmh.regression", "0.10"));
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(System.getProperty("jmh.include", "org\\.example\\..*Jmh\\..*"))
+                .addProfiler(GCProfiler.class);
+        if (Boolean.getBoolean("jmh.smoke")) {
+            options.warmupIterations(1).warmupTime(TimeValue.milliseconds(100))
+                    .measurementIterations(1).measurementTime(TimeValue.milliseconds(100));
+        }
+        String population = System.getProperty("jmh.population");
+        if (population != null && !population.isBlank()) {
+            options.param("population", population.split(","));
+        }
+        Collection<RunResult> results = new Runner(options.build()).run();
+        Map<String, Double> scores = new TreeMap<>();
+        for (RunResult result: results) {
+            scores.put(key(result.getParams()), result.getPrimaryResult().getScore());
+        }
+        switch (mode) {
+            case "record":
+                write(baseline, scores);
+                System.out.println("Baseline written to " + baseline);
+                break;
+            case "check":
+                List<String> regressions = compare(read(baseline), scores, results, threshold);
+                if (!regressions.isEmpty()) {
+                    System.out.println("Regressions beyond " + Math.round(threshold * 100) + "% against " + baseline + ":");
+                    regressions.forEach(System.out::println);
+                    System.exit(1);
+                }
+                System.out.println("No regressions beyond " + Math.round(threshold * 100) + "% against " + baseline);
+                break;
+            case "run":
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode " + mode + "; use run, record or check");
+        }
+    }
+
+    // Benchmark, mode and parameters; e.g. org.example.LookupJmh.authenticateUser|thrpt|population=1000
+    private static String key(BenchmarkParams params) {
+        StringBuilder key = new StringBuilder(params.getBenchmark()).append('|').append(params.getMode().shortLabel());
+        for (String name: params.getParamsKeys()) {
+            key.append('|').append(name).append('=').append(params.getParam(name));
+        }
+        return key.toString();
+    }
+
+    private static List<String> compare(Map<String, Double> baseline, Map<String, Double> scores, Collection<RunResult> results,
+                                        double threshold) {
+        List<String> regressions = new ArrayList<>();
+        for (RunResult result: results) {
+            String key = key(result.getParams());
+            Double expected = baseline.get(key);
+            if (expected == null) {
+                continue;
+            }
+            double actual = scores.get(key);
+            // Higher is better for throughput, lower is better for time per operation
+            boolean higherIsBetter = result.getParams().getMode().shortLabel().equals("thrpt");
+            double change = higherIsBetter ? (expected - actual) / expected : (actual - expected) / expected;
+            if (change > threshold) {
+                Result<?> primary = result.getPrimaryResult();
+                regressions.add(String.format(Locale.ROOT, "  %s: %.3f -> %.3f %s (%.1f%% worse)", key, expected, actual,
+                        primary.getScoreUnit(), change * 100));
+            }
+        }
+        return regressions;
+    }
+
+    private static Map<String, Double> read(Path baseline) throws IOException {
+        Map<String, Double> scores = new TreeMap<>();
+        for (String line: Files.readAllLines(baseline, StandardCharsets.UTF_8)) {
+            int comma = line.lastIndexOf(',');
+            if (line.isBlank() || line.startsWith("#") || comma < 0) {
+                continue;
+            }
+            scores.put(line.substring(0, comma), Double.parseDouble(line.substring(comma + 1)));
+        }
+        return scores;
+    }
+
+    private static void write(Path baseline, Map<String, Double> scores) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# benchmark|mode|params,score; written by JmhRunner record");
+        scores.forEach((key, score) -> lines.add(key + "," + score));
+        Files.write(baseline, lines, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Deposits to random fixture accounts from sixteen threads, each returning once its record
+// is as durable as the mode promises, against no journal at all. With this many writers a
+// BATCHED flush carries many records, which is what group commit is for.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class JournalJmh {
+    @Param({"none", "PER_OP", "BATCHED", "ASYNC"})
+    public String journal;
+
+    private BankFixture fixture;
+
+    @Setup(Level.Trial)
+    public void open(BankFixture fixture) throws IOException {
+        this.fixture = fixture;
+        fixture.openJournal(journal);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        fixture.closeJournal();
+    }
+
+    @Benchmark
+    public long deposit() {
+        Account account = fixture.accounts[ThreadLocalRandom.current().nextInt(fixture.population)];
+        account.depositMinor(100);
+        return account.getBalanceMinor();
+    }
+}
@@ -0,0 +1,46 @@
+package org.example;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Read-side lookups and listings on the fixture
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupJmh {
+    private static int index(BankFixture fixture) {
+        return ThreadLocalRandom.current().nextInt(fixture.population);
+    }
+
+    @Benchmark
+    public Account findAccountByNumber(BankFixture fixture) {
+        return fixture.bank.findAccountByNumber(fixture.accounts[index(fixture)].getAccountNumber());
+    }
+
+    @Benchmark
+    public Customer authenticateUser(BankFixture fixture) {
+        String username = fixture.usernames[index(fixture)];
+        return fixture.bank.authenticateUser(username, username);
+    }
+
+    @Benchmark
+    public Loan findLoanByLoanNumber(BankFixture fixture) {
+        return fixture.bank.findLoanByLoanNumber(fixture.loanIds[index(fixture)]);
+    }
+
+    @Benchmark
+    public List<Loan> getUnapprovedLoans(BankFixture fixture) {
+        return fixture.bank.getUnapprovedLoans();
+    }
+}
@@ -0,0 +1,60 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Writing the fixture bank to a snapshot file, and loading that file into an empty bank as a
+// restart does. Both grow linearly with the accounts, so the time per fixture account, times
+// ten million, is the restart time to hold against Snapshot's target.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotJmh {
+    private BankFixture fixture;
+    private Path written;
+    private Path loaded;
+
+    @Setup(Level.Trial)
+    public void prepare(BankFixture fixture) throws IOException {
+        this.fixture = fixture;
+        written = Files.createTempFile("jmh", ".snapshot");
+        loaded = Files.createTempFile("jmh", ".snapshot");
+        Snapshot.write(fixture.bank, loaded);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        Files.delete(written);
+        Files.delete(loaded);
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        return Snapshot.write(fixture.bank, written);
+    }
+
+    @Benchmark
+    public BankingSystem load() throws IOException {
+        BankingSystem restored = new BankingSystem();
+        Snapshot.load(loaded, restored);
+        return restored;
+    }
+}
@@ -0,0 +1,53 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// printTransactions rendering for one account with a fixed-length history
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatementJmh {
+    @Param({"100", "10000"})
+    public int historyLength;
+
+    private Account account;
+
+    @Setup(Level.Trial)
+    public void fill(BankFixture fixture) {
+        account = fixture.accounts[0];
+        Account counterparty = fixture.accounts[fixture.population - 1];
+        for (int i = account.getTransactions().size(); i < historyLength; i++) {
+            switch (i % 3) {
+                case 0:
+                    account.depositMinor(500);
+                    break;
+                case 1:
+                    account.withdrawMinor(200);
+                    break;
+                default:
+                    account.transferMinor(counterparty, 100);
+            }
+        }
+    }
+
+    @Benchmark
+    public void printTransactions() {
+        account.printTransactions();
+    }
+}
@@ -0,0 +1,92 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Month-end statements for every account of the fixture, each given entriesPerAccount more
+// entries: one thread writing Transaction.toString lines through a BufferedWriter, against
+// StatementJob on a pool of the given size
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatementJobJmh {
+    @Param({"100"})
+    public int entriesPerAccount;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private BankingSystem bank;
+    private Path directory;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void prepare(BankFixture fixture) throws IOException {
+        bank = fixture.bank;
+        for (int i = 0; i < fixture.population; i++) {
+            for (int j = 0; j < entriesPerAccount; j++) {
+                fixture.accounts[i].applyDeposit(1 + (i * 31L + j) % 100_000);
+            }
+        }
+        directory = Files.createTempDirectory("statements");
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void clean() throws IOException {
+        pool.shutdown();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file: (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int toStringLoop() throws IOException {
+        int statements = 0;
+        for (Customer customer: bank.getCustomers()) {
+            for (Account account: customer.getAccounts()) {
+                try (BufferedWriter out = Files.newBufferedWriter(StatementJob.statementFile(directory, account.getAccountNumber()),
+                        StandardCharsets.UTF_8)) {
+                    out.write("Transaction history for account " + account.getAccountNumber() + ":\n");
+                    for (Transaction t: account.getTransactions()) {
+                        out.write(t.toString());
+                        out.write('\n');
+                    }
+                }
+                statements++;
+            }
+        }
+        return statements;
+    }
+
+    @Benchmark
+    public long statementJob() throws IOException {
+        return new StatementJob(bank, directory, 0, Long.MAX_VALUE).run(pool).getStatements();
+    }
+}
@@ -0,0 +1,65 @@
+package org.example;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Random-pair transfers between fixture accounts from one thread and from four, so lock
+// ordering and contention show against the uncontended cost. After each trial the money in
+// the bank is checked to be what it was before.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferJmh {
+    private BankFixture fixture;
+    private long total;
+
+    @Setup(Level.Trial)
+    public void prepare(BankFixture fixture) {
+        this.fixture = fixture;
+        total = fixture.bank.snapshot().getTotalBalanceMinor();
+    }
+
+    @TearDown(Level.Trial)
+    public void checkConserved() {
+        long seen = fixture.bank.snapshot().getTotalBalanceMinor();
+        if (seen != total) {
+            throw new IllegalStateException("money not conserved: " + seen + ", expected " + total);
+        }
+    }
+
+    private String transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Account from = fixture.accounts[random.nextInt(fixture.population)];
+        Account to = fixture.accounts[random.nextInt(fixture.population)];
+        return from.applyTransfer(to, 100);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String oneThread() {
+        return transfer();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String fourThreads() {
+        return transfer();
+    }
+}
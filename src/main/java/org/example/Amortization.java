@@ -0,0 +1,180 @@
+package org.example;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+// Equated monthly installment (EMI) amortization, exact in minor units.
+//
+// The installment is P * r * (1 + r)^n / ((1 + r)^n - 1) for the monthly rate r = annual
+// rate / 12, rounded to the nearest minor unit (P / n rounded up when the rate is zero).
+// Each month's interest is the outstanding balance times r, rounded half-even like
+// Money.applyRate; the rest of the installment repays principal, and the last month repays
+// whatever is left, so every schedule ends at exactly zero. StrictMath keeps installments
+// the same on every platform.
+//
+// A loan that has been paid down is scheduled over the months it has left: every installment
+// of its original schedule whose principal the payments so far have covered counts as paid.
+//
+// Portfolios are built on a ForkJoinPool into one set of flat columns, a range of loans per
+// task. Each loan caches its own schedule (see Loan.getSchedule), so building a portfolio
+// again only recomputes the loans that have been paid since.
+final class Amortization {
+    static final long MONTHS_PER_YEAR = 12;
+    // Loans per leaf task when building a portfolio
+    static final int LOANS_PER_TASK = 256;
+    private Amortization() {
+    }
+    static AmortizationSchedule schedule(long amount, long annualRateBasisPoints, int months) {
+        return new AmortizationSchedule(amount, annualRateBasisPoints, months);
+    }
+    static long installment(long amount, long annualRateBasisPoints, int months) {
+        if (amount <= 0) {
+            return 0;
+        }
+        if (annualRateBasisPoints == 0) {
+            return (amount + months - 1) / months;
+        }
+        double rate = annualRateBasisPoints / (double) (Money.BASIS_POINTS * MONTHS_PER_YEAR);
+        double growth = StrictMath.pow(1 + rate, months);
+        return Math.round(amount * rate * growth / (growth - 1));
+    }
+    private static long monthlyInterest(long balance, long annualRateBasisPoints) {
+        return Money.divideHalfEven(Math.multiplyExact(balance, annualRateBasisPoints), Money.BASIS_POINTS * MONTHS_PER_YEAR);
+    }
+    // Months left to repay outstanding, of a schedule that lent amount over months; at least one
+    static int remainingMonths(long amount, long annualRateBasisPoints, int months, long outstanding) {
+        long installment = installment(amount, annualRateBasisPoints, months);
+        long balance = Math.max(amount, 0);
+        int paid = 0;
+        while (paid < months - 1) {
+            balance -= Math.max(0, Math.min(installment - monthlyInterest(balance, annualRateBasisPoints), balance));
+            if (balance < outstanding) {
+                break;
+            }
+            paid++;
+        }
+        return months - paid;
+    }
+    // Writes months rows of the schedule for amount into the columns, starting at offset
+    static void fill(long amount, long annualRateBasisPoints, int months, long[] installments, long[] principalParts,
+                     long[] interestParts, long[] outstanding, int offset) {
+        long installment = installment(amount, annualRateBasisPoints, months);
+        long balance = Math.max(amount, 0);
+        for (int m = 0; m < months; m++) {
+            long interest = monthlyInterest(balance, annualRateBasisPoints);
+            long principal = m == months - 1 ? balance : Math.max(0, Math.min(installment - interest, balance));
+            balance -= principal;
+            installments[offset + m] = principal + interest;
+            principalParts[offset + m] = principal;
+            interestParts[offset + m] = interest;
+            outstanding[offset + m] = balance;
+        }
+    }
+    public static Portfolio portfolio(List < Loan > loans) {
+        return portfolio(loans, ForkJoinPool.commonPool());
+    }
+    public static Portfolio portfolio(List < Loan > loans, ForkJoinPool pool) {
+        Loan[] array = loans.toArray(new Loan[0]);
+        // Schedules first: a payment can shorten a loan's schedule at any time, so the rows a
+        // loan takes are only known once its schedule is in hand
+        AmortizationSchedule[] schedules = new AmortizationSchedule[array.length];
+        pool.invoke(new BuildRange(array, schedules, null, 0, array.length));
+        int[] offsets = new int[array.length + 1];
+        for (int i = 0; i < array.length; i++) {
+            offsets[i + 1] = Math.addExact(offsets[i], schedules[i].getMonths());
+        }
+        Portfolio portfolio = new Portfolio(array.length, offsets);
+        pool.invoke(new BuildRange(array, schedules, portfolio, 0, array.length));
+        return portfolio;
+    }
+    // Schedules of many loans; rows offsets[i] to offsets[i + 1] belong to the i-th loan
+    public static final class Portfolio {
+        private final int[] loanIds;
+        private final int[] offsets;
+        private final long[] installments;
+        private final long[] principalParts;
+        private final long[] interestParts;
+        private final long[] outstanding;
+        Portfolio(int loans, int[] offsets) {
+            int rows = offsets[loans];
+            this.loanIds = new int[loans];
+            this.offsets = offsets;
+            this.installments = new long[rows];
+            this.principalParts = new long[rows];
+            this.interestParts = new long[rows];
+            this.outstanding = new long[rows];
+        }
+        public int getLoanCount() {
+            return loanIds.length;
+        }
+        public int getLoanId(int loan) {
+            return loanIds[loan];
+        }
+        // First row of the loan's schedule
+        public int getOffset(int loan) {
+            return offsets[loan];
+        }
+        public int getMonths(int loan) {
+            return offsets[loan + 1] - offsets[loan];
+        }
+        public long getInstallmentMinor(int row) {
+            return installments[row];
+        }
+        public long getPrincipalPartMinor(int row) {
+            return principalParts[row];
+        }
+        public long getInterestPartMinor(int row) {
+            return interestParts[row];
+        }
+        public long getOutstandingMinor(int row) {
+            return outstanding[row];
+        }
+        // Installments due in each month from now, summed over every loan
+        public long[] getInstallmentsDueMinor() {
+            int longest = 0;
+            for (int i = 0; i < loanIds.length; i++) {
+                longest = Math.max(longest, getMonths(i));
+            }
+            long[] due = new long[longest];
+            for (int i = 0; i < loanIds.length; i++) {
+                for (int row = offsets[i], m = 0; row < offsets[i + 1]; row++, m++) {
+                    due[m] += installments[row];
+                }
+            }
+            return due;
+        }
+    }
+    // Without a portfolio, fetches each loan's schedule; with one, copies them into it
+    private static final class BuildRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Loan[] loans;
+        private final AmortizationSchedule[] schedules;
+        private final Portfolio portfolio;
+        private final int from;
+        private final int to;
+        BuildRange(Loan[] loans, AmortizationSchedule[] schedules, Portfolio portfolio, int from, int to) {
+            this.loans = loans;
+            this.schedules = schedules;
+            this.portfolio = portfolio;
+            this.from = from;
+            this.to = to;
+        }
+        @Override
+        protected void compute() {
+            if (to - from <= LOANS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    if (portfolio == null) {
+                        schedules[i] = loans[i].getSchedule();
+                    } else {
+                        portfolio.loanIds[i] = loans[i].getLoanId();
+                        schedules[i].copyTo(portfolio.installments, portfolio.principalParts, portfolio.interestParts,
+                                portfolio.outstanding, portfolio.offsets[i]);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BuildRange(loans, schedules, portfolio, from, middle),
+                    new BuildRange(loans, schedules, portfolio, middle, to));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.example;
+// Monthly repayment schedule of one loan, as parallel primitive columns in minor units.
+// Month m (0-based) pays installment(m) = principalPart(m) + interestPart(m) and leaves
+// outstanding(m); the last month clears the balance. Immutable once built.
+final class AmortizationSchedule {
+    private final long amount;
+    private final long annualRateBasisPoints;
+    private final long[] installments;
+    private final long[] principalParts;
+    private final long[] interestParts;
+    private final long[] outstanding;
+    AmortizationSchedule(long amount, long annualRateBasisPoints, int months) {
+        this.amount = amount;
+        this.annualRateBasisPoints = annualRateBasisPoints;
+        this.installments = new long[months];
+        this.principalParts = new long[months];
+        this.interestParts = new long[months];
+        this.outstanding = new long[months];
+        Amortization.fill(amount, annualRateBasisPoints, months, installments, principalParts, interestParts, outstanding, 0);
+    }
+    // Amount the schedule repays
+    public long getAmountMinor() {
+        return amount;
+    }
+    public long getAnnualRateBasisPoints() {
+        return annualRateBasisPoints;
+    }
+    public int getMonths() {
+        return installments.length;
+    }
+    public long getInstallmentMinor(int month) {
+        return installments[month];
+    }
+    public long getPrincipalPartMinor(int month) {
+        return principalParts[month];
+    }
+    public long getInterestPartMinor(int month) {
+        return interestParts[month];
+    }
+    public long getOutstandingMinor(int month) {
+        return outstanding[month];
+    }
+    public long getTotalInterestMinor() {
+        long total = 0;
+        for (long interest: interestParts) {
+            total += interest;
+        }
+        return total;
+    }
+    // Copies every column into the portfolio arrays starting at offset
+    void copyTo(long[] installments, long[] principalParts, long[] interestParts, long[] outstanding, int offset) {
+        int months = this.installments.length;
+        System.arraycopy(this.installments, 0, installments, offset, months);
+        System.arraycopy(this.principalParts, 0, principalParts, offset, months);
+        System.arraycopy(this.interestParts, 0, interestParts, offset, months);
+        System.arraycopy(this.outstanding, 0, outstanding, offset, months);
+    }
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%5s %14s %14s %14s %14s%n", "Month", "Installment", "Principal", "Interest", "Outstanding"));
+        for (int m = 0; m < installments.length; m++) {
+            text.append(String.format("%5d %14.2f %14.2f %14.2f %14.2f%n", m + 1, Money.toDouble(installments[m]),
+                    Money.toDouble(principalParts[m]), Money.toDouble(interestParts[m]), Money.toDouble(outstanding[m])));
+        }
+        text.append(String.format("Total interest: %.2f", Money.toDouble(getTotalInterestMinor())));
+        return text.toString();
+    }
+}
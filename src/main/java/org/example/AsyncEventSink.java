@@ -0,0 +1,129 @@
+package org.example;
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+// An EventSink that never blocks the publisher. Events go into a preallocated ring of slots
+// and a writer thread formats them and writes them to the output in batches.
+//
+// Publishers claim a slot by compare-and-set on the claim sequence, fill it in and then mark
+// it published with the slot's sequence number; the writer takes slots strictly in sequence.
+// When the ring is full the event is dropped rather than waited for. Drops are only counted,
+// and reported as one "N events dropped" line each time the writer has caught up with the
+// ring. That line therefore follows every event that was in the ring when the drops happened,
+// and marks roughly, not exactly, where in the stream they were.
+final class AsyncEventSink implements EventSink {
+    static final int DEFAULT_CAPACITY = 1 << 14;
+    private static final int BATCH_CHARS = 1 << 13;
+    private static final long IDLE_PARK_NANOS = 200_000;
+    private final PrintStream out;
+    private final int mask;
+    private final Event[] events;
+    private final String[] details;
+    private final long[] firsts;
+    private final long[] seconds;
+    // Sequence number of the event in each slot, once it is fully written; -1 before that
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    // Highest sequence whose text has reached the output, for flush()
+    private volatile long written;
+    private volatile boolean closed;
+    private final Thread writer;
+    AsyncEventSink(PrintStream out, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.out = out;
+        this.mask = capacity - 1;
+        this.events = new Event[capacity];
+        this.details = new String[capacity];
+        this.firsts = new long[capacity];
+        this.seconds = new long[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.writer = new Thread(this::writeLoop, "event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    @Override
+    public void publish(Event event, String detail, long first, long second) {
+        for (;;) {
+            long sequence = claimed.get();
+            if (sequence - consumed.get() > mask) {
+                dropped.increment();
+                return;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                int slot = (int) (sequence & mask);
+                events[slot] = event;
+                details[slot] = detail;
+                firsts[slot] = first;
+                seconds[slot] = second;
+                published.set(slot, sequence);
+                return;
+            }
+        }
+    }
+    public long getDropped() {
+        return dropped.sum();
+    }
+    @Override
+    public void flush() {
+        long target = claimed.get();
+        while (written < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(IDLE_PARK_NANOS / 4);
+        }
+    }
+    // Writes what was published so far, then stops the writer
+    public void close() {
+        flush();
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    private void writeLoop() {
+        StringBuilder batch = new StringBuilder(BATCH_CHARS * 2);
+        long next = 0;
+        long droppedReported = 0;
+        for (;;) {
+            int slot = (int) (next & mask);
+            if (published.get(slot) == next) {
+                batch.append(events[slot].format(details[slot], firsts[slot], seconds[slot])).append(System.lineSeparator());
+                details[slot] = null;
+                next++;
+                consumed.lazySet(next);
+                if (batch.length() >= BATCH_CHARS) {
+                    out.print(batch);
+                    batch.setLength(0);
+                }
+                continue;
+            }
+            // Nothing ready: report drops, write out the batch and wait for more
+            long droppedNow = dropped.sum();
+            if (droppedNow != droppedReported) {
+                batch.append(droppedNow - droppedReported).append(" events dropped").append(System.lineSeparator());
+                droppedReported = droppedNow;
+            }
+            if (batch.length() > 0) {
+                out.print(batch);
+                batch.setLength(0);
+            }
+            out.flush();
+            written = next;
+            if (closed && next == claimed.get()) {
+                return;
+            }
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.example;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+// Every account balance and loan state of a bank as of one point in time, for reports. Taken
+// without any account lock or loan monitor, see Versions: deposits, transfers and loan decisions
+// carry on while it is taken, and none of them is seen half done. Accounts and loans opened
+// after that point are left out. Immutable once taken; accounts are ordered by number and loans
+// by id.
+//
+// A loan payout or payment changes the loan and the account as two separately versioned
+// changes, so a snapshot can fall between the two.
+final class BankSnapshot {
+    enum LoanStatus {
+        PENDING, ACTIVE, CLOSED
+    }
+    private static final LoanStatus[] STATUSES = LoanStatus.values();
+    private final long version;
+    private final int[] accountNumbers;
+    private final long[] balances;
+    private final String[] owners;
+    private final long totalBalance;
+    private final int[] loanIds;
+    private final long[] loanAmounts;
+    private final byte[] loanStatuses;
+    private final String[] borrowers;
+    private BankSnapshot(long version, List < Account > accounts, List < Loan > loans) {
+        this.version = version;
+        int accountCount = accounts.size();
+        this.accountNumbers = new int[accountCount];
+        this.balances = new long[accountCount];
+        this.owners = new String[accountCount];
+        long total = 0;
+        for (int i = 0; i < accountCount; i++) {
+            Account account = accounts.get(i);
+            accountNumbers[i] = account.getAccountNumber();
+            balances[i] = account.balanceAt(version);
+            owners[i] = account.getOwner() == null ? null : account.getOwner().getName();
+            total = Math.addExact(total, balances[i]);
+        }
+        this.totalBalance = total;
+        int loanCount = loans.size();
+        this.loanIds = new int[loanCount];
+        this.loanAmounts = new long[loanCount];
+        this.loanStatuses = new byte[loanCount];
+        this.borrowers = new String[loanCount];
+        for (int i = 0; i < loanCount; i++) {
+            Loan loan = loans.get(i);
+            loanIds[i] = loan.getLoanId();
+            loanAmounts[i] = loan.loanAmountAt(version);
+            LoanStatus status;
+            if (loan.isClosedAt(version)) {
+                status = LoanStatus.CLOSED;
+            } else {
+                status = loan.isApprovedAt(version) ? LoanStatus.ACTIVE : LoanStatus.PENDING;
+            }
+            loanStatuses[i] = (byte) status.ordinal();
+            borrowers[i] = loan.getCustomer().getName();
+        }
+    }
+    // Snapshot of bank as of this call. Snapshots are taken one at a time.
+    static BankSnapshot take(BankingSystem bank) {
+        return Versions.read(version -> {
+            List < Account > accounts = new ArrayList < > ();
+            bank.forEachAccount(account -> {
+                if (account.existsAt(version)) {
+                    accounts.add(account);
+                }
+            });
+            accounts.sort(Comparator.comparingInt(Account::getAccountNumber));
+            List < Loan > loans = new ArrayList < > ();
+            bank.getLoanRegistry().forEachLoan(loan -> {
+                if (loan.existsAt(version)) {
+                    loans.add(loan);
+                }
+            });
+            loans.sort(Comparator.comparingInt(Loan::getLoanId));
+            return new BankSnapshot(version, accounts, loans);
+        });
+    }
+    long getVersion() {
+        return version;
+    }
+    public int getAccountCount() {
+        return accountNumbers.length;
+    }
+    public int getAccountNumber(int index) {
+        return accountNumbers[index];
+    }
+    public long getBalanceMinor(int index) {
+        return balances[index];
+    }
+    public String getOwnerName(int index) {
+        return owners[index];
+    }
+    // Sum of every balance, in minor units
+    public long getTotalBalanceMinor() {
+        return totalBalance;
+    }
+    public int getLoanCount() {
+        return loanIds.length;
+    }
+    public int getLoanId(int index) {
+        return loanIds[index];
+    }
+    // Outstanding amount in minor units
+    public long getLoanAmountMinor(int index) {
+        return loanAmounts[index];
+    }
+    public LoanStatus getLoanStatus(int index) {
+        return STATUSES[loanStatuses[index]];
+    }
+    public String getBorrowerName(int index) {
+        return borrowers[index];
+    }
+    public int countLoans(LoanStatus status) {
+        int count = 0;
+        for (byte s: loanStatuses) {
+            if (s == status.ordinal()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
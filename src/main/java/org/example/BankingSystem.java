@@ -1,113 +1,720 @@
 package org.example;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 // Base class for all accounts
 abstract class Account {
-    private static final AtomicInteger accountCounter = new AtomicInteger(1);
+    // How balance updates are made safe for concurrent use
+    enum Mode {
+        // deposit, withdraw and transfer run under the account's lock
+        LOCKING,
+        // deposit and withdraw update the balance by compare-and-set; transfers still take both locks
+        LOCK_FREE
+    }
+    private static volatile IdAllocator accountNumbers = new BlockIdAllocator(1, BlockIdAllocator.DEFAULT_BLOCK_SIZE);
+    // Taken when two accounts have the same number, so their lock order is still total
+    private static final Object TIE_LOCK = new Object();
+    private static final String INSUFFICIENT_BALANCE = "Insufficient balance or invalid amount.";
+    private static final String DEPOSIT_NOT_POSITIVE = Event.DEPOSIT_NOT_POSITIVE.format(null, 0, 0);
+    // Request ids of accounts whose owner is not registered with a bank
+    private static final IdempotencyCache DETACHED_REQUESTS = new IdempotencyCache();
+    static final int NO_INTEREST_RUN = 0;
+    static final long ALREADY_POSTED = Long.MIN_VALUE;
+    private static final VarHandle BALANCE;
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(Account.class, "balance", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    // Selected per deployment with -Dbanking.account.mode=locking|lock_free
+    private static volatile Mode defaultMode = Mode.valueOf(
+            System.getProperty("banking.account.mode", "locking").toUpperCase(Locale.ROOT));
     private final int accountNumber;
-    private double balance;
+    // In minor units, see Money
+    private volatile long balance;
     private final Customer owner;
-    private final List < Transaction > transactions;
+    private final TransactionLog transactions;
+    // In LOCKING mode guards balance; transfers take both accounts' locks in account-number order
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean lockFree;
+    // Number of history entries restored from a snapshot; see restoreEntry
+    private int recoveredEntries;
+    // Last interest posting run that credited this account; written under lock
+    private volatile int interestRun = NO_INTEREST_RUN;
+    // Last version the balance changed in, and the balance before that change; see Versions
+    private volatile long version;
+    private volatile long keptBalance;
+    private final long openedVersion = Versions.current();
     public Account(Customer owner) {
-        this.accountNumber = accountCounter.getAndIncrement();
-        this.balance = 0.0;
+        this(owner, Math.toIntExact(accountNumbers.next()), false);
+    }
+    // Recreates an account with a known number, e.g. during recovery
+    Account(Customer owner, int accountNumber) {
+        this(owner, accountNumber, true);
+    }
+    private Account(Customer owner, int accountNumber, boolean restored) {
+        if (restored) {
+            accountNumbers.advanceTo(accountNumber + 1L);
+        }
+        this.accountNumber = accountNumber;
+        this.balance = 0;
         this.owner = owner;
-        this.transactions = new ArrayList < > ();
+        this.transactions = new TransactionLog();
+        this.lockFree = defaultMode == Mode.LOCK_FREE;
+    }
+    // Mode for accounts created from now on
+    static void setDefaultMode(Mode mode) {
+        defaultMode = mode;
+    }
+    static Mode getDefaultMode() {
+        return defaultMode;
+    }
+    public Mode getMode() {
+        return lockFree ? Mode.LOCK_FREE : Mode.LOCKING;
     }
     public int getAccountNumber() {
         return accountNumber;
     }
     public double getBalance() {
+        return Money.toDouble(balance);
+    }
+    public long getBalanceMinor() {
         return balance;
     }
     public void deposit(double amount) {
-        if (amount > 0) {
-            balance += amount;
-            transactions.add(new Transaction("Deposit", amount, balance));
+        depositMinor(Money.ofAmount(amount));
+    }
+    public void depositMinor(long amount) {
+        if (applyDeposit(amount)) {
+            awaitJournal();
+        } else {
+            Events.publish(Event.DEPOSIT_NOT_POSITIVE);
+        }
+    }
+    // Deposits at most once per client request id: a retry with an id already seen gets the
+    // first call's outcome back and posts nothing
+    public void deposit(long requestId, double amount) {
+        depositMinor(requestId, Money.ofAmount(amount));
+    }
+    public void depositMinor(long requestId, long amount) {
+        String rejection = applyDeposit(requestId, amount);
+        if (rejection != null) {
+            Events.publish(Event.REJECTED, rejection);
         } else {
-            System.out.println("Amount to deposit should be positive.");
+            awaitJournal();
         }
     }
+    // As applyDeposit(amount), once per request id; returns the rejection reason, or null
+    String applyDeposit(long requestId, long amount) {
+        IdempotencyCache requests = requests();
+        Object outcome = requests.begin(requestId);
+        if (outcome != null) {
+            return outcome == IdempotencyCache.DONE ? null : (String) outcome;
+        }
+        String rejection;
+        try {
+            rejection = applyDeposit(amount) ? null : DEPOSIT_NOT_POSITIVE;
+        } catch (RuntimeException | Error e) {
+            requests.abandon(requestId);
+            throw e;
+        }
+        requests.finish(requestId, rejection == null ? IdempotencyCache.DONE : rejection);
+        return rejection;
+    }
+    // Credits amount without printing or waiting for the journal; false if amount is not positive
+    boolean applyDeposit(long amount) {
+        long start = Metrics.start();
+        if (amount <= 0) {
+            Metrics.record(Metrics.Operation.DEPOSIT, start, false);
+            return false;
+        }
+        if (lockFree) {
+            keepVersionUnlocked();
+            credit(amount, System.currentTimeMillis(), true);
+        } else {
+            lock.lock();
+            try {
+                keepVersion(Versions.current());
+                credit(amount, System.currentTimeMillis(), true);
+            } finally {
+                lock.unlock();
+            }
+        }
+        Metrics.record(Metrics.Operation.DEPOSIT, start);
+        return true;
+    }
     public void withdraw(double amount) {
+        withdrawMinor(Money.ofAmount(amount));
+    }
+    public void withdrawMinor(long amount) {
+        String rejection = applyWithdrawal(amount);
+        if (rejection != null) {
+            Events.publish(Event.REJECTED, rejection);
+        } else {
+            awaitJournal();
+        }
+    }
+    // Debits amount without printing or waiting for the journal; returns the rejection reason, or null
+    String applyWithdrawal(long amount) {
+        return applyWithdrawal(amount, false);
+    }
+    // Debits a loan payment like applyWithdrawal, except that, as for a transfer, only the
+    // balance itself may be paid from and never an overdraft
+    String applyLoanPayment(long amount) {
+        return applyWithdrawal(amount, true);
+    }
+    private String applyWithdrawal(long amount, boolean ownFundsOnly) {
+        long start = Metrics.start();
+        String rejection;
+        if (lockFree) {
+            keepVersionUnlocked();
+            rejection = tryDebit(amount, null, ownFundsOnly);
+        } else {
+            lock.lock();
+            try {
+                keepVersion(Versions.current());
+                rejection = tryDebit(amount, null, ownFundsOnly);
+            } finally {
+                lock.unlock();
+            }
+        }
+        Metrics.record(Metrics.Operation.WITHDRAW, start, rejection == null);
+        return rejection;
+    }
+    // Returns null when amount may be withdrawn from the given balance, otherwise the reason it may not
+    protected String checkWithdrawal(long amount, long balance) {
         if (amount > 0 && amount <= balance) {
-            balance -= amount;
-            transactions.add(new Transaction("Withdraw", amount, balance));
+            return null;
+        }
+        return INSUFFICIENT_BALANCE;
+    }
+    // In LOCKING mode the caller holds the lock and the update cannot fail
+    private boolean updateBalance(long expected, long updated) {
+        if (lockFree) {
+            return BALANCE.compareAndSet(this, expected, updated);
+        }
+        balance = updated;
+        return true;
+    }
+    // Keeps the balance a report of an earlier version may still need before it changes in
+    // version current. The caller holds the lock, and read current after taking it.
+    private void keepVersion(long current) {
+        if (version < current) {
+            keptBalance = balance;
+            version = current;
+        }
+    }
+    // For LOCK_FREE changes: takes the lock only for the first change in a version
+    private void keepVersionUnlocked() {
+        long current = Versions.current();
+        if (version < current) {
+            lock.lock();
+            try {
+                keepVersion(current);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    // Balance as of the given version, without taking the lock. Waits only while the lock is
+    // held by a writer that may have started in that version, e.g. halfway through a transfer.
+    long balanceAt(long version) {
+        for (int spins = 0;; spins++) {
+            if (this.version > version) {
+                return keptBalance;
+            }
+            if (!lock.isLocked()) {
+                // Taking the lock from now on means reading a later version, which keeps this balance first
+                long current = balance;
+                return this.version > version ? keptBalance : current;
+            }
+            if (spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+    // False for accounts opened after the given version
+    boolean existsAt(long version) {
+        return openedVersion <= version;
+    }
+    // Returns the index of the history entry recording the credit
+    private int credit(long amount, long timestamp, boolean journaled) {
+        long current;
+        long updated;
+        do {
+            current = balance;
+            updated = Math.addExact(current, amount);
+        } while (!updateBalance(current, updated));
+        int entry = transactions.append(TransactionLog.DEPOSIT, amount, updated, TransactionLog.NO_COUNTERPARTY, timestamp);
+        if (journaled) {
+            Journal journal = journal();
+            if (journal != null) {
+                journal.logDeposit(accountNumber, entry, amount, updated, timestamp);
+            }
+        }
+        return entry;
+    }
+    // Debits this account, and credits transferTo when it is not null. Transfers always debit
+    // own funds only, ignoring an overdraft.
+    // Withdrawal rules are checked against the same balance the update is conditioned on,
+    // so a concurrent change forces a re-check rather than overdrawing the account.
+    private String tryDebit(long amount, Account transferTo, boolean ownFundsOnly) {
+        long timestamp = System.currentTimeMillis();
+        for (;;) {
+            long current = balance;
+            String rejection;
+            if ((ownFundsOnly || transferTo != null) && !(amount > 0 && amount <= current)) {
+                rejection = INSUFFICIENT_BALANCE;
+            } else {
+                rejection = checkWithdrawal(amount, current);
+            }
+            if (rejection != null) {
+                return rejection;
+            }
+            long updated = current - amount;
+            if (updateBalance(current, updated)) {
+                int withdrawEntry = transactions.append(TransactionLog.WITHDRAW, amount, updated, TransactionLog.NO_COUNTERPARTY, timestamp);
+                Journal journal = journal();
+                if (transferTo == null) {
+                    if (journal != null) {
+                        journal.logWithdraw(accountNumber, withdrawEntry, amount, updated, timestamp);
+                    }
+                    return null;
+                }
+                int depositEntry = transferTo.credit(amount, timestamp, false);
+                long toPostBalance = transferTo.transactions.postBalanceAt(depositEntry);
+                long transferPostBalance = transferTo == this ? toPostBalance : updated;
+                int transferEntry = transactions.append(TransactionLog.TRANSFER, amount, transferPostBalance, transferTo.accountNumber, timestamp);
+                if (journal != null) {
+                    journal.logTransfer(accountNumber, withdrawEntry, transferEntry, transferTo.accountNumber, depositEntry,
+                            amount, updated, toPostBalance, transferPostBalance, timestamp);
+                }
+                return null;
+            }
+        }
+    }
+    // Credits balance * rate (in basis points) atomically and returns the interest in minor units,
+    // or a non-positive value if nothing was credited
+    protected final long creditInterest(long rateBasisPoints) {
+        try {
+            return applyInterestCredit(rateBasisPoints);
+        } finally {
+            awaitJournal();
+        }
+    }
+    // As creditInterest, without waiting for the journal
+    final long applyInterestCredit(long rateBasisPoints) {
+        if (lockFree) {
+            keepVersionUnlocked();
         } else {
-            System.out.println("Insufficient balance or invalid amount.");
+            lock.lock();
+            keepVersion(Versions.current());
+        }
+        try {
+            return creditInterest(rateBasisPoints, NO_INTEREST_RUN);
+        } finally {
+            if (!lockFree) {
+                lock.unlock();
+            }
+        }
+    }
+    // In LOCKING mode the caller holds the lock. Journals the credit as part of runId, if any.
+    private long creditInterest(long rateBasisPoints, int runId) {
+        long timestamp = System.currentTimeMillis();
+        for (;;) {
+            long current = balance;
+            long interest = Money.applyRate(current, rateBasisPoints);
+            if (interest <= 0) {
+                return interest;
+            }
+            long updated = current + interest;
+            if (updateBalance(current, updated)) {
+                int entry = transactions.append(TransactionLog.DEPOSIT, interest, updated, TransactionLog.NO_COUNTERPARTY, timestamp);
+                Journal journal = journal();
+                if (journal != null) {
+                    if (runId == NO_INTEREST_RUN) {
+                        journal.logDeposit(accountNumber, entry, interest, updated, timestamp);
+                    } else {
+                        journal.logInterest(accountNumber, runId, entry, interest, updated, timestamp);
+                    }
+                }
+                return interest;
+            }
+        }
+    }
+    // Credits interest for one posting run at most once, silently. Returns the interest
+    // credited, a non-positive value if there was none, or ALREADY_POSTED. Does not wait
+    // for the journal; InterestPostingJob does that once per chunk of accounts.
+    final long postInterest(int runId, long rateBasisPoints) {
+        // Taken in both modes: it also makes checking and setting interestRun atomic
+        lock.lock();
+        try {
+            if (interestRun == runId) {
+                return ALREADY_POSTED;
+            }
+            // Set before the credit is logged, so a snapshot that holds the credit also holds the mark
+            interestRun = runId;
+            keepVersion(Versions.current());
+            long interest = creditInterest(rateBasisPoints, runId);
+            if (interest <= 0) {
+                Journal journal = journal();
+                if (journal != null) {
+                    // Nothing credited, but a resumed run must still skip this account
+                    journal.logInterest(accountNumber, runId, -1, 0, balance, System.currentTimeMillis());
+                }
+            }
+            return interest;
+        } finally {
+            lock.unlock();
+        }
+    }
+    int getInterestRun() {
+        return interestRun;
+    }
+    // Replays a journaled interest posting; used during recovery only
+    void restoreInterest(int runId, int entry, long amount, long postBalance, long timestamp) {
+        if (amount > 0) {
+            restoreEntry(entry, TransactionLog.DEPOSIT, amount, postBalance, TransactionLog.NO_COUNTERPARTY, timestamp, amount);
         }
+        interestRun = runId;
     }
     public void transfer(Account toAccount, double amount) {
-        if (amount > 0 && amount <= balance) {
-            this.withdraw(amount);
-            toAccount.deposit(amount);
-            transactions.add(new Transaction("Transfer", amount, balance, toAccount.getAccountNumber()));
+        transferMinor(toAccount, Money.ofAmount(amount));
+    }
+    public void transferMinor(Account toAccount, long amount) {
+        String rejection = applyTransfer(toAccount, amount);
+        if (rejection != null) {
+            Events.publish(Event.REJECTED, rejection);
         } else {
-            System.out.println("Insufficient balance or invalid amount.");
+            awaitJournal();
+        }
+    }
+    // Transfers at most once per client request id, like deposit(requestId, amount)
+    public void transfer(long requestId, Account toAccount, double amount) {
+        transferMinor(requestId, toAccount, Money.ofAmount(amount));
+    }
+    public void transferMinor(long requestId, Account toAccount, long amount) {
+        String rejection = applyTransfer(requestId, toAccount, amount);
+        if (rejection != null) {
+            Events.publish(Event.REJECTED, rejection);
+        } else {
+            awaitJournal();
+        }
+    }
+    // As applyTransfer(toAccount, amount), once per request id. A rejection is an outcome too:
+    // a retry gets the same rejection even if the transfer would now go through.
+    String applyTransfer(long requestId, Account toAccount, long amount) {
+        IdempotencyCache requests = requests();
+        Object outcome = requests.begin(requestId);
+        if (outcome != null) {
+            return outcome == IdempotencyCache.DONE ? null : (String) outcome;
+        }
+        String rejection;
+        try {
+            rejection = applyTransfer(toAccount, amount);
+        } catch (RuntimeException | Error e) {
+            requests.abandon(requestId);
+            throw e;
+        }
+        requests.finish(requestId, rejection == null ? IdempotencyCache.DONE : rejection);
+        return rejection;
+    }
+    // Transfers without printing or waiting for the journal; returns the rejection reason, or null
+    String applyTransfer(Account toAccount, long amount) {
+        long start = Metrics.start();
+        String rejection = transferInLockOrder(toAccount, amount);
+        Metrics.record(Metrics.Operation.TRANSFER, start, rejection == null);
+        return rejection;
+    }
+    private String transferInLockOrder(Account toAccount, long amount) {
+        Account first = this;
+        Account second = toAccount;
+        if (toAccount.accountNumber < accountNumber) {
+            first = toAccount;
+            second = this;
+        }
+        if (first.accountNumber == second.accountNumber && first != second) {
+            synchronized (TIE_LOCK) {
+                return lockedTransfer(first, second, toAccount, amount);
+            }
+        }
+        return lockedTransfer(first, second, toAccount, amount);
+    }
+    private String lockedTransfer(Account first, Account second, Account toAccount, long amount) {
+        first.lock.lock();
+        try {
+            second.lock.lock();
+            try {
+                // One version for both sides, so no report sees half of the transfer
+                long current = Versions.current();
+                first.keepVersion(current);
+                second.keepVersion(current);
+                // The debit is validated before either account changes, so a rejected transfer changes nothing
+                return tryDebit(amount, toAccount, true);
+            } finally {
+                second.lock.unlock();
+            }
+        } finally {
+            first.lock.unlock();
+        }
+    }
+    // Applies the items of batch whose source slot is not negative. accounts must be distinct
+    // and sorted by account number; each is locked once, in that order, for the whole batch.
+    // Balances are carried in a local array and written back once per account, unless some
+    // account is lock-free: its balance can change without the lock, so every item then
+    // goes through the usual compare-and-set debit instead.
+    static void transferBatch(Account[] accounts, int[] fromSlots, int[] toSlots, TransferBatch batch, Journal journal) {
+        int locked = 0;
+        boolean anyLockFree = false;
+        try {
+            for (Account account: accounts) {
+                account.lock.lock();
+                locked++;
+                anyLockFree |= account.lockFree;
+            }
+            long current = Versions.current();
+            for (Account account: accounts) {
+                account.keepVersion(current);
+            }
+            if (anyLockFree) {
+                for (int i = 0; i < batch.size(); i++) {
+                    if (fromSlots[i] >= 0) {
+                        String rejection = accounts[fromSlots[i]].tryDebit(batch.getAmountMinor(i), accounts[toSlots[i]], true);
+                        batch.setOutcome(i, rejection == null ? TransferBatch.Outcome.DONE : TransferBatch.Outcome.REJECTED);
+                    }
+                }
+            } else {
+                applyWithLocalBalances(accounts, fromSlots, toSlots, batch, journal);
+            }
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                accounts[i].lock.unlock();
+            }
+        }
+        if (journal != null) {
+            journal.awaitDurable();
+        }
+    }
+    // Same checks and history entries as tryDebit, per item; callers hold every account's lock
+    private static void applyWithLocalBalances(Account[] accounts, int[] fromSlots, int[] toSlots, TransferBatch batch, Journal journal) {
+        long[] balances = new long[accounts.length];
+        for (int s = 0; s < accounts.length; s++) {
+            balances[s] = accounts[s].balance;
+        }
+        long timestamp = System.currentTimeMillis();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                int f = fromSlots[i];
+                if (f < 0) {
+                    continue;
+                }
+                int t = toSlots[i];
+                long amount = batch.getAmountMinor(i);
+                long current = balances[f];
+                if (!(amount > 0 && amount <= current)) {
+                    batch.setOutcome(i, TransferBatch.Outcome.REJECTED);
+                    continue;
+                }
+                Account from = accounts[f];
+                Account to = accounts[t];
+                long fromPostBalance = current - amount;
+                balances[f] = fromPostBalance;
+                int withdrawEntry = from.transactions.append(TransactionLog.WITHDRAW, amount, fromPostBalance, TransactionLog.NO_COUNTERPARTY, timestamp);
+                long toPostBalance = Math.addExact(balances[t], amount);
+                balances[t] = toPostBalance;
+                int depositEntry = to.transactions.append(TransactionLog.DEPOSIT, amount, toPostBalance, TransactionLog.NO_COUNTERPARTY, timestamp);
+                long transferPostBalance = from == to ? toPostBalance : fromPostBalance;
+                int transferEntry = from.transactions.append(TransactionLog.TRANSFER, amount, transferPostBalance, to.accountNumber, timestamp);
+                if (journal != null) {
+                    journal.logTransfer(from.accountNumber, withdrawEntry, transferEntry, to.accountNumber, depositEntry,
+                            amount, fromPostBalance, toPostBalance, transferPostBalance, timestamp);
+                }
+                batch.setOutcome(i, TransferBatch.Outcome.DONE);
+            }
+        } finally {
+            // Written back even if an item failed, so balances match the history already appended
+            for (int s = 0; s < accounts.length; s++) {
+                accounts[s].balance = balances[s];
+            }
+        }
+    }
+    private Journal journal() {
+        BankingSystem bank = owner == null ? null : owner.getBank();
+        return bank == null ? null : bank.getJournal();
+    }
+    private IdempotencyCache requests() {
+        BankingSystem bank = owner == null ? null : owner.getBank();
+        return bank == null ? DETACHED_REQUESTS : bank.getIdempotencyCache();
+    }
+    // Called after locks are released, so waiting for the disk never blocks other writers
+    private void awaitJournal() {
+        Journal journal = journal();
+        if (journal != null) {
+            journal.awaitDurable();
+        }
+    }
+    // Replays one journaled history entry without validation; used during recovery only.
+    // Entries below recoveredEntries were loaded from a snapshot and are skipped.
+    void restoreEntry(int entry, byte type, long amount, long postBalance, int counterparty, long timestamp, long balanceChange) {
+        if (entry < recoveredEntries) {
+            return;
         }
+        balance += balanceChange;
+        transactions.append(type, amount, postBalance, counterparty, timestamp);
+    }
+    // Loads a snapshot of this account: its whole history, and the balance that history adds up to
+    void restoreSnapshot(long balance, int entries, int interestRun) {
+        this.balance = balance;
+        this.recoveredEntries = entries;
+        this.interestRun = interestRun;
+    }
+    static int peekNextAccountNumber() {
+        return Math.toIntExact(accountNumbers.peekNext());
+    }
+    static void advanceAccountCounter(int next) {
+        accountNumbers.advanceTo(next);
+    }
+    static IdAllocator getIdAllocator() {
+        return accountNumbers;
+    }
+    // Numbers accounts created from now on; it starts above every number handed out so far
+    static void setIdAllocator(IdAllocator allocator) {
+        allocator.advanceTo(accountNumbers.peekNext());
+        accountNumbers = allocator;
     }
     public Customer getOwner() {
         return owner;
     }
+    // Read-only view of the history as of this call
     public List < Transaction > getTransactions() {
+        return transactions.view();
+    }
+    // Whole history as of this call, oldest first, without copying it
+    public Stream < Transaction > transactionStream() {
+        return transactions.stream(0, transactions.size(), false);
+    }
+    // Most-recent-first pages over the history as of this call
+    public HistoryCursor history() {
+        int size = transactions.size();
+        return new HistoryCursor(transactions, accountNumber, size, size);
+    }
+    // Continues from a token returned by HistoryCursor.getResumeToken or Page.getResumeToken
+    public HistoryCursor history(String resumeToken) {
+        return HistoryCursor.resume(transactions, accountNumber, resumeToken);
+    }
+    TransactionLog getTransactionLog() {
         return transactions;
     }
     public abstract void applyInterest();
     public void printTransactions() {
         System.out.println("Transaction history for account " + accountNumber + ":");
-        for (Transaction t: transactions) {
-            System.out.println(t);
+        transactionStream().forEach(System.out::println);
+    }
+    // Newest first, a page at a time, asking before each older page
+    public void printTransactions(Scanner scanner) {
+        HistoryCursor cursor = history();
+        System.out.println("Transaction history for account " + accountNumber + " (" + cursor.size() + " transactions, newest first):");
+        while (cursor.hasMore()) {
+            for (Transaction t: cursor.next(HistoryCursor.DEFAULT_PAGE_SIZE).getTransactions()) {
+                System.out.println(t);
+            }
+            if (cursor.hasMore()) {
+                System.out.print("Show older transactions? (y/n): ");
+                if (!scanner.nextLine().trim().equalsIgnoreCase("y")) {
+                    break;
+                }
+            }
         }
     }
 }
 // Savings account with interest
 class SavingsAccount extends Account {
-    private static final double INTEREST_RATE = 0.03; // 3% annual interest
+    static final long INTEREST_RATE = 300; // 3% annual interest, in basis points
     public SavingsAccount(Customer owner) {
         super(owner);
     }
+    SavingsAccount(Customer owner, int accountNumber) {
+        super(owner, accountNumber);
+    }
     @Override
     public void applyInterest() {
-        double interest = getBalance() * INTEREST_RATE;
-        deposit(interest);
-        System.out.println("Interest applied: " + interest);
+        long interest = creditInterest(INTEREST_RATE);
+        if (interest <= 0) {
+            Events.publish(Event.DEPOSIT_NOT_POSITIVE);
+        }
+        Events.publish(Event.INTEREST_APPLIED, interest, 0);
     }
 }
 // Current account with overdraft
 class CurrentAccount extends Account {
-    private static final double OVERDRAFT_LIMIT = -500.00;
+    private static final long OVERDRAFT_LIMIT = -50_000; // -500.00
     public CurrentAccount(Customer owner) {
         super(owner);
     }
+    CurrentAccount(Customer owner, int accountNumber) {
+        super(owner, accountNumber);
+    }
     @Override
-    public void withdraw(double amount) {
-        if (amount > 0 && getBalance() - amount >= OVERDRAFT_LIMIT) {
-            super.withdraw(amount);
-        } else {
-            System.out.println("Overdraft limit reached or invalid amount.");
+    protected String checkWithdrawal(long amount, long balance) {
+        if (amount > 0 && amount <= balance - OVERDRAFT_LIMIT) {
+            return super.checkWithdrawal(amount, balance);
         }
+        return "Overdraft limit reached or invalid amount.";
     }
     @Override
     public void applyInterest() {
-        System.out.println("No interest on current accounts");
+        Events.publish(Event.NO_INTEREST_ON_CURRENT_ACCOUNT);
     }
 }
 // Transaction class to hold transaction details
 class Transaction {
     private final String type;
-    private final double amount;
-    private final double postBalance;
+    // Amounts in minor units, see Money
+    private final long amount;
+    private final long postBalance;
     private final int toAccountNumber;
-    public Transaction(String type, double amount, double postBalance) {
+    private final long timestamp;
+    public Transaction(String type, long amount, long postBalance) {
         this(type, amount, postBalance, -1);
     }
-    public Transaction(String type, double amount, double postBalance, int toAccountNumber) {
+    public Transaction(String type, long amount, long postBalance, int toAccountNumber) {
+        this(type, amount, postBalance, toAccountNumber, System.currentTimeMillis());
+    }
+    public Transaction(String type, long amount, long postBalance, int toAccountNumber, long timestamp) {
         this.type = type;
         this.amount = amount;
         this.postBalance = postBalance;
         this.toAccountNumber = toAccountNumber;
+        this.timestamp = timestamp;
+    }
+    public String getType() {
+        return type;
+    }
+    public long getAmountMinor() {
+        return amount;
+    }
+    public long getPostBalanceMinor() {
+        return postBalance;
+    }
+    public int getToAccountNumber() {
+        return toAccountNumber;
+    }
+    public long getTimestamp() {
+        return timestamp;
     }
     @Override
     public String toString() {
+        double amount = Money.toDouble(this.amount);
+        double postBalance = Money.toDouble(this.postBalance);
         if (toAccountNumber != -1) {
             return String.format("%s of %.2f, New balance: %.2f, Transferred to account: %d", type, amount, postBalance, toAccountNumber);
         } else {
@@ -117,73 +724,320 @@ class Transaction {
 }
 // Loan class
 class Loan {
-    private static final AtomicInteger loanCounter = new AtomicInteger(1656);
+    private static volatile IdAllocator loanIds = new BlockIdAllocator(1656, BlockIdAllocator.DEFAULT_BLOCK_SIZE);
+    static final String NOT_ENOUGH_BALANCE = "You do not have enough balance to pay off this loan currently!";
+    private static final String INVALID_PAYMENT = "Invalid payment amount.";
+    // Terms of loans applied for without explicit ones
+    static final long DEFAULT_ANNUAL_RATE = 1050; // 10.5% a year, in basis points
+    static final int DEFAULT_TENOR_MONTHS = 12;
     private final int loanId;
+    // Wall-clock time of the application, in epoch milliseconds; see LoanApprovalQueue
+    private final long appliedAt;
     private final Customer customer;
-    private double loanAmount;
-    private double initialLoanAmount;
-    private boolean approved;
-    private boolean closed;
+    // Outstanding and original amounts in minor units, see Money
+    private volatile long loanAmount;
+    private final long initialLoanAmount;
+    private final long annualRateBasisPoints;
+    private final int tenorMonths;
+    // Months the outstanding amount is scheduled over; shortened as payments cover installments
+    private volatile int remainingMonths;
+    private volatile boolean approved;
+    private volatile boolean closed;
+    // Last version the loan changed in, and its state before that change; see Versions
+    private volatile long version;
+    private long keptAmount;
+    private boolean keptApproved;
+    private boolean keptClosed;
+    private final long appliedVersion = Versions.current();
+    // Repayment schedule of the outstanding amount; cleared by every payment
+    private volatile AmortizationSchedule schedule;
     public Loan(Customer customer, double loanAmount) {
-        this.loanId = loanCounter.getAndIncrement();
+        this(customer, Money.ofAmount(loanAmount), DEFAULT_ANNUAL_RATE, DEFAULT_TENOR_MONTHS);
+    }
+    // A new loan with the next loan id
+    Loan(Customer customer, long loanAmountMinor, long annualRateBasisPoints, int tenorMonths) {
+        this(customer, loanAmountMinor, Math.toIntExact(loanIds.next()), annualRateBasisPoints, tenorMonths,
+                System.currentTimeMillis(), false);
+    }
+    // Recreates a loan with a known id, e.g. during recovery
+    Loan(Customer customer, long loanAmountMinor, int loanId) {
+        this(customer, loanAmountMinor, loanId, DEFAULT_ANNUAL_RATE, DEFAULT_TENOR_MONTHS);
+    }
+    // Without a known application time the loan counts as applied for when it is restored
+    Loan(Customer customer, long loanAmountMinor, int loanId, long annualRateBasisPoints, int tenorMonths) {
+        this(customer, loanAmountMinor, loanId, annualRateBasisPoints, tenorMonths, System.currentTimeMillis(), true);
+    }
+    Loan(Customer customer, long loanAmountMinor, int loanId, long annualRateBasisPoints, int tenorMonths, long appliedAt) {
+        this(customer, loanAmountMinor, loanId, annualRateBasisPoints, tenorMonths, appliedAt, true);
+    }
+    private Loan(Customer customer, long loanAmountMinor, int loanId, long annualRateBasisPoints, int tenorMonths,
+            long appliedAt, boolean restored) {
+        if (annualRateBasisPoints < 0 || tenorMonths <= 0) {
+            throw new IllegalArgumentException("Invalid loan terms: " + annualRateBasisPoints + " bp over " + tenorMonths + " months");
+        }
+        if (restored) {
+            loanIds.advanceTo(loanId + 1L);
+        }
+        this.loanId = loanId;
+        this.appliedAt = appliedAt;
         this.customer = customer;
-        this.loanAmount = loanAmount;
-        this.initialLoanAmount = loanAmount;
+        this.loanAmount = loanAmountMinor;
+        this.initialLoanAmount = loanAmountMinor;
+        this.annualRateBasisPoints = annualRateBasisPoints;
+        this.tenorMonths = tenorMonths;
+        this.remainingMonths = tenorMonths;
         this.approved = false;
         this.closed = false;
     }
     public int getLoanId() {
         return loanId;
     }
+    long getAppliedAt() {
+        return appliedAt;
+    }
     public Customer getCustomer() {
         return customer;
     }
     public double getLoanAmount() {
+        return Money.toDouble(loanAmount);
+    }
+    public long getLoanAmountMinor() {
         return loanAmount;
     }
     public double getInitialLoanAmount() {
+        return Money.toDouble(initialLoanAmount);
+    }
+    public long getInitialLoanAmountMinor() {
         return initialLoanAmount;
     }
+    public long getAnnualRateBasisPoints() {
+        return annualRateBasisPoints;
+    }
+    public int getTenorMonths() {
+        return tenorMonths;
+    }
+    // Months of the tenor left once every installment the payments so far cover is counted as
+    // paid; see Amortization.remainingMonths
+    public int getRemainingMonths() {
+        return remainingMonths;
+    }
+    // Schedule that repays the outstanding amount over the remaining months. Computed on first
+    // use and reused until a payment changes the outstanding amount, which re-amortizes it.
+    public AmortizationSchedule getSchedule() {
+        AmortizationSchedule s = schedule;
+        if (s != null) {
+            return s;
+        }
+        synchronized (this) {
+            if (schedule == null) {
+                schedule = Amortization.schedule(loanAmount, annualRateBasisPoints, remainingMonths);
+            }
+            return schedule;
+        }
+    }
     public boolean isApproved() {
         return approved;
     }
     public boolean isClosed() {
         return closed;
     }
+    // Closed without ever being approved
+    public boolean isRejected() {
+        return closed && !approved;
+    }
     public void approveLoan() {
-        this.approved = true;
-        this.customer.getAccounts().get(0).deposit(loanAmount);
+        if (applyApproval()) {
+            awaitJournal();
+        }
+    }
+    // Approves the loan and credits it to the customer's first account, without printing or
+    // waiting for the journal. Returns false, and credits nothing, if the loan was already
+    // approved or closed, so concurrent approvals pay a loan out exactly once.
+    boolean applyApproval() {
+        long start = Metrics.start();
+        long principal;
+        synchronized (this) {
+            if (approved || closed) {
+                Metrics.record(Metrics.Operation.LOAN_APPROVAL, start, false);
+                return false;
+            }
+            keepVersion();
+            this.approved = true;
+            // Read before the monitor is released: from here on a payment may reduce loanAmount
+            principal = loanAmount;
+            statusChanged();
+        }
+        this.customer.getAccounts().get(0).applyDeposit(principal);
+        Metrics.record(Metrics.Operation.LOAN_APPROVAL, start);
+        return true;
+    }
+    // Closes a loan that was never approved; false if it was already approved or closed
+    public boolean reject() {
+        boolean rejected = applyRejection();
+        if (rejected) {
+            awaitJournal();
+        }
+        return rejected;
+    }
+    boolean applyRejection() {
+        synchronized (this) {
+            if (approved || closed) {
+                return false;
+            }
+            keepVersion();
+            this.closed = true;
+            statusChanged();
+        }
+        customer.loanClosed(this);
+        return true;
+    }
+    private void awaitJournal() {
+        BankingSystem bank = customer.getBank();
+        if (bank != null) {
+            bank.awaitJournal();
+        }
+    }
+    // Called under the monitor before the status or outstanding amount changes. Each change
+    // sets one field, so a report reading them without the monitor never sees half of one.
+    private void keepVersion() {
+        long current = Versions.current();
+        if (version < current) {
+            keptAmount = loanAmount;
+            keptApproved = approved;
+            keptClosed = closed;
+            version = current;
+        }
+    }
+    // Outstanding amount as of the given version, without the monitor
+    long loanAmountAt(long version) {
+        long amount = loanAmount;
+        return this.version > version ? keptAmount : amount;
+    }
+    boolean isApprovedAt(long version) {
+        boolean approved = this.approved;
+        return this.version > version ? keptApproved : approved;
+    }
+    boolean isClosedAt(long version) {
+        boolean closed = this.closed;
+        return this.version > version ? keptClosed : closed;
+    }
+    // False for loans applied for after the given version
+    boolean existsAt(long version) {
+        return appliedVersion <= version;
+    }
+    private void statusChanged() {
+        BankingSystem bank = customer.getBank();
+        if (bank != null) {
+            bank.loanStatusChanged(this);
+        }
+    }
+    // Replays journaled state without side effects; used during recovery only
+    void restoreStatus(boolean approved, boolean closed) {
+        synchronized (this) {
+            this.approved = approved;
+            this.closed = closed;
+            statusChanged();
+        }
+        if (closed) {
+            customer.loanClosed(this);
+        }
+    }
+    void restorePayment(long remaining) {
+        synchronized (this) {
+            loanAmount = remaining;
+            remainingMonths = Amortization.remainingMonths(initialLoanAmount, annualRateBasisPoints, tenorMonths, remaining);
+            schedule = null;
+        }
+    }
+    static int peekNextLoanId() {
+        return Math.toIntExact(loanIds.peekNext());
+    }
+    static void advanceLoanCounter(int next) {
+        loanIds.advanceTo(next);
+    }
+    static IdAllocator getIdAllocator() {
+        return loanIds;
+    }
+    // Numbers loans applied for from now on; it starts above every id handed out so far
+    static void setIdAllocator(IdAllocator allocator) {
+        allocator.advanceTo(loanIds.peekNext());
+        loanIds = allocator;
     }
     public boolean checkIsEligible(double amount) {
-        double currentBalance = customer.getAccounts().get(0).getBalance();
+        return checkIsEligibleMinor(Money.ofAmount(amount));
+    }
+    boolean checkIsEligibleMinor(long amount) {
+        long currentBalance = customer.getAccounts().get(0).getBalanceMinor();
         return currentBalance >= amount;
     }
+    // Debits amount from the customer's first account without touching the loan
     public void paidOff(double amount) {
-        double currentBalance = customer.getAccounts().get(0).getBalance();
-        if (currentBalance > amount) {
-            customer.getAccounts().get(0).withdraw(amount);
+        paidOffMinor(Money.ofAmount(amount));
+    }
+    void paidOffMinor(long amount) {
+        if (customer.getAccounts().get(0).applyLoanPayment(amount) == null) {
+            awaitJournal();
+        } else {
+            Events.publish(Event.PAYMENT_NOT_ENOUGH_BALANCE);
         }
     }
     public void payOffLoan(double amount) {
-        boolean isEligible = checkIsEligible(amount);
-        if (!isEligible) {
-            System.out.println("You do not have enough balance to pay off this loan currently!");
-            System.out.println("Please try a lower amount");
-        } else if (amount > 0 && amount <= loanAmount) {
-            loanAmount -= amount;
+        payOffLoanMinor(Money.ofAmount(amount));
+    }
+    public void payOffLoanMinor(long amount) {
+        String rejection = applyPayment(amount);
+        if (rejection == NOT_ENOUGH_BALANCE) {
+            Events.publish(Event.PAYMENT_NOT_ENOUGH_BALANCE);
+        } else if (rejection != null) {
+            Events.publish(Event.REJECTED, rejection);
+        } else {
+            awaitJournal();
             if (loanAmount == 0) {
-                closeLoan();
-                System.out.println("You have completely paid off the loan.");
+                Events.publish(Event.LOAN_CLOSED);
             } else {
-                System.out.println("Payment of " + amount + " received. Remaining Loan balance: " + loanAmount);
+                Events.publish(Event.PAYMENT_RECEIVED, amount, loanAmount);
             }
-            paidOff(amount);
-        } else {
-            System.out.println("Invalid payment amount.");
         }
     }
+    // Takes a payment without printing or waiting for the journal; returns the rejection
+    // reason, or null. The customer's first account is debited before the loan is reduced, both
+    // under the loan's monitor (and then the account's lock), so the loan only ever goes down
+    // by money that actually moved and concurrent payments cannot overpay it.
+    String applyPayment(long amount) {
+        Account account = customer.getAccounts().get(0);
+        long remaining;
+        synchronized (this) {
+            if (!(amount > 0 && amount <= loanAmount)) {
+                return INVALID_PAYMENT;
+            }
+            if (account.applyLoanPayment(amount) != null) {
+                return NOT_ENOUGH_BALANCE;
+            }
+            keepVersion();
+            loanAmount -= amount;
+            remaining = loanAmount;
+            remainingMonths = Amortization.remainingMonths(initialLoanAmount, annualRateBasisPoints, tenorMonths, remaining);
+            schedule = null;
+            BankingSystem bank = customer.getBank();
+            if (bank != null) {
+                bank.loanPaymentMade(this, remaining);
+            }
+        }
+        if (remaining == 0) {
+            closeLoan();
+        }
+        return null;
+    }
     public void closeLoan() {
-        this.closed = true;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            keepVersion();
+            this.closed = true;
+            statusChanged();
+        }
+        customer.loanClosed(this);
     }
 }
 // Customer class
@@ -195,6 +1049,13 @@ class Customer {
     private String password;
     private final List < Account > accounts;
     private final List < Loan > loans;
+    // Per-customer views maintained as loans are applied for and closed
+    private final Map < Integer, Loan > loansById;
+    private final List < Loan > existingLoans;
+    private final List < Loan > olderLoans;
+    private volatile BankingSystem bank;
+    // Position in the bank's customer list; identifies the customer in the journal
+    private int customerNumber = -1;
     public Customer(String name, String address, String phoneNumber, String username, String password) {
         this.name = name;
         this.address = address;
@@ -203,6 +1064,9 @@ class Customer {
         this.password = password;
         this.accounts = new ArrayList < > ();
         this.loans = new ArrayList < > ();
+        this.loansById = new HashMap < > ();
+        this.existingLoans = new ArrayList < > ();
+        this.olderLoans = new ArrayList < > ();
     }
     public String getName() {
         return name;
@@ -225,52 +1089,91 @@ class Customer {
     public List < Account > getAccounts() {
         return accounts;
     }
-    public void addAccount(Account account) {
+    public synchronized void addAccount(Account account) {
         accounts.add(account);
+        if (bank != null) {
+            bank.indexAccount(this, account);
+        }
+    }
+    synchronized void registerWith(BankingSystem bankingSystem) {
+        this.bank = bankingSystem;
+        for (Account account: accounts) {
+            bankingSystem.indexAccount(this, account);
+        }
+        for (Loan loan: loans) {
+            bankingSystem.registerLoan(loan);
+        }
+    }
+    BankingSystem getBank() {
+        return bank;
+    }
+    int getCustomerNumber() {
+        return customerNumber;
+    }
+    void setCustomerNumber(int customerNumber) {
+        this.customerNumber = customerNumber;
     }
     public void applyForLoan(double amount) {
-        Loan loan = new Loan(this, amount);
-        loans.add(loan);
-        System.out.println("Loan application for " + amount + " submitted.");
-        System.out.println("You loan unique id is: " + loan.getLoanId());
+        Loan loan = applyForLoanMinor(Money.ofAmount(amount));
+        BankingSystem bankingSystem = bank;
+        if (bankingSystem != null) {
+            bankingSystem.awaitJournal();
+        }
+        Events.publish(Event.LOAN_APPLIED, loan.getInitialLoanAmountMinor(), loan.getLoanId());
+    }
+    // Files a loan application without printing or waiting for the journal
+    Loan applyForLoanMinor(long amount) {
+        return applyForLoanMinor(amount, Loan.DEFAULT_ANNUAL_RATE, Loan.DEFAULT_TENOR_MONTHS);
+    }
+    Loan applyForLoanMinor(long amount, long annualRateBasisPoints, int tenorMonths) {
+        Loan loan = new Loan(this, amount, annualRateBasisPoints, tenorMonths);
+        addLoan(loan);
+        return loan;
     }
     public void payOffLoan(int loanId, double amount) {
-        for (Loan loan: loans) {
-            if (loan.getLoanId() == loanId) {
-                if (!loan.isApproved()) {
-                    System.out.println("Loan is not yet approved!");
-                    return;
-                } else if(loan.getLoanAmount() < amount) {
-                    System.out.println("Payoff amount exceeded!");
-                    return;
-                }
-                loan.payOffLoan(amount);
-                System.out.println("Loan paid off!");
-                return;
-            }
+        Loan loan;
+        synchronized (this) {
+            loan = loansById.get(loanId);
+        }
+        if (loan == null) {
+            Events.publish(Event.LOAN_NOT_FOUND);
+            return;
+        }
+        if (!loan.isApproved()) {
+            Events.publish(Event.LOAN_NOT_APPROVED);
+            return;
+        } else if(loan.getLoanAmountMinor() < Money.ofAmount(amount)) {
+            Events.publish(Event.PAYOFF_EXCEEDED);
+            return;
+        }
+        loan.payOffLoan(amount);
+        Events.publish(Event.LOAN_PAID_OFF);
+    }
+    void addLoan(Loan loan) {
+        BankingSystem bankingSystem;
+        synchronized (this) {
+            loans.add(loan);
+            loansById.put(loan.getLoanId(), loan);
+            existingLoans.add(loan);
+            bankingSystem = bank;
+        }
+        if (bankingSystem != null) {
+            bankingSystem.registerLoan(loan);
+        }
+    }
+    synchronized void loanClosed(Loan loan) {
+        if (existingLoans.remove(loan)) {
+            olderLoans.add(loan);
         }
-        System.out.println("Loan not found.");
     }
     public List < Loan > getLoans() {
         return loans;
     }
-    public List < Loan > getExistingLoans() {
-        List<Loan> existingLoans = new ArrayList < > ();
-        for (Loan loan: loans) {
-            if (!loan.isClosed()) {
-                existingLoans.add(loan);
-            }
-        }
-        return existingLoans;
+    public synchronized List < Loan > getExistingLoans() {
+        return new ArrayList < > (existingLoans);
     }
-    public List < Loan > getOlderLoans() {
-        List < Loan > olderLoans = new ArrayList < > ();
-        for (Loan loan: loans) {
-            if (loan.isClosed()) {
-                olderLoans.add(loan);
-            }
-        }
-        return olderLoans;
+    public synchronized List < Loan > getOlderLoans() {
+        return new ArrayList < > (olderLoans);
     }
     public void viewAccount() {
         Account viewAccount = this.getAccounts().get(0);
@@ -290,6 +1193,14 @@ class Customer {
             System.out.println("Account not found.");
         }
     }
+    public void viewTransactions(Scanner scanner) {
+        Account transactionAccount = this.getAccounts().get(0);
+        if (transactionAccount != null) {
+            transactionAccount.printTransactions(scanner);
+        } else {
+            System.out.println("Account not found.");
+        }
+    }
 }
 //Employee class
 class Employee {
@@ -297,14 +1208,38 @@ class Employee {
     private final String phoneNumber;
     private final String username;
     private String password;
-    private static final AtomicInteger employeeCounter = new AtomicInteger(100);
+    private static volatile IdAllocator employeeNumbers = new BlockIdAllocator(100, BlockIdAllocator.DEFAULT_BLOCK_SIZE);
     private final int employeeNumber;
     public Employee(String name, String phoneNumber, String username, String password) {
+        this(name, phoneNumber, username, password, Math.toIntExact(employeeNumbers.next()), false);
+    }
+    // Recreates an employee with a known number, e.g. during recovery
+    Employee(String name, String phoneNumber, String username, String password, int employeeNumber) {
+        this(name, phoneNumber, username, password, employeeNumber, true);
+    }
+    private Employee(String name, String phoneNumber, String username, String password, int employeeNumber, boolean restored) {
+        if (restored) {
+            employeeNumbers.advanceTo(employeeNumber + 1L);
+        }
         this.name = name;
         this.phoneNumber = phoneNumber;
         this.username = username;
         this.password = password;
-        this.employeeNumber = employeeCounter.getAndIncrement();
+        this.employeeNumber = employeeNumber;
+    }
+    static int peekNextEmployeeNumber() {
+        return Math.toIntExact(employeeNumbers.peekNext());
+    }
+    static void advanceEmployeeCounter(int next) {
+        employeeNumbers.advanceTo(next);
+    }
+    static IdAllocator getIdAllocator() {
+        return employeeNumbers;
+    }
+    // Numbers employees created from now on; it starts above every number handed out so far
+    static void setIdAllocator(IdAllocator allocator) {
+        allocator.advanceTo(employeeNumbers.peekNext());
+        employeeNumbers = allocator;
     }
     public String getName() {
         return name;
@@ -329,15 +1264,148 @@ class Employee {
 public class BankingSystem {
     private final List < Customer > customers;
     private final List < Employee > employees;
+    private final ConcurrentIntMap < Account > accountsByNumber;
+    private final LoanRegistry loanRegistry;
+    // Optional write-ahead journal; null when state is kept in memory only
+    private volatile Journal journal;
+    // Optional single-writer pipeline the menus send money commands through; null for direct calls
+    private volatile CommandPipeline commandPipeline;
+    // Request ids of recent idempotent deposits and transfers
+    private volatile IdempotencyCache idempotencyCache;
+    // Exact username -> customer, for login
+    private final Map < String, Customer > customersByUsername;
+    // Case-folded username / name -> customer, for uniqueness checks and name search
+    private final Map < String, Customer > customersByFoldedUsername;
+    private final Map < String, Customer > customersByFoldedName;
+    private final Map < String, Employee > employeesByUsername;
+    private final Map < String, Employee > employeesByFoldedUsername;
+    private final Map < String, Employee > employeesByFoldedName;
     private final String adminUsername = "admin";
     private final String adminPassword = "admin123";
     public BankingSystem() {
         this.customers = new ArrayList < > ();
         this.employees = new ArrayList < > ();
+        this.accountsByNumber = new ConcurrentIntMap < > ();
+        this.loanRegistry = new LoanRegistry();
+        this.idempotencyCache = new IdempotencyCache();
+        this.customersByUsername = new ConcurrentHashMap < > ();
+        this.customersByFoldedUsername = new ConcurrentHashMap < > ();
+        this.customersByFoldedName = new ConcurrentHashMap < > ();
+        this.employeesByUsername = new ConcurrentHashMap < > ();
+        this.employeesByFoldedUsername = new ConcurrentHashMap < > ();
+        this.employeesByFoldedName = new ConcurrentHashMap < > ();
+    }
+    private static String fold(String key) {
+        return key.toLowerCase(Locale.ROOT);
     }
     public void addCustomer(Customer customer) {
+        addCustomer(customer, true);
+    }
+    // Bulk loaders pass awaitJournal=false and wait once per batch instead
+    void addCustomer(Customer customer, boolean awaitJournal) {
         if(customer==null) return;
-        customers.add(customer);
+        synchronized (customers) {
+            customer.setCustomerNumber(customers.size());
+            customers.add(customer);
+            Journal j = journal;
+            if (j != null) {
+                // Logged under the list lock so journal order matches customer numbers
+                j.logCustomer(customer.getCustomerNumber(), customer.getName(), customer.getAddress(),
+                        customer.getPhoneNumber(), customer.getUsername(), customer.getPassword());
+            }
+        }
+        // The first registration wins, as it did when these were linear scans
+        customersByUsername.putIfAbsent(customer.getUsername(), customer);
+        customersByFoldedUsername.putIfAbsent(fold(customer.getUsername()), customer);
+        customersByFoldedName.putIfAbsent(fold(customer.getName()), customer);
+        customer.registerWith(this);
+        if (awaitJournal) {
+            awaitJournal();
+        }
+    }
+    LoanRegistry getLoanRegistry() {
+        return loanRegistry;
+    }
+    Journal getJournal() {
+        return journal;
+    }
+    // Journals every later change; recover earlier state first with JournalReplayer
+    void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+    IdempotencyCache getIdempotencyCache() {
+        return idempotencyCache;
+    }
+    // Replaces the request id cache, e.g. with one sized for the expected retry traffic
+    void setIdempotencyCache(IdempotencyCache idempotencyCache) {
+        this.idempotencyCache = idempotencyCache;
+    }
+    CommandPipeline getCommandPipeline() {
+        return commandPipeline;
+    }
+    void setCommandPipeline(CommandPipeline commandPipeline) {
+        this.commandPipeline = commandPipeline;
+    }
+    void awaitJournal() {
+        Journal j = journal;
+        if (j != null) {
+            j.awaitDurable();
+        }
+    }
+    Customer getCustomerByNumber(int customerNumber) {
+        synchronized (customers) {
+            return customers.get(customerNumber);
+        }
+    }
+    int getCustomerCount() {
+        synchronized (customers) {
+            return customers.size();
+        }
+    }
+    Employee findEmployeeByNumber(int employeeNumber) {
+        synchronized (employees) {
+            for (Employee employee: employees) {
+                if (employee.getEmployeeNumber() == employeeNumber) {
+                    return employee;
+                }
+            }
+        }
+        return null;
+    }
+    void forEachAccount(java.util.function.Consumer < Account > action) {
+        accountsByNumber.forEachValue(action);
+    }
+    void indexAccount(Customer customer, Account account) {
+        if (accountsByNumber.putIfAbsent(account.getAccountNumber(), account) == null) {
+            Journal j = journal;
+            if (j != null) {
+                int kind = account instanceof CurrentAccount ? Journal.CURRENT : Journal.SAVINGS;
+                j.logAccountOpened(customer.getCustomerNumber(), account.getAccountNumber(), kind);
+            }
+        }
+    }
+    void registerLoan(Loan loan) {
+        if (loanRegistry.register(loan)) {
+            Journal j = journal;
+            if (j != null) {
+                j.logLoanApplied(loan.getLoanId(), loan.getCustomer().getCustomerNumber(), loan.getInitialLoanAmountMinor(),
+                        loan.getAnnualRateBasisPoints(), loan.getTenorMonths(), loan.getAppliedAt());
+            }
+        }
+    }
+    // Called by Loan under its monitor
+    void loanStatusChanged(Loan loan) {
+        loanRegistry.statusChanged(loan);
+        Journal j = journal;
+        if (j != null) {
+            j.logLoanStatus(loan.getLoanId(), loan.isApproved(), loan.isClosed());
+        }
+    }
+    void loanPaymentMade(Loan loan, long remaining) {
+        Journal j = journal;
+        if (j != null) {
+            j.logLoanPayment(loan.getLoanId(), remaining);
+        }
     }
     public List < Customer > getCustomers() {
         return customers;
@@ -346,27 +1414,31 @@ public class BankingSystem {
         return employees;
     }
     public Customer verify(String name,String address, String phoneNumber,String username,String password){
-        if(name.isBlank()){
-            System.out.println("Customer name cannot be blank");
+        String rejection = checkCustomer(name, phoneNumber, username, password);
+        if(rejection!=null){
+            System.out.println(rejection);
             return null;
         }
+        return new Customer(name, address, phoneNumber, username, password);
+    }
+    // The registration rules verify applies, without printing; returns the rejection reason, or null
+    String checkCustomer(String name, String phoneNumber, String username, String password){
+        if(name.isBlank()){
+            return "Customer name cannot be blank";
+        }
         if(phoneNumber.isBlank()){
-            System.out.println("Customer phone number cannot be blank");
-            return null;
+            return "Customer phone number cannot be blank";
         }
         if(username.isBlank()){
-            System.out.println("Customer username cannot be blank");
-            return null;
+            return "Customer username cannot be blank";
         }
-        if(this.findCustomerByName(username)!=null){
-            System.out.println("Username already exists");
-            return null;
+        if(this.findCustomerByUsername(username)!=null){
+            return "Username already exists";
         }
         if(password.isBlank()){
-            System.out.println("Customer password cannot be blank");
-            return null;
+            return "Customer password cannot be blank";
         }
-        return new Customer(name, address, phoneNumber, username, password);
+        return null;
     }
     public Account verifyAccount(Customer customer, int accountType){
         Account account = null;
@@ -390,7 +1462,7 @@ public class BankingSystem {
             System.out.println("Employee username cannot be blank");
             return null;
         }
-        if(this.findEmployeeByName(username)!=null){
+        if(this.findEmployeeByUsername(username)!=null){
             System.out.println("Employee already exists");
             return null;
         }
@@ -402,57 +1474,124 @@ public class BankingSystem {
     }
     public void addEmployee(Employee employee) {
         if(employee==null) return;
-        employees.add(employee);
-    }
-    public Customer findCustomerByName(String name) {
-        for (Customer customer: customers) {
-            if (customer.getName().equalsIgnoreCase(name)) {
-                return customer;
+        synchronized (employees) {
+            employees.add(employee);
+            Journal j = journal;
+            if (j != null) {
+                j.logEmployee(employee.getEmployeeNumber(), employee.getName(), employee.getPhoneNumber(),
+                        employee.getUsername(), employee.getPassword());
             }
         }
-        return null;
+        employeesByUsername.putIfAbsent(employee.getUsername(), employee);
+        employeesByFoldedUsername.putIfAbsent(fold(employee.getUsername()), employee);
+        employeesByFoldedName.putIfAbsent(fold(employee.getName()), employee);
+        awaitJournal();
+    }
+    public Customer findCustomerByName(String name) {
+        if (name == null) return null;
+        return customersByFoldedName.get(fold(name));
     }
     public Employee findEmployeeByName(String name) {
-        for (Employee employee: employees) {
-            if (employee.getName().equalsIgnoreCase(name)) {
-                return employee;
-            }
-        }
-        return null;
+        if (name == null) return null;
+        return employeesByFoldedName.get(fold(name));
+    }
+    public Customer findCustomerByUsername(String username) {
+        if (username == null) return null;
+        return customersByFoldedUsername.get(fold(username));
+    }
+    public Employee findEmployeeByUsername(String username) {
+        if (username == null) return null;
+        return employeesByFoldedUsername.get(fold(username));
     }
     public Account findAccountByNumber(int accountNumber) {
-        for (Customer customer: customers) {
-            for (Account account: customer.getAccounts()) {
-                if (account.getAccountNumber() == accountNumber) {
-                    return account;
-                }
+        long start = Metrics.start();
+        Account account = accountsByNumber.get(accountNumber);
+        Metrics.record(Metrics.Operation.FIND_ACCOUNT, start, account != null);
+        return account;
+    }
+    // The same lookup without metrics, for the bank's own scans. Batch jobs try every number
+    // below Account.peekNextAccountNumber, gaps included, and replay looks up every journaled
+    // account; recording those would swamp the FIND_ACCOUNT figures operators watch.
+    Account getAccountByNumber(int accountNumber) {
+        return accountsByNumber.get(accountNumber);
+    }
+    // Applies every transfer in the batch, in order, and records each item's outcome in it.
+    // Accounts are looked up once per distinct number and locked once for the whole batch.
+    // Nothing is printed; rejected items leave both accounts unchanged. Every item still appends
+    // its three history entries, as a single transfer does.
+    public TransferBatch transferAll(TransferBatch batch) {
+        int size = batch.size();
+        int[] numbers = new int[size * 2];
+        for (int i = 0; i < size; i++) {
+            numbers[2 * i] = batch.getSource(i);
+            numbers[2 * i + 1] = batch.getDestination(i);
+        }
+        Arrays.sort(numbers);
+        int distinct = 0;
+        for (int i = 0; i < numbers.length; i++) {
+            if (i == 0 || numbers[i] != numbers[i - 1]) {
+                numbers[distinct++] = numbers[i];
             }
         }
-        return null;
-    }
-    public Loan findLoanByLoanNumber(int loanNumber) {
-        for (Customer customer: customers) {
-            for (Loan loan: customer.getLoans()) {
-                if (loan.getLoanId() == loanNumber) {
-                    return loan;
-                }
+        // Sorted by number, which is also the order transfers lock accounts in
+        Account[] found = new Account[distinct];
+        int[] slots = new int[distinct];
+        int present = 0;
+        for (int d = 0; d < distinct; d++) {
+            Account account = accountsByNumber.get(numbers[d]);
+            slots[d] = account == null ? -1 : present;
+            if (account != null) {
+                found[present++] = account;
             }
         }
-        return null;
-    }
-    public Customer authenticateUser(String username, String password) {
-        for (Customer customer: customers) {
-            if (customer.getUsername().equals(username) && customer.getPassword().equals(password)) {
-                return customer;
+        int[] fromSlots = new int[size];
+        int[] toSlots = new int[size];
+        for (int i = 0; i < size; i++) {
+            int from = slots[Arrays.binarySearch(numbers, 0, distinct, batch.getSource(i))];
+            int to = slots[Arrays.binarySearch(numbers, 0, distinct, batch.getDestination(i))];
+            if (from < 0) {
+                batch.setOutcome(i, TransferBatch.Outcome.SOURCE_NOT_FOUND);
+            } else if (to < 0) {
+                batch.setOutcome(i, TransferBatch.Outcome.DESTINATION_NOT_FOUND);
+                from = -1;
             }
+            fromSlots[i] = from;
+            toSlots[i] = to;
         }
-        return null;
+        Account.transferBatch(Arrays.copyOf(found, present), fromSlots, toSlots, batch, journal);
+        return batch;
+    }
+    public Loan findLoanByLoanNumber(int loanNumber) {
+        return loanRegistry.find(loanNumber);
+    }
+    public LoanApprovalQueue getLoanApprovalQueue() {
+        return loanRegistry.getApprovalQueue();
+    }
+    // Bulk decisions by one employee: one outcome per loan id, in order, and a single journal
+    // wait for the whole batch. Nothing is printed.
+    public LoanApprovalQueue.Outcome[] approveLoans(Employee employee, int[] loanIds) {
+        LoanApprovalQueue.Outcome[] outcomes = loanRegistry.getApprovalQueue().approveAll(employee.getEmployeeNumber(), loanIds);
+        awaitJournal();
+        return outcomes;
+    }
+    public LoanApprovalQueue.Outcome[] rejectLoans(Employee employee, int[] loanIds) {
+        LoanApprovalQueue.Outcome[] outcomes = loanRegistry.getApprovalQueue().rejectAll(employee.getEmployeeNumber(), loanIds);
+        awaitJournal();
+        return outcomes;
+    }
+    public Customer authenticateUser(String username, String password) {
+        if (username == null) return null;
+        long start = Metrics.start();
+        Customer customer = customersByUsername.get(username);
+        boolean authenticated = customer != null && customer.getPassword().equals(password);
+        Metrics.record(Metrics.Operation.AUTHENTICATE, start, authenticated);
+        return authenticated ? customer : null;
     }
     public Employee authenticateEmployee(String username, String password) {
-        for (Employee employee: employees) {
-            if (employee.getUsername().equals(username) && employee.getPassword().equals(password)) {
-                return employee;
-            }
+        if (username == null) return null;
+        Employee employee = employeesByUsername.get(username);
+        if (employee != null && employee.getPassword().equals(password)) {
+            return employee;
         }
         return null;
     }
@@ -460,6 +1599,11 @@ public class BankingSystem {
         Customer customer = authenticateUser(username, currentPassword);
         if (customer != null) {
             customer.setPassword(newPassword);
+            Journal j = journal;
+            if (j != null) {
+                j.logCustomerPassword(customer.getCustomerNumber(), newPassword);
+                j.awaitDurable();
+            }
             System.out.println("Password changed successfully.");
             return true;
         } else {
@@ -471,6 +1615,11 @@ public class BankingSystem {
         Employee correctEmployee = authenticateEmployee(employee.getUsername(), currentPassword);
         if (correctEmployee != null) {
             correctEmployee.setPassword(newPassword);
+            Journal j = journal;
+            if (j != null) {
+                j.logEmployeePassword(correctEmployee.getEmployeeNumber(), newPassword);
+                j.awaitDurable();
+            }
             System.out.println("Password changed successfully.");
             return true;
         }
@@ -478,37 +1627,17 @@ public class BankingSystem {
         return false;
     }
     public List < Loan > getUnapprovedLoans() {
-        List < Loan > unapprovedLoans = new ArrayList < > ();
-        for (Customer customer: customers) {
-            for (Loan loan: customer.getLoans()) {
-                if (!loan.isApproved() && !loan.isClosed()) {
-                    unapprovedLoans.add(loan);
-                }
-            }
-        }
-        return unapprovedLoans;
+        return loanRegistry.getPendingLoans();
     }
     public List < Loan > getApprovedLoans() {
-        List < Loan > approvedLoans = new ArrayList < > ();
-        for (Customer customer: customers) {
-            for (Loan loan: customer.getLoans()) {
-                if (loan.isApproved() && !loan.isClosed()) {
-                    approvedLoans.add(loan);
-                }
-            }
-        }
-        return approvedLoans;
+        return loanRegistry.getActiveLoans();
     }
     public List < Loan > getClosedLoans() {
-        List < Loan > closedLoans = new ArrayList < > ();
-        for (Customer customer: customers) {
-            for (Loan loan: customer.getLoans()) {
-                if (loan.isClosed()) {
-                    closedLoans.add(loan);
-                }
-            }
-        }
-        return closedLoans;
+        return loanRegistry.getClosedLoans();
+    }
+    // Balances and loan states as of this call, taken without blocking customers; see BankSnapshot
+    public BankSnapshot snapshot() {
+        return BankSnapshot.take(this);
     }
     public boolean authenticateAdmin(String username, String password) {
         return adminUsername.equals(username) && adminPassword.equals(password);
@@ -592,7 +1721,7 @@ public class BankingSystem {
             bankingSystem.addCustomer(customer);
             Account account = new SavingsAccount(customer);
             customer.addAccount(account);
-            customer.applyForLoan(loanAmount[i]);
+            customer.applyForLoanMinor(Money.ofAmount(loanAmount[i]));
             if (i % 2 == 0) {
                 customer.getLoans().get(0).approveLoan();
             }
@@ -704,15 +1833,67 @@ public class BankingSystem {
             }
         }
     }
-    public static void main(String[] args) {
+    public static void main(String[] args) throws java.io.IOException {
+        // -Dbanking.ids=<directory> keeps id high-water marks there, so no id is reused after a restart
+        String idsPath = System.getProperty("banking.ids");
+        if (idsPath != null) {
+            java.nio.file.Path ids = java.nio.file.Files.createDirectories(java.nio.file.Paths.get(idsPath));
+            Account.setIdAllocator(BlockIdAllocator.open(ids.resolve("account-numbers"), 1, BlockIdAllocator.DEFAULT_BLOCK_SIZE));
+            Loan.setIdAllocator(BlockIdAllocator.open(ids.resolve("loan-ids"), 1656, BlockIdAllocator.DEFAULT_BLOCK_SIZE));
+            Employee.setIdAllocator(BlockIdAllocator.open(ids.resolve("employee-numbers"), 100, BlockIdAllocator.DEFAULT_BLOCK_SIZE));
+        }
         BankingSystem bankingSystem = new BankingSystem();
-        initializeData(bankingSystem);
+        // -Dbanking.journal=<file> keeps state across restarts; without it state is in memory only
+        String journalPath = System.getProperty("banking.journal");
+        if (journalPath == null) {
+            initializeData(bankingSystem);
+        } else {
+            java.nio.file.Path path = java.nio.file.Paths.get(journalPath);
+            Journal.Durability durability = Journal.Durability.valueOf(
+                    System.getProperty("banking.journal.durability", Journal.Durability.BATCHED.name()).toUpperCase(Locale.ROOT));
+            Journal journal = Journal.open(path, durability);
+            // -Dbanking.snapshot=<file> restarts from a snapshot plus the journal written since
+            String snapshotPath = System.getProperty("banking.snapshot");
+            java.nio.file.Path snapshot = snapshotPath == null ? null : java.nio.file.Paths.get(snapshotPath);
+            if (snapshot != null && java.nio.file.Files.exists(snapshot)) {
+                long journalPosition = Snapshot.load(snapshot, bankingSystem);
+                JournalReplayer.replay(path, journalPosition, bankingSystem);
+                bankingSystem.setJournal(journal);
+            } else if (journal.getAppendedPosition() > 0) {
+                JournalReplayer.replay(path, bankingSystem);
+                bankingSystem.setJournal(journal);
+            } else {
+                bankingSystem.setJournal(journal);
+                initializeData(bankingSystem);
+            }
+            if (snapshot != null) {
+                long intervalSeconds = Long.getLong("banking.snapshot.interval", 300);
+                Snapshot.scheduleEvery(bankingSystem, snapshot, intervalSeconds * 1000);
+            }
+        }
+        // -Dbanking.headless=<file> runs a command script instead of the menus; - reads standard input
+        String script = System.getProperty("banking.headless");
+        if (script != null) {
+            CommandProcessor.runScript(bankingSystem, script);
+            return;
+        }
+        // -Dbanking.pipeline=park|yield|busy_spin runs deposits, withdrawals and transfers on one writer thread
+        String pipeline = System.getProperty("banking.pipeline");
+        if (pipeline != null) {
+            bankingSystem.setCommandPipeline(new CommandPipeline(bankingSystem,
+                    CommandPipeline.WaitStrategy.valueOf(pipeline.toUpperCase(Locale.ROOT))));
+        }
         Scanner scanner = new Scanner(System.in);
         bankingSystem.mainMenu(bankingSystem, scanner);
     }
     public void depositMoney(BankingSystem bankingSystem, int accountNumber, Scanner scanner) {
         System.out.print("Enter deposit amount: ");
         double depositAmount = scanner.nextDouble();
+        CommandPipeline pipeline = bankingSystem.getCommandPipeline();
+        if (pipeline != null) {
+            awaitCommand(pipeline.deposit(accountNumber, Money.ofAmount(depositAmount)), "Amount deposited.", "Account not found.");
+            return;
+        }
         Account depositAccount = bankingSystem.findAccountByNumber(accountNumber);
         if (depositAccount != null) {
             depositAccount.deposit(depositAmount);
@@ -724,6 +1905,11 @@ public class BankingSystem {
     public void withdrawMoney(BankingSystem bankingSystem, int accountNumber, Scanner scanner) {
         System.out.print("Enter withdrawal amount: ");
         double withdrawalAmount = scanner.nextDouble();
+        CommandPipeline pipeline = bankingSystem.getCommandPipeline();
+        if (pipeline != null) {
+            awaitCommand(pipeline.withdraw(accountNumber, Money.ofAmount(withdrawalAmount)), "Amount withdrawn.", "Account not found.");
+            return;
+        }
         Account withdrawAccount = bankingSystem.findAccountByNumber(accountNumber);
         if (withdrawAccount != null) {
             withdrawAccount.withdraw(withdrawalAmount);
@@ -737,6 +1923,12 @@ public class BankingSystem {
         int destinationAccountNumber = scanner.nextInt();
         System.out.print("Enter transfer amount: ");
         double transferAmount = scanner.nextDouble();
+        CommandPipeline pipeline = bankingSystem.getCommandPipeline();
+        if (pipeline != null) {
+            awaitCommand(pipeline.transfer(sourceAccountNumber, destinationAccountNumber, Money.ofAmount(transferAmount)),
+                    "Amount transferred.", "Source or destination account not found.");
+            return;
+        }
         Account sourceAccount = bankingSystem.findAccountByNumber(sourceAccountNumber);
         Account destinationAccount = bankingSystem.findAccountByNumber(destinationAccountNumber);
         if (sourceAccount != null && destinationAccount != null) {
@@ -746,6 +1938,23 @@ public class BankingSystem {
             System.out.println("Source or destination account not found.");
         }
     }
+    // Waits for a pipelined command and prints what the direct call would have printed
+    private static void awaitCommand(CompletableFuture < Long > result, String done, String notFound) {
+        try {
+            result.join();
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof CommandPipeline.CommandFailedException)) {
+                throw e;
+            }
+            CommandPipeline.CommandFailedException failure = (CommandPipeline.CommandFailedException) e.getCause();
+            if (failure.getError() == CommandProcessor.Error.NO_ACCOUNT) {
+                System.out.println(notFound);
+                return;
+            }
+            Events.publish(Event.REJECTED, failure.getMessage());
+        }
+        System.out.println(done);
+    }
     public void customerMenu(BankingSystem bankingSystem, Customer customer, Scanner scanner) {
         int accountNumber = customer.getAccounts().get(0).getAccountNumber();
         while (true) {
@@ -775,7 +1984,7 @@ public class BankingSystem {
                     customer.viewAccount();
                     break;
                 case 5:
-                    customer.viewTransactions();
+                    customer.viewTransactions(scanner);
                     break;
                 case 6:
                     loanSection(bankingSystem, customer, scanner);
@@ -803,7 +2012,12 @@ public class BankingSystem {
             System.out.println("3. View Account");
             System.out.println("4. View Transaction History");
             System.out.println("5. Apply Interest");
-            System.out.println("6. Logout");
+            System.out.println("6. Post interest to all savings accounts");
+            System.out.println("7. Import customers from file");
+            System.out.println("8. View metrics");
+            System.out.println("9. Generate month-end statements");
+            System.out.println("10. Bank report");
+            System.out.println("11. Logout");
             System.out.print("Choose an option: ");
             int option = scanner.nextInt();
             scanner.nextLine(); // Consume newline
@@ -844,9 +2058,10 @@ public class BankingSystem {
                 case 4:
                     System.out.print("Enter account number: ");
                     accountNumber = scanner.nextInt();
+                    scanner.nextLine(); // Consume newline
                     Account transactionAccount = bankingSystem.findAccountByNumber(accountNumber);
                     if (transactionAccount != null) {
-                        transactionAccount.printTransactions();
+                        transactionAccount.printTransactions(scanner);
                     } else {
                         System.out.println("Account not found.");
                     }
@@ -862,6 +2077,21 @@ public class BankingSystem {
                     }
                     break;
                 case 6:
+                    postInterestToAll(bankingSystem, scanner);
+                    break;
+                case 7:
+                    importCustomers(bankingSystem, scanner);
+                    break;
+                case 8:
+                    viewMetrics(scanner);
+                    break;
+                case 9:
+                    generateStatements(bankingSystem, scanner);
+                    break;
+                case 10:
+                    printBankReport(bankingSystem.snapshot());
+                    break;
+                case 11:
                     System.out.println("Logging out.");
                     return;
                 default:
@@ -869,6 +2099,80 @@ public class BankingSystem {
             }
         }
     }
+    // Every account and the loan counts, all as of one point in time
+    static void printBankReport(BankSnapshot snapshot) {
+        System.out.println("Bank report, " + snapshot.getAccountCount() + " accounts:");
+        for (int i = 0; i < snapshot.getAccountCount(); i++) {
+            System.out.println("Account Number: " + snapshot.getAccountNumber(i) + " \tBalance: " + Money.toDouble(snapshot.getBalanceMinor(i))
+                    + " \tOwner: " + snapshot.getOwnerName(i));
+        }
+        System.out.println("Total balance: " + Money.toDouble(snapshot.getTotalBalanceMinor()));
+        System.out.println("Loans: " + snapshot.countLoans(BankSnapshot.LoanStatus.PENDING) + " pending, "
+                + snapshot.countLoans(BankSnapshot.LoanStatus.ACTIVE) + " active, "
+                + snapshot.countLoans(BankSnapshot.LoanStatus.CLOSED) + " closed");
+    }
+    // Prints Metrics since the last reset and optionally starts a new interval
+    public void viewMetrics(Scanner scanner) {
+        System.out.print(Metrics.dump(false));
+        System.out.print("Reset metrics? (y/n): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("y")) {
+            Metrics.reset();
+            System.out.println("Metrics reset.");
+        }
+    }
+    // Runs StatementJob for one calendar month in the system time zone
+    public void generateStatements(BankingSystem bankingSystem, Scanner scanner) {
+        System.out.print("Enter statement month (yyyy-MM): ");
+        java.time.YearMonth month;
+        try {
+            month = java.time.YearMonth.parse(scanner.nextLine().trim());
+        } catch (java.time.format.DateTimeParseException e) {
+            System.out.println("Invalid month.");
+            return;
+        }
+        System.out.print("Enter output directory: ");
+        java.nio.file.Path directory = java.nio.file.Paths.get(scanner.nextLine().trim());
+        try {
+            System.out.println(StatementJob.forMonth(bankingSystem, directory, month, java.time.ZoneId.systemDefault()).run());
+        } catch (java.io.IOException e) {
+            System.out.println("Statement generation failed: " + e.getMessage());
+        }
+    }
+    // Runs BulkImporter on a CSV or TSV file; rejected rows go to the same path plus .rejects
+    public void importCustomers(BankingSystem bankingSystem, Scanner scanner) {
+        System.out.print("Enter file to import: ");
+        java.nio.file.Path file = java.nio.file.Paths.get(scanner.nextLine().trim());
+        java.nio.file.Path rejects = java.nio.file.Paths.get(file + ".rejects");
+        try {
+            BulkImporter.Report report = BulkImporter.forFile(bankingSystem, file).importFile(file, rejects);
+            System.out.println(report);
+            if (report.getRejected() > 0) {
+                System.out.println("Rejected rows written to " + rejects);
+            }
+        } catch (java.io.IOException e) {
+            System.out.println("Import failed: " + e.getMessage());
+        }
+    }
+    // Runs InterestPostingJob. Entering the id of an interrupted run resumes it; with
+    // -Dbanking.interest.checkpoints=<dir> finished ranges are skipped without rescanning them.
+    public void postInterestToAll(BankingSystem bankingSystem, Scanner scanner) {
+        System.out.print("Enter run id (e.g. 202610 for October 2026): ");
+        int runId = scanner.nextInt();
+        if (runId == Account.NO_INTEREST_RUN) {
+            System.out.println("Invalid run id.");
+            return;
+        }
+        String checkpointDir = System.getProperty("banking.interest.checkpoints");
+        java.nio.file.Path checkpoint = checkpointDir == null ? null
+                : java.nio.file.Paths.get(checkpointDir, "interest-" + runId + ".checkpoint");
+        try {
+            System.out.println(new InterestPostingJob(bankingSystem, runId, checkpoint).run());
+        } catch (java.io.IOException e) {
+            System.out.println("Interest posting stopped: " + e.getMessage());
+        } catch (InterestPostingJob.RunOutOfOrderException e) {
+            System.out.println(e.getMessage());
+        }
+    }
     public void applyInterest(BankingSystem bankingSystem, Scanner scanner) {
         System.out.print("Enter account number: ");
         int accountNumber = scanner.nextInt();
@@ -943,9 +2247,10 @@ public class BankingSystem {
                 case 3:
                     System.out.print("Enter account number: ");
                     accountNumber = scanner.nextInt();
+                    scanner.nextLine(); // Consume newline
                     Account transactionAccount = bankingSystem.findAccountByNumber(accountNumber);
                     if (transactionAccount != null) {
-                        transactionAccount.printTransactions();
+                        transactionAccount.printTransactions(scanner);
                     } else {
                         System.out.println("Account not found.");
                     }
@@ -954,7 +2259,7 @@ public class BankingSystem {
                     applyInterest(bankingSystem, scanner);
                     break;
                 case 5:
-                    employeeLoanSection(bankingSystem, scanner);
+                    employeeLoanSection(bankingSystem, employee, scanner);
                     break;
                 case 6:
                     System.out.print("Enter current password: ");
@@ -978,7 +2283,8 @@ public class BankingSystem {
             System.out.println("2. View Existing loans");
             System.out.println("3. View Older loans");
             System.out.println("4. Payoff an existing loan");
-            System.out.println("5. Back");
+            System.out.println("5. View repayment schedule");
+            System.out.println("6. Back");
             System.out.print("Choose an option: ");
             int option = scanner.nextInt();
             scanner.nextLine(); // Consume newline
@@ -1026,6 +2332,15 @@ public class BankingSystem {
                     customer.payOffLoan(loanNumber, payOffAmount);
                     break;
                 case 5:
+                    System.out.print("Choose Loan Number: ");
+                    Loan scheduledLoan = bankingSystem.findLoanByLoanNumber(scanner.nextInt());
+                    if (scheduledLoan == null || scheduledLoan.getCustomer() != customer) {
+                        System.out.println("Loan not found.");
+                    } else {
+                        System.out.println(scheduledLoan.getSchedule());
+                    }
+                    break;
+                case 6:
                     System.out.println("Going back");
                     return;
                 default:
@@ -1033,10 +2348,82 @@ public class BankingSystem {
             }
         }
     }
-    private static void employeeLoanSection(BankingSystem bankingSystem, Scanner scanner) {
+    // Pending loans an employee claims from the approval queue at a time
+    private static final int LOANS_PER_CLAIM = 20;
+    // Claims a page of pending loans for the employee, takes decisions on them, and hands the
+    // undecided ones back to the queue for other employees
+    private static void decideLoans(BankingSystem bankingSystem, Employee employee, Scanner scanner) {
+        System.out.print("Order by (1) oldest first or (2) largest amount first: ");
+        LoanApprovalQueue.Order order = scanner.nextInt() == 2 ? LoanApprovalQueue.Order.LARGEST_FIRST : LoanApprovalQueue.Order.OLDEST_FIRST;
+        scanner.nextLine(); // Consume newline
+        LoanApprovalQueue queue = bankingSystem.getLoanApprovalQueue();
+        List < Loan > claimed = queue.claim(employee.getEmployeeNumber(), order, LOANS_PER_CLAIM);
+        if (claimed.isEmpty()) {
+            System.out.println("No loans are waiting for approval.");
+            return;
+        }
+        try {
+            for (Loan loan: claimed) {
+                System.out.println("Loan Number: " + loan.getLoanId() + " \tLoan Amount: " + loan.getLoanAmount() + " \tCustomer Name: " + loan.getCustomer().getName());
+            }
+            System.out.print("Enter loan numbers to approve, separated by spaces: ");
+            int[] approve = parseLoanNumbers(scanner.nextLine());
+            System.out.print("Enter loan numbers to reject, separated by spaces: ");
+            int[] reject = parseLoanNumbers(scanner.nextLine());
+            printOutcomes(approve, bankingSystem.approveLoans(employee, approve));
+            printOutcomes(reject, bankingSystem.rejectLoans(employee, reject));
+        } finally {
+            queue.releaseAll(employee.getEmployeeNumber());
+        }
+    }
+    private static int[] parseLoanNumbers(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        int[] numbers = new int[tokens.length];
+        int count = 0;
+        for (String token: tokens) {
+            try {
+                numbers[count] = Integer.parseInt(token);
+                count++;
+            } catch (NumberFormatException e) {
+                if (!token.isEmpty()) {
+                    System.out.println("Incorrect Loan number!");
+                }
+            }
+        }
+        return Arrays.copyOf(numbers, count);
+    }
+    private static void printOutcomes(int[] loanNumbers, LoanApprovalQueue.Outcome[] outcomes) {
+        for (int i = 0; i < loanNumbers.length; i++) {
+            switch (outcomes[i]) {
+                case APPROVED:
+                    System.out.println("Loan " + loanNumbers[i] + " has been approved");
+                    break;
+                case REJECTED:
+                    System.out.println("Loan " + loanNumbers[i] + " has been rejected");
+                    break;
+                case CLAIMED_BY_OTHER:
+                    System.out.println("Loan " + loanNumbers[i] + " is being handled by another employee");
+                    break;
+                case NOT_PENDING:
+                    System.out.println("Loan " + loanNumbers[i] + " is no longer pending");
+                    break;
+                default:
+                    System.out.println("Incorrect Loan number!");
+            }
+        }
+    }
+    private static void printLoans(BankSnapshot snapshot, BankSnapshot.LoanStatus status) {
+        for (int i = 0; i < snapshot.getLoanCount(); i++) {
+            if (snapshot.getLoanStatus(i) == status) {
+                double loanAmount = Money.toDouble(snapshot.getLoanAmountMinor(i));
+                System.out.println("Loan Number: " + snapshot.getLoanId(i) + " \tLoan Amount: " + loanAmount + " \tCustomer Name: " + snapshot.getBorrowerName(i));
+            }
+        }
+    }
+    private static void employeeLoanSection(BankingSystem bankingSystem, Employee employee, Scanner scanner) {
         while (true) {
             System.out.println("Loan Section");
-            System.out.println("1. Approve Loans");
+            System.out.println("1. Approve or reject Loans");
             System.out.println("2. View Existing loans status");
             System.out.println("3. View Closed loans");
             System.out.println("4. Back");
@@ -1044,42 +2431,15 @@ public class BankingSystem {
             int option = scanner.nextInt();
             switch (option) {
                 case 1:
-                    List < Loan > unapprovedLoans = bankingSystem.getUnapprovedLoans();
-                    for (Loan loan: unapprovedLoans) {
-                        double loanAmount = loan.getLoanAmount();
-                        int loanNumber = loan.getLoanId();
-                        String customerName = loan.getCustomer().getName();
-                        System.out.println("Loan Number: " + loanNumber + " \tLoan Amount: " + loanAmount + " \tCustomer Name: " + customerName);
-                    }
-                    System.out.print("Choose loan number to approve: ");
-                    int approvedLoanNumer = scanner.nextInt();
-                    Loan loanToBeApproved = bankingSystem.findLoanByLoanNumber(approvedLoanNumer);
-                    if (loanToBeApproved != null) {
-                        loanToBeApproved.approveLoan();
-                        System.out.println("Loan has been approved");
-                    } else {
-                        System.out.println("Incorrect Loan number!");
-                    }
+                    decideLoans(bankingSystem, employee, scanner);
                     break;
                 case 2:
-                    List < Loan > approvedLoans = bankingSystem.getApprovedLoans();
                     System.out.println("Here are the details for all the current loans");
-                    for (Loan loan: approvedLoans) {
-                        double loanAmount = loan.getLoanAmount();
-                        int loanNumber = loan.getLoanId();
-                        String customerName = loan.getCustomer().getName();
-                        System.out.println("Loan Number: " + loanNumber + " \tLoan Amount: " + loanAmount + " \tCustomer Name: " + customerName);
-                    }
+                    printLoans(bankingSystem.snapshot(), BankSnapshot.LoanStatus.ACTIVE);
                     break;
                 case 3:
-                    List < Loan > closedLoans = bankingSystem.getClosedLoans();
                     System.out.println("Here are the details for all the current loans");
-                    for (Loan loan: closedLoans) {
-                        double loanAmount = loan.getLoanAmount();
-                        int loanNumber = loan.getLoanId();
-                        String customerName = loan.getCustomer().getName();
-                        System.out.println("Loan Number: " + loanNumber + " \tLoan Amount: " + loanAmount + " \tCustomer Name: " + customerName);
-                    }
+                    printLoans(bankingSystem.snapshot(), BankSnapshot.LoanStatus.CLOSED);
                     break;
                 case 4:
                     return;
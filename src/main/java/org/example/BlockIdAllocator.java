@@ -0,0 +1,138 @@
+package org.example;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+// Hands out ids in blocks: each thread, or each partition of a job, reserves blockSize ids
+// from the shared counter at a time and allocates from its own block, so the shared counter
+// is written once per block instead of once per id. Ids are unique but only ordered within a
+// block; ids left in a block when its thread dies are never used.
+//
+// advanceTo raises a floor as well as the counter. A block whose next id is below the floor
+// is dropped on its next use, so ids restored by recovery are never handed out again even if
+// some thread's block already covered them.
+//
+// An allocator opened on a file keeps its high-water mark there. Ids are leased from the file
+// LEASE_BLOCKS blocks at a time: the new lease is written and forced before any id beyond the
+// old one is handed out, so after a restart, crash included, allocation resumes above every id
+// ever handed out. A crash skips at most the unused rest of one lease.
+final class BlockIdAllocator implements IdAllocator {
+    static final int DEFAULT_BLOCK_SIZE = 64;
+    static final int LEASE_BLOCKS = 256;
+    private final int blockSize;
+    // Every id below it belongs to some block
+    private final AtomicLong reserved;
+    private volatile long floor;
+    private final ThreadLocal < Block > blocks = ThreadLocal.withInitial(Block::new);
+    // High-water file, or null to keep nothing across restarts
+    private final FileChannel leaseFile;
+    private volatile long leased;
+    private static final class Block {
+        long next;
+        long end;
+    }
+    BlockIdAllocator(long first, int blockSize) {
+        this(first, blockSize, null);
+    }
+    private BlockIdAllocator(long first, int blockSize, FileChannel leaseFile) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.blockSize = blockSize;
+        this.reserved = new AtomicLong(first);
+        this.floor = first;
+        this.leaseFile = leaseFile;
+    }
+    // An allocator whose high-water mark is kept in file; starts at first if the file is new
+    static BlockIdAllocator open(Path file, long first, int blockSize) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        BlockIdAllocator allocator = new BlockIdAllocator(first, blockSize, channel);
+        // Shorter than a mark only if it was never written: the first lease is forced before any id is used
+        if (channel.size() >= Long.BYTES) {
+            ByteBuffer stored = ByteBuffer.allocate(Long.BYTES);
+            while (stored.hasRemaining()) {
+                if (channel.read(stored, stored.position()) < 0) {
+                    throw new EOFException(file.toString());
+                }
+            }
+            long mark = stored.flip().getLong();
+            allocator.advanceTo(mark);
+            allocator.leased = mark;
+        }
+        return allocator;
+    }
+    public int getBlockSize() {
+        return blockSize;
+    }
+    @Override
+    public long next() {
+        return take(blocks.get());
+    }
+    @Override
+    public long peekNext() {
+        return reserved.get();
+    }
+    @Override
+    public synchronized void advanceTo(long next) {
+        reserved.accumulateAndGet(next, Math::max);
+        if (next > floor) {
+            floor = next;
+        }
+    }
+    // Ids for one partition of a job, from blocks of its own; use it from one thread at a time
+    IdAllocator partition() {
+        Block block = new Block();
+        return new IdAllocator() {
+            @Override
+            public long next() {
+                return take(block);
+            }
+            @Override
+            public long peekNext() {
+                return BlockIdAllocator.this.peekNext();
+            }
+            @Override
+            public void advanceTo(long next) {
+                BlockIdAllocator.this.advanceTo(next);
+            }
+        };
+    }
+    private long take(Block block) {
+        long id = block.next;
+        while (id >= block.end || id < floor) {
+            id = reserve(block);
+        }
+        block.next = id + 1;
+        return id;
+    }
+    // Points the block at a fresh range and returns its first id
+    private long reserve(Block block) {
+        long start = reserved.getAndAdd(blockSize);
+        long end = Math.addExact(start, blockSize);
+        if (leaseFile != null && end > leased) {
+            lease(end);
+        }
+        block.end = end;
+        return start;
+    }
+    private synchronized void lease(long end) {
+        if (end <= leased) {
+            return;
+        }
+        long lease = Math.addExact(end, (long) blockSize * LEASE_BLOCKS);
+        try {
+            ByteBuffer mark = ByteBuffer.allocate(Long.BYTES).putLong(lease).flip();
+            while (mark.hasRemaining()) {
+                leaseFile.write(mark, mark.position());
+            }
+            leaseFile.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        leased = lease;
+    }
+}
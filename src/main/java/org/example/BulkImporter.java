@@ -0,0 +1,320 @@
+package org.example;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+// Streams customers with one account each from a CSV or TSV file into a BankingSystem.
+//
+// Each row is: name, address, phone, username, password, account type (SAVINGS, CURRENT,
+// 1 or 2, as verifyAccount takes) and opening balance. A first row whose username column
+// reads "username" is a header and is skipped. Fields may be "double quoted" to contain the
+// delimiter, with "" for a quote, but may not contain line breaks.
+//
+// The input is read in chunks of whole lines. Chunks are parsed in parallel on a
+// ForkJoinPool while earlier chunks are published, in file order, on the calling thread, so
+// customer and account numbers follow the file and the first of two rows with the same
+// username wins. At most a few chunks per pool thread are in memory at once. Publishing
+// applies verify()'s rules, journals every row without waiting, and waits for the journal
+// once per chunk.
+//
+// Rows that fail are written to the reject writer as: line number, tab, reason, tab, the
+// original line.
+final class BulkImporter {
+    static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+    private static final int FIELDS = 7;
+    private final BankingSystem bank;
+    private final char delimiter;
+    private final int chunkBytes;
+    private final ForkJoinPool pool;
+    public static final class Report {
+        private final long rows;
+        private final long imported;
+        private final long rejected;
+        private final long elapsedNanos;
+        Report(long rows, long imported, long rejected, long elapsedNanos) {
+            this.rows = rows;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.elapsedNanos = elapsedNanos;
+        }
+        public long getRows() {
+            return rows;
+        }
+        public long getImported() {
+            return imported;
+        }
+        public long getRejected() {
+            return rejected;
+        }
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+        @Override
+        public String toString() {
+            return String.format("Imported %d of %d rows (%d rejected) in %.1f ms, %.0f rows/s",
+                    imported, rows, rejected, elapsedNanos / 1e6, getRowsPerSecond());
+        }
+    }
+    public BulkImporter(BankingSystem bank, char delimiter) {
+        this(bank, delimiter, DEFAULT_CHUNK_BYTES, ForkJoinPool.commonPool());
+    }
+    BulkImporter(BankingSystem bank, char delimiter, int chunkBytes, ForkJoinPool pool) {
+        this.bank = bank;
+        this.delimiter = delimiter;
+        this.chunkBytes = chunkBytes;
+        this.pool = pool;
+    }
+    // Tab-delimited for .tsv files, comma-delimited otherwise
+    public static BulkImporter forFile(BankingSystem bank, Path file) {
+        return new BulkImporter(bank, file.toString().toLowerCase(Locale.ROOT).endsWith(".tsv") ? '\t' : ',');
+    }
+    public Report importFile(Path file, Path rejects) throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+             BufferedWriter out = Files.newBufferedWriter(rejects, StandardCharsets.UTF_8)) {
+            return importFrom(in, out);
+        }
+    }
+    public Report importFrom(InputStream in, Writer rejects) throws IOException {
+        long begin = System.nanoTime();
+        ArrayDeque < Future < Chunk > > inFlight = new ArrayDeque < > ();
+        int maxInFlight = pool.getParallelism() * 2 + 1;
+        Totals totals = new Totals();
+        byte[] buffer = new byte[chunkBytes];
+        int filled = 0;
+        int chunkIndex = 0;
+        boolean eof = false;
+        while (!eof || filled > 0) {
+            while (!eof && filled < buffer.length) {
+                int read = in.read(buffer, filled, buffer.length - filled);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    filled += read;
+                }
+            }
+            int cut = filled;
+            if (!eof) {
+                while (cut > 0 && buffer[cut - 1] != '\n') {
+                    cut--;
+                }
+                if (cut == 0) {
+                    // A single line longer than the buffer
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+            }
+            byte[] bytes = Arrays.copyOf(buffer, cut);
+            System.arraycopy(buffer, cut, buffer, 0, filled - cut);
+            filled -= cut;
+            boolean first = chunkIndex++ == 0;
+            if (inFlight.size() == maxInFlight) {
+                publish(await(inFlight.removeFirst()), rejects, totals);
+            }
+            inFlight.addLast(pool.submit(() -> parse(bytes, first)));
+        }
+        while (!inFlight.isEmpty()) {
+            publish(await(inFlight.removeFirst()), rejects, totals);
+        }
+        rejects.flush();
+        return new Report(totals.rows, totals.imported, totals.rejected, System.nanoTime() - begin);
+    }
+    private static Chunk await(Future < Chunk > future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Import failed", e.getCause());
+        }
+    }
+    private static final class Totals {
+        long lines;
+        long rows;
+        long imported;
+        long rejected;
+    }
+    // The parsed rows of one chunk. Row i starts on line lineOffsets[i] of the chunk and has
+    // either fields (FIELDS per row, from fields[i * FIELDS]) or a rejection.
+    private static final class Chunk {
+        final String text;
+        int rows;
+        int lines;
+        int[] lineOffsets = new int[256];
+        int[] starts = new int[256];
+        int[] ends = new int[256];
+        String[] fields = new String[256 * FIELDS];
+        String[] rejections = new String[256];
+        int[] accountTypes = new int[256];
+        long[] openingBalances = new long[256];
+        Chunk(String text) {
+            this.text = text;
+        }
+        int addRow(int line, int start, int end) {
+            if (rows == starts.length) {
+                int capacity = rows * 2;
+                lineOffsets = Arrays.copyOf(lineOffsets, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                fields = Arrays.copyOf(fields, capacity * FIELDS);
+                rejections = Arrays.copyOf(rejections, capacity);
+                accountTypes = Arrays.copyOf(accountTypes, capacity);
+                openingBalances = Arrays.copyOf(openingBalances, capacity);
+            }
+            lineOffsets[rows] = line;
+            starts[rows] = start;
+            ends[rows] = end;
+            return rows++;
+        }
+    }
+    // Runs on the pool: splits lines and fields and checks what needs no bank state
+    private Chunk parse(byte[] bytes, boolean firstChunk) {
+        Chunk chunk = new Chunk(new String(bytes, StandardCharsets.UTF_8));
+        String text = chunk.text;
+        String[] row = new String[FIELDS];
+        int line = 0;
+        for (int start = 0; start < text.length(); line++) {
+            int newline = text.indexOf('\n', start);
+            int next = newline < 0 ? text.length() : newline + 1;
+            int end = newline < 0 ? text.length() : newline;
+            if (end > start && text.charAt(end - 1) == '\r') {
+                end--;
+            }
+            if (end > start) {
+                String rejection = splitFields(text, start, end, row);
+                boolean header = firstChunk && line == 0 && rejection == null && row[3].equalsIgnoreCase("username");
+                if (!header) {
+                    int r = chunk.addRow(line, start, end);
+                    if (rejection == null) {
+                        rejection = checkFields(chunk, r, row);
+                    }
+                    chunk.rejections[r] = rejection;
+                    if (rejection == null) {
+                        System.arraycopy(row, 0, chunk.fields, r * FIELDS, FIELDS);
+                    }
+                }
+            }
+            start = next;
+        }
+        chunk.lines = line;
+        return chunk;
+    }
+    // Fills row with the line's fields; returns a rejection if the line cannot be split into exactly FIELDS
+    private String splitFields(String text, int start, int end, String[] row) {
+        int count = 0;
+        int i = start;
+        StringBuilder quoted = null;
+        for (;;) {
+            String field;
+            if (i < end && text.charAt(i) == '"') {
+                if (quoted == null) {
+                    quoted = new StringBuilder();
+                }
+                quoted.setLength(0);
+                i++;
+                for (;;) {
+                    if (i >= end) {
+                        return "Unterminated quote";
+                    }
+                    char c = text.charAt(i++);
+                    if (c == '"') {
+                        if (i < end && text.charAt(i) == '"') {
+                            quoted.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+                if (i < end && text.charAt(i) != delimiter) {
+                    return "Unexpected text after closing quote";
+                }
+                field = quoted.toString();
+            } else {
+                int next = text.indexOf(delimiter, i);
+                int fieldEnd = next < 0 || next > end ? end : next;
+                field = text.substring(i, fieldEnd);
+                i = fieldEnd;
+            }
+            if (count < FIELDS) {
+                row[count] = field;
+            }
+            count++;
+            if (i >= end) {
+                break;
+            }
+            i++; // the delimiter
+        }
+        return count == FIELDS ? null : "Expected " + FIELDS + " fields, found " + count;
+    }
+    private static String checkFields(Chunk chunk, int r, String[] row) {
+        String type = row[5].trim();
+        int accountType;
+        if (type.equals("1") || type.equalsIgnoreCase("SAVINGS")) {
+            accountType = 1;
+        } else if (type.equals("2") || type.equalsIgnoreCase("CURRENT")) {
+            accountType = 2;
+        } else {
+            return "Invalid account type";
+        }
+        long openingBalance;
+        try {
+            BigDecimal balance = new BigDecimal(row[6].trim());
+            if (balance.signum() < 0 || balance.scale() > 2) {
+                return "Invalid opening balance";
+            }
+            openingBalance = balance.movePointRight(2).longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            return "Invalid opening balance";
+        }
+        chunk.accountTypes[r] = accountType;
+        chunk.openingBalances[r] = openingBalance;
+        return null;
+    }
+    // Runs on the calling thread, one chunk at a time in file order
+    private void publish(Chunk chunk, Writer rejects, Totals totals) throws IOException {
+        for (int r = 0; r < chunk.rows; r++) {
+            String rejection = chunk.rejections[r];
+            int f = r * FIELDS;
+            if (rejection == null) {
+                rejection = bank.checkCustomer(chunk.fields[f], chunk.fields[f + 2], chunk.fields[f + 3], chunk.fields[f + 4]);
+            }
+            if (rejection != null) {
+                rejects.write(Long.toString(totals.lines + chunk.lineOffsets[r] + 1));
+                rejects.write('\t');
+                rejects.write(rejection);
+                rejects.write('\t');
+                rejects.write(chunk.text, chunk.starts[r], chunk.ends[r] - chunk.starts[r]);
+                rejects.write('\n');
+                totals.rejected++;
+                continue;
+            }
+            Customer customer = new Customer(chunk.fields[f], chunk.fields[f + 1], chunk.fields[f + 2], chunk.fields[f + 3], chunk.fields[f + 4]);
+            Account account = bank.verifyAccount(customer, chunk.accountTypes[r]);
+            customer.addAccount(account);
+            bank.addCustomer(customer, false);
+            if (chunk.openingBalances[r] > 0) {
+                account.applyDeposit(chunk.openingBalances[r]);
+            }
+            totals.imported++;
+        }
+        totals.rows += chunk.rows;
+        totals.lines += chunk.lines;
+        bank.awaitJournal();
+    }
+}
@@ -0,0 +1,323 @@
+package org.example;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+// Optional single-writer execution mode: deposit, withdraw, transfer and loan commands are
+// published into a preallocated ring and one business-logic thread executes them in order,
+// in batches, with results completing the callers' futures.
+//
+// The ring works like AsyncEventSink's: a producer claims a sequence number by
+// compare-and-set, fills in the slot's columns and marks the slot published with its
+// sequence. Unlike events, commands are never dropped; a producer that finds the ring full
+// waits for the consumer through the pipeline's WaitStrategy.
+//
+// The consumer takes every slot published in sequence, up to BATCH_LIMIT, executes them with
+// the silent apply* methods CommandProcessor uses, then waits for the journal once and
+// completes the batch, so the journal group-commits. A completed result is then durable in
+// PER_OP and BATCHED mode; in ASYNC mode it becomes durable within the journal's flush
+// interval, as it does for CommandProcessor.
+// With every writer going through the pipeline the account locks those methods take are
+// never contended. Futures complete on the consumer thread; callers that do more than read
+// the result should continue with the *Async methods of CompletableFuture.
+//
+// A failed command completes exceptionally with a CommandFailedException, carrying the same
+// error codes as CommandProcessor.
+final class CommandPipeline {
+    static final int DEFAULT_CAPACITY = 1 << 12;
+    static final int BATCH_LIMIT = 256;
+    private static final long PARK_NANOS = 10_000;
+    private static final long IDLE_PARK_NANOS = 200_000;
+    // Set in the claim sequence once the pipeline is closed; sequences never get near it
+    private static final long CLOSED = Long.MIN_VALUE;
+    // How a thread waits for the other side: a producer for a free slot, the consumer for work
+    enum WaitStrategy {
+        // lowest latency, but keeps a core busy while waiting
+        BUSY_SPIN,
+        YIELD,
+        PARK;
+        void idle() {
+            switch (this) {
+                case BUSY_SPIN:
+                    Thread.onSpinWait();
+                    return;
+                case YIELD:
+                    Thread.yield();
+                    return;
+                default:
+                    LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    }
+    public static final class CommandFailedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final CommandProcessor.Error error;
+        CommandFailedException(CommandProcessor.Error error, String reason) {
+            // Completes a future rather than propagating, so no stack trace is needed
+            super(reason == null ? error.name() : reason, null, false, false);
+            this.error = error;
+        }
+        public CommandProcessor.Error getError() {
+            return error;
+        }
+    }
+    private final BankingSystem bank;
+    private final WaitStrategy waitStrategy;
+    private final int mask;
+    private final byte[] ops;
+    private final int[] numbers1;
+    private final int[] numbers2;
+    private final long[] amounts;
+    private final String[] usernames;
+    private final CompletableFuture < Long > [] results;
+    // Outcome of each executed command until its batch completes
+    private final long[] values;
+    private final RuntimeException[] failures;
+    // Sequence number of the command in each slot, once it is fully written; -1 before that
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    // Set by a parked consumer, so producers only unpark it when it is actually waiting
+    private volatile boolean sleeping;
+    // Written by the consumer only
+    private volatile long commands;
+    private volatile long batches;
+    private final Thread consumer;
+    CommandPipeline(BankingSystem bank, WaitStrategy waitStrategy) {
+        this(bank, waitStrategy, DEFAULT_CAPACITY);
+    }
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    CommandPipeline(BankingSystem bank, WaitStrategy waitStrategy, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.bank = bank;
+        this.waitStrategy = waitStrategy;
+        this.mask = capacity - 1;
+        this.ops = new byte[capacity];
+        this.numbers1 = new int[capacity];
+        this.numbers2 = new int[capacity];
+        this.amounts = new long[capacity];
+        this.usernames = new String[capacity];
+        this.results = new CompletableFuture[capacity];
+        this.values = new long[capacity];
+        this.failures = new RuntimeException[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.consumer = new Thread(this::consumeLoop, "command-pipeline");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+    // Completes with the account's balance
+    public CompletableFuture < Long > deposit(int accountNumber, long amount) {
+        return publish(CommandProcessor.DEPOSIT, accountNumber, 0, amount, null);
+    }
+    // Completes with the account's balance
+    public CompletableFuture < Long > withdraw(int accountNumber, long amount) {
+        return publish(CommandProcessor.WITHDRAW, accountNumber, 0, amount, null);
+    }
+    // Completes with the balance of the source account
+    public CompletableFuture < Long > transfer(int fromAccountNumber, int toAccountNumber, long amount) {
+        return publish(CommandProcessor.TRANSFER, fromAccountNumber, toAccountNumber, amount, null);
+    }
+    // Completes with the new loan's id
+    public CompletableFuture < Long > applyForLoan(String username, long amount) {
+        return publish(CommandProcessor.LOAN, 0, 0, amount, username);
+    }
+    // Completes with the amount credited to the customer
+    public CompletableFuture < Long > approveLoan(int loanId) {
+        return publish(CommandProcessor.APPROVE, loanId, 0, 0, null);
+    }
+    // Completes with the remaining loan amount
+    public CompletableFuture < Long > payLoan(int loanId, long amount) {
+        return publish(CommandProcessor.PAY, loanId, 0, amount, null);
+    }
+    // Commands executed so far, and the batches they were executed in
+    public long getCommands() {
+        return commands;
+    }
+    public long getBatches() {
+        return batches;
+    }
+    // Executes every command published so far, then stops the consumer; later commands are refused
+    public void close() {
+        for (;;) {
+            long sequence = claimed.get();
+            if (sequence < 0 || claimed.compareAndSet(sequence, sequence | CLOSED)) {
+                break;
+            }
+        }
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    private CompletableFuture < Long > publish(byte op, int number1, int number2, long amount, String username) {
+        long sequence;
+        for (;;) {
+            sequence = claimed.get();
+            if (sequence < 0) {
+                throw new IllegalStateException("Command pipeline is closed");
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        while (sequence - consumed.get() > mask) {
+            waitStrategy.idle();
+        }
+        int slot = (int) (sequence & mask);
+        CompletableFuture < Long > result = new CompletableFuture < > ();
+        ops[slot] = op;
+        numbers1[slot] = number1;
+        numbers2[slot] = number2;
+        amounts[slot] = amount;
+        usernames[slot] = username;
+        results[slot] = result;
+        published.set(slot, sequence);
+        if (sleeping) {
+            LockSupport.unpark(consumer);
+        }
+        return result;
+    }
+    private void consumeLoop() {
+        long next = 0;
+        for (;;) {
+            long first = next;
+            while (next - first < BATCH_LIMIT && published.get((int) (next & mask)) == next) {
+                execute((int) (next & mask));
+                next++;
+            }
+            if (next > first) {
+                complete(first, next);
+                continue;
+            }
+            long sequence = claimed.get();
+            if (sequence < 0 && next == (sequence & ~CLOSED)) {
+                return;
+            }
+            if (waitStrategy != WaitStrategy.PARK) {
+                waitStrategy.idle();
+                continue;
+            }
+            sleeping = true;
+            // Checked again after announcing the sleep, so a command published meanwhile is not missed
+            if (published.get((int) (next & mask)) != next && claimed.get() >= 0) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            sleeping = false;
+        }
+    }
+    // Waits for the journal once for the batch, then completes its futures and frees its slots
+    private void complete(long first, long end) {
+        RuntimeException journalFailure = null;
+        try {
+            bank.awaitJournal();
+        } catch (RuntimeException e) {
+            journalFailure = e;
+        }
+        for (long sequence = first; sequence < end; sequence++) {
+            int slot = (int) (sequence & mask);
+            CompletableFuture < Long > result = results[slot];
+            RuntimeException failure = journalFailure != null ? journalFailure : failures[slot];
+            long value = values[slot];
+            results[slot] = null;
+            usernames[slot] = null;
+            failures[slot] = null;
+            if (failure == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(failure);
+            }
+        }
+        commands += end - first;
+        batches++;
+        consumed.lazySet(end);
+    }
+    private void execute(int slot) {
+        try {
+            values[slot] = execute(ops[slot], numbers1[slot], numbers2[slot], amounts[slot], usernames[slot]);
+        } catch (RuntimeException e) {
+            // Rejections, but also an overflow in one command, which must not stop the pipeline
+            failures[slot] = e;
+        }
+    }
+    // Same checks and effects as CommandProcessor.execute
+    private long execute(byte op, int number1, int number2, long amount, String username) {
+        switch (op) {
+            case CommandProcessor.DEPOSIT: {
+                Account account = account(number1);
+                if (!account.applyDeposit(amount)) {
+                    throw new CommandFailedException(CommandProcessor.Error.REJECTED, Event.DEPOSIT_NOT_POSITIVE.format(null, 0, 0));
+                }
+                return account.getBalanceMinor();
+            }
+            case CommandProcessor.WITHDRAW: {
+                Account account = account(number1);
+                return balanceOrFail(account.applyWithdrawal(amount), account);
+            }
+            case CommandProcessor.TRANSFER: {
+                Account from = account(number1);
+                Account to = account(number2);
+                return balanceOrFail(from.applyTransfer(to, amount), from);
+            }
+            case CommandProcessor.LOAN: {
+                Customer customer = bank.findCustomerByUsername(username);
+                if (customer == null) {
+                    throw new CommandFailedException(CommandProcessor.Error.NO_CUSTOMER, null);
+                }
+                if (amount <= 0 || customer.getAccounts().isEmpty()) {
+                    throw new CommandFailedException(CommandProcessor.Error.REJECTED, null);
+                }
+                return customer.applyForLoanMinor(amount).getLoanId();
+            }
+            case CommandProcessor.APPROVE: {
+                Loan loan = loan(number1);
+                if (!loan.applyApproval()) {
+                    throw new CommandFailedException(CommandProcessor.Error.REJECTED, null);
+                }
+                return loan.getInitialLoanAmountMinor();
+            }
+            case CommandProcessor.PAY: {
+                Loan loan = loan(number1);
+                if (!loan.isApproved() || loan.isClosed()) {
+                    throw new CommandFailedException(CommandProcessor.Error.REJECTED, null);
+                }
+                String rejection = loan.applyPayment(amount);
+                if (rejection != null) {
+                    throw new CommandFailedException(CommandProcessor.Error.REJECTED, rejection);
+                }
+                return loan.getLoanAmountMinor();
+            }
+            default:
+                throw new CommandFailedException(CommandProcessor.Error.MALFORMED, null);
+        }
+    }
+    private Account account(int accountNumber) {
+        Account account = bank.findAccountByNumber(accountNumber);
+        if (account == null) {
+            throw new CommandFailedException(CommandProcessor.Error.NO_ACCOUNT, null);
+        }
+        return account;
+    }
+    private Loan loan(int loanId) {
+        Loan loan = bank.findLoanByLoanNumber(loanId);
+        if (loan == null) {
+            throw new CommandFailedException(CommandProcessor.Error.NO_LOAN, null);
+        }
+        return loan;
+    }
+    private static long balanceOrFail(String rejection, Account account) {
+        if (rejection != null) {
+            throw new CommandFailedException(CommandProcessor.Error.REJECTED, rejection);
+        }
+        return account.getBalanceMinor();
+    }
+}
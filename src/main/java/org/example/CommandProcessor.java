@@ -0,0 +1,672 @@
+package org.example;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+// Headless batch mode: executes a script of commands against a BankingSystem without the
+// Scanner-driven menus and writes one compact result per command.
+//
+// Text scripts have one command per line; tokens are separated by spaces or tabs, a token
+// may be "double quoted" to contain spaces, and blank lines and lines starting with # are
+// skipped. Amounts are decimals with at most two fraction digits.
+//
+//   REGISTER <name> <address> <phone> <username> <password>   OK <customer number>
+//   OPEN <username> SAVINGS|CURRENT                            OK <account number>
+//   DEPOSIT <account> <amount>                                 OK <balance>
+//   WITHDRAW <account> <amount>                                OK <balance>
+//   TRANSFER <from account> <to account> <amount>              OK <balance of from account>
+//   BALANCE <account>                                          OK <balance>
+//   INTEREST <account>                                         OK <interest credited>
+//   LOAN <username> <amount>                                   OK <loan id>
+//   APPROVE <loan id>                                          OK
+//   PAY <loan id> <amount>                                     OK <remaining loan amount>
+//   POST_INTEREST <run id>                                     OK <accounts credited>
+//
+// A failed command writes ERR and a code: NO_CUSTOMER, NO_ACCOUNT, NO_LOAN, REJECTED (a
+// business rule said no) or MALFORMED (the line could not be parsed). Every command yields
+// exactly one result line, in order.
+//
+// A script starting with the four bytes BKCM is binary: each command is an opcode byte
+// followed by its arguments as big-endian ints, amounts as longs in minor units and strings
+// as an int byte length plus UTF-8. Results are then a status byte (0 for OK, otherwise the
+// error ordinal plus one) and a long value per command.
+//
+// Commands journal like their menu counterparts, but never wait for the journal one by
+// one and never print: results are buffered, and the journal is awaited once before each
+// buffer of results is written, so the journal group-commits. A reported result is then
+// durable in PER_OP and BATCHED mode; in ASYNC mode it becomes durable within the journal's
+// flush interval, as it does for menu operations.
+final class CommandProcessor {
+    static final int BINARY_MAGIC = 0x424b434d; // "BKCM"
+    static final byte REGISTER = 1;
+    static final byte OPEN = 2;
+    static final byte DEPOSIT = 3;
+    static final byte WITHDRAW = 4;
+    static final byte TRANSFER = 5;
+    static final byte BALANCE = 6;
+    static final byte INTEREST = 7;
+    static final byte LOAN = 8;
+    static final byte APPROVE = 9;
+    static final byte PAY = 10;
+    static final byte POST_INTEREST = 11;
+    private static final String[] KEYWORDS = {
+            null, "REGISTER", "OPEN", "DEPOSIT", "WITHDRAW", "TRANSFER", "BALANCE", "INTEREST", "LOAN", "APPROVE", "PAY", "POST_INTEREST"
+    };
+    enum Error {
+        NO_CUSTOMER, NO_ACCOUNT, NO_LOAN, REJECTED, MALFORMED
+    }
+    // What kind of value an OK result carries, so text output knows how to format it
+    private static final int NO_VALUE = 0;
+    private static final int NUMBER = 1;
+    private static final int MONEY = 2;
+    private static final int BUFFER_BYTES = 1 << 16;
+    private final BankingSystem bank;
+    private final InputStream in;
+    private final OutputStream out;
+    private final byte[] input = new byte[BUFFER_BYTES];
+    private int inputPosition;
+    private int inputLimit;
+    private final byte[] output = new byte[BUFFER_BYTES];
+    private int outputPosition;
+    private boolean binary;
+    // Arguments of the command being executed, filled in by either parser
+    private int number1;
+    private int number2;
+    private long amount;
+    private final String[] strings = new String[5];
+    private final byte[] token = new byte[256];
+    private int tokenLength;
+    // Result of the command being executed
+    private Error error;
+    private int valueKind;
+    private long value;
+    private long commands;
+    private long failures;
+    CommandProcessor(BankingSystem bank, InputStream in, OutputStream out) {
+        this.bank = bank;
+        this.in = in;
+        this.out = out;
+    }
+    // Runs the script at path, or standard input for "-", writing results to standard output
+    // and a one-line summary to standard error
+    static void runScript(BankingSystem bank, String path) throws IOException {
+        InputStream in = path.equals("-") ? System.in : Files.newInputStream(Paths.get(path));
+        OutputStream out = new FileOutputStream(FileDescriptor.out);
+        // Results are the only output; domain events would interleave with them
+        Events.setSink(EventSink.SILENT);
+        long begin = System.nanoTime();
+        CommandProcessor processor = new CommandProcessor(bank, in, out);
+        try {
+            processor.run();
+        } finally {
+            in.close();
+        }
+        long elapsed = System.nanoTime() - begin;
+        Journal journal = bank.getJournal();
+        if (journal != null) {
+            journal.close();
+        }
+        System.err.printf("%d commands, %d failed, in %.1f ms (%.0f commands/s)%n", processor.getCommands(),
+                processor.getFailures(), elapsed / 1e6, processor.getCommands() * 1e9 / Math.max(1, elapsed));
+    }
+    public long getCommands() {
+        return commands;
+    }
+    public long getFailures() {
+        return failures;
+    }
+    // Executes every command in the input, writes all results and returns the number of commands
+    public long run() throws IOException {
+        binary = startsWithMagic();
+        for (;;) {
+            byte op = binary ? readBinaryCommand() : readTextCommand();
+            if (op < 0) {
+                break;
+            }
+            if (error == null) {
+                execute(op);
+            }
+            writeResult();
+        }
+        flush();
+        return commands;
+    }
+    private boolean startsWithMagic() throws IOException {
+        while (inputLimit - inputPosition < 4) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        int magic = (input[inputPosition] & 0xff) << 24 | (input[inputPosition + 1] & 0xff) << 16
+                | (input[inputPosition + 2] & 0xff) << 8 | (input[inputPosition + 3] & 0xff);
+        if (magic != BINARY_MAGIC) {
+            return false;
+        }
+        inputPosition += 4;
+        return true;
+    }
+    // Appends more input after the unread bytes; false at end of input
+    private boolean fill() throws IOException {
+        if (inputPosition > 0) {
+            System.arraycopy(input, inputPosition, input, 0, inputLimit - inputPosition);
+            inputLimit -= inputPosition;
+            inputPosition = 0;
+        }
+        if (inputLimit == input.length) {
+            throw new IOException("Command longer than " + input.length + " bytes");
+        }
+        int read = in.read(input, inputLimit, input.length - inputLimit);
+        if (read <= 0) {
+            return false;
+        }
+        inputLimit += read;
+        return true;
+    }
+    // -1 at end of input, else the next byte, unsigned, without consuming it
+    private int peek() throws IOException {
+        if (inputPosition == inputLimit && !fill()) {
+            return -1;
+        }
+        return input[inputPosition] & 0xff;
+    }
+    private void execute(byte op) {
+        switch (op) {
+            case REGISTER: {
+                String rejection = bank.checkCustomer(strings[0], strings[2], strings[3], strings[4]);
+                if (rejection != null) {
+                    error = Error.REJECTED;
+                    return;
+                }
+                Customer customer = new Customer(strings[0], strings[1], strings[2], strings[3], strings[4]);
+                bank.addCustomer(customer, false);
+                ok(NUMBER, customer.getCustomerNumber());
+                return;
+            }
+            case OPEN: {
+                Customer customer = bank.findCustomerByUsername(strings[0]);
+                if (customer == null) {
+                    error = Error.NO_CUSTOMER;
+                    return;
+                }
+                Account account = bank.verifyAccount(customer, number1);
+                if (account == null) {
+                    error = Error.MALFORMED;
+                    return;
+                }
+                customer.addAccount(account);
+                ok(NUMBER, account.getAccountNumber());
+                return;
+            }
+            case DEPOSIT: {
+                Account account = account(number1);
+                if (account == null) {
+                    return;
+                }
+                if (account.applyDeposit(amount)) {
+                    ok(MONEY, account.getBalanceMinor());
+                } else {
+                    error = Error.REJECTED;
+                }
+                return;
+            }
+            case WITHDRAW: {
+                Account account = account(number1);
+                if (account != null) {
+                    reply(account.applyWithdrawal(amount), account);
+                }
+                return;
+            }
+            case TRANSFER: {
+                Account from = account(number1);
+                Account to = from == null ? null : account(number2);
+                if (to != null) {
+                    reply(from.applyTransfer(to, amount), from);
+                }
+                return;
+            }
+            case BALANCE: {
+                Account account = account(number1);
+                if (account != null) {
+                    ok(MONEY, account.getBalanceMinor());
+                }
+                return;
+            }
+            case INTEREST: {
+                Account account = account(number1);
+                if (account == null) {
+                    return;
+                }
+                if (!(account instanceof SavingsAccount)) {
+                    error = Error.REJECTED;
+                    return;
+                }
+                ok(MONEY, Math.max(0, account.applyInterestCredit(SavingsAccount.INTEREST_RATE)));
+                return;
+            }
+            case LOAN: {
+                Customer customer = bank.findCustomerByUsername(strings[0]);
+                if (customer == null) {
+                    error = Error.NO_CUSTOMER;
+                    return;
+                }
+                if (amount <= 0 || customer.getAccounts().isEmpty()) {
+                    error = Error.REJECTED;
+                    return;
+                }
+                ok(NUMBER, customer.applyForLoanMinor(amount).getLoanId());
+                return;
+            }
+            case APPROVE: {
+                Loan loan = bank.findLoanByLoanNumber(number1);
+                if (loan == null) {
+                    error = Error.NO_LOAN;
+                    return;
+                }
+                // Fails for a loan already approved or closed, however many processors race for it
+                if (!loan.applyApproval()) {
+                    error = Error.REJECTED;
+                    return;
+                }
+                ok(NO_VALUE, 0);
+                return;
+            }
+            case PAY: {
+                Loan loan = bank.findLoanByLoanNumber(number1);
+                if (loan == null) {
+                    error = Error.NO_LOAN;
+                    return;
+                }
+                if (!loan.isApproved() || loan.isClosed() || loan.applyPayment(amount) != null) {
+                    error = Error.REJECTED;
+                    return;
+                }
+                ok(MONEY, loan.getLoanAmountMinor());
+                return;
+            }
+            case POST_INTEREST: {
+                if (number1 == Account.NO_INTEREST_RUN) {
+                    error = Error.MALFORMED;
+                    return;
+                }
+                try {
+                    ok(NUMBER, new InterestPostingJob(bank, number1, null).run().getAccountsPosted());
+                } catch (IOException e) {
+                    // Only the checkpoint file does I/O, and there is none
+                    throw new IllegalStateException(e);
+                } catch (InterestPostingJob.RunOutOfOrderException e) {
+                    error = Error.REJECTED;
+                }
+                return;
+            }
+            default:
+                error = Error.MALFORMED;
+        }
+    }
+    private Account account(int accountNumber) {
+        Account account = bank.findAccountByNumber(accountNumber);
+        if (account == null) {
+            error = Error.NO_ACCOUNT;
+        }
+        return account;
+    }
+    private void reply(String rejection, Account account) {
+        if (rejection != null) {
+            error = Error.REJECTED;
+        } else {
+            ok(MONEY, account.getBalanceMinor());
+        }
+    }
+    private void ok(int kind, long result) {
+        valueKind = kind;
+        value = result;
+    }
+    // Text parsing
+
+    // Parses the next command into the argument fields; returns its opcode, or -1 at end of input.
+    // A line that cannot be parsed returns 0 with error set to MALFORMED.
+    private byte readTextCommand() throws IOException {
+        error = null;
+        for (;;) {
+            skipBlanks();
+            int b = peek();
+            if (b < 0) {
+                return -1;
+            }
+            if (b == '\n' || b == '\r') {
+                inputPosition++;
+            } else if (b == '#') {
+                skipLine();
+            } else {
+                break;
+            }
+        }
+        byte op = 0;
+        try {
+            op = keyword();
+            switch (op) {
+                case REGISTER:
+                    for (int i = 0; i < 5; i++) {
+                        strings[i] = nextString();
+                    }
+                    break;
+                case OPEN:
+                    strings[0] = nextString();
+                    String kind = nextString().toUpperCase(Locale.ROOT);
+                    number1 = kind.equals("SAVINGS") ? 1 : kind.equals("CURRENT") ? 2 : 0;
+                    break;
+                case DEPOSIT:
+                case WITHDRAW:
+                    number1 = nextInt();
+                    amount = nextAmount();
+                    break;
+                case TRANSFER:
+                    number1 = nextInt();
+                    number2 = nextInt();
+                    amount = nextAmount();
+                    break;
+                case BALANCE:
+                case INTEREST:
+                case APPROVE:
+                case POST_INTEREST:
+                    number1 = nextInt();
+                    break;
+                case LOAN:
+                    strings[0] = nextString();
+                    amount = nextAmount();
+                    break;
+                case PAY:
+                    number1 = nextInt();
+                    amount = nextAmount();
+                    break;
+                default:
+                    throw new MalformedCommandException();
+            }
+            skipBlanks();
+            int b = peek();
+            if (b >= 0 && b != '\n' && b != '\r') {
+                throw new MalformedCommandException();
+            }
+        } catch (MalformedCommandException e) {
+            error = Error.MALFORMED;
+            skipLine();
+        }
+        return op;
+    }
+    private void skipBlanks() throws IOException {
+        for (int b = peek(); b == ' ' || b == '\t'; b = peek()) {
+            inputPosition++;
+        }
+    }
+    private void skipLine() throws IOException {
+        for (int b = peek(); b >= 0 && b != '\n'; b = peek()) {
+            inputPosition++;
+        }
+    }
+    // Reads the next token, unquoted, into token; a token is never empty
+    private void nextToken() throws IOException, MalformedCommandException {
+        skipBlanks();
+        tokenLength = 0;
+        int b = peek();
+        if (b == '"') {
+            inputPosition++;
+            for (b = peek(); b != '"'; b = peek()) {
+                if (b < 0 || b == '\n') {
+                    throw new MalformedCommandException();
+                }
+                appendToken(b);
+            }
+            inputPosition++;
+            return;
+        }
+        for (; b >= 0 && b != ' ' && b != '\t' && b != '\n' && b != '\r'; b = peek()) {
+            appendToken(b);
+        }
+        if (tokenLength == 0) {
+            throw new MalformedCommandException();
+        }
+    }
+    private void appendToken(int b) throws MalformedCommandException {
+        if (tokenLength == token.length) {
+            throw new MalformedCommandException();
+        }
+        token[tokenLength++] = (byte) b;
+        inputPosition++;
+    }
+    private byte keyword() throws IOException, MalformedCommandException {
+        nextToken();
+        for (byte op = 1; op < KEYWORDS.length; op++) {
+            String keyword = KEYWORDS[op];
+            if (keyword.length() != tokenLength) {
+                continue;
+            }
+            int i = 0;
+            // Clearing bit 5 upper-cases ASCII letters and leaves '_' alone
+            while (i < tokenLength && (token[i] & ~0x20) == keyword.charAt(i)) {
+                i++;
+            }
+            if (i == tokenLength) {
+                return op;
+            }
+        }
+        throw new MalformedCommandException();
+    }
+    private String nextString() throws IOException, MalformedCommandException {
+        nextToken();
+        return new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+    }
+    private int nextInt() throws IOException, MalformedCommandException {
+        nextToken();
+        int i = token[0] == '-' ? 1 : 0;
+        if (i == tokenLength || tokenLength - i > 10) {
+            throw new MalformedCommandException();
+        }
+        long result = 0;
+        for (; i < tokenLength; i++) {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new MalformedCommandException();
+            }
+            result = result * 10 + digit;
+        }
+        result = token[0] == '-' ? -result : result;
+        if (result != (int) result) {
+            throw new MalformedCommandException();
+        }
+        return (int) result;
+    }
+    // Parses an amount with at most two fraction digits straight into minor units
+    private long nextAmount() throws IOException, MalformedCommandException {
+        nextToken();
+        int i = token[0] == '-' ? 1 : 0;
+        long units = 0;
+        int digits = 0;
+        for (; i < tokenLength && token[i] != '.'; i++, digits++) {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9 || digits == 15) {
+                throw new MalformedCommandException();
+            }
+            units = units * 10 + digit;
+        }
+        long minor = units * Money.MINOR_PER_UNIT;
+        if (i < tokenLength) {
+            int fractionDigits = tokenLength - i - 1;
+            if (fractionDigits < 1 || fractionDigits > 2) {
+                throw new MalformedCommandException();
+            }
+            long scale = Money.MINOR_PER_UNIT;
+            for (i++; i < tokenLength; i++) {
+                int digit = token[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new MalformedCommandException();
+                }
+                scale /= 10;
+                minor += digit * scale;
+            }
+        } else if (digits == 0) {
+            throw new MalformedCommandException();
+        }
+        return token[0] == '-' ? -minor : minor;
+    }
+    private static final class MalformedCommandException extends Exception {
+        private static final long serialVersionUID = 1L;
+        MalformedCommandException() {
+            // Thrown only for bad input and caught right away, so no stack trace is needed
+            super(null, null, false, false);
+        }
+    }
+    // Binary parsing
+
+    private byte readBinaryCommand() throws IOException {
+        error = null;
+        int b = peek();
+        if (b < 0) {
+            return -1;
+        }
+        byte op = (byte) b;
+        inputPosition++;
+        switch (op) {
+            case REGISTER:
+                for (int i = 0; i < 5; i++) {
+                    strings[i] = readString();
+                }
+                break;
+            case OPEN:
+                strings[0] = readString();
+                number1 = readInt();
+                break;
+            case DEPOSIT:
+            case WITHDRAW:
+            case PAY:
+                number1 = readInt();
+                amount = readLong();
+                break;
+            case TRANSFER:
+                number1 = readInt();
+                number2 = readInt();
+                amount = readLong();
+                break;
+            case BALANCE:
+            case INTEREST:
+            case APPROVE:
+            case POST_INTEREST:
+                number1 = readInt();
+                break;
+            case LOAN:
+                strings[0] = readString();
+                amount = readLong();
+                break;
+            default:
+                // Without a known length the rest of the input cannot be framed
+                throw new IOException("Unknown command opcode " + op);
+        }
+        return op;
+    }
+    private void require(int bytes) throws IOException {
+        while (inputLimit - inputPosition < bytes) {
+            if (!fill()) {
+                throw new IOException("Truncated binary command");
+            }
+        }
+    }
+    private int readInt() throws IOException {
+        require(4);
+        int p = inputPosition;
+        inputPosition += 4;
+        return (input[p] & 0xff) << 24 | (input[p + 1] & 0xff) << 16 | (input[p + 2] & 0xff) << 8 | (input[p + 3] & 0xff);
+    }
+    private long readLong() throws IOException {
+        return (long) readInt() << 32 | (readInt() & 0xffffffffL);
+    }
+    private String readString() throws IOException {
+        int length = readInt();
+        if (length < 0 || length > input.length / 2) {
+            throw new IOException("Bad string length " + length);
+        }
+        require(length);
+        String result = new String(input, inputPosition, length, StandardCharsets.UTF_8);
+        inputPosition += length;
+        return result;
+    }
+    // Output
+
+    private void writeResult() throws IOException {
+        commands++;
+        if (error != null) {
+            failures++;
+        }
+        if (output.length - outputPosition < 64) {
+            flushBuffer();
+        }
+        if (binary) {
+            output[outputPosition++] = (byte) (error == null ? 0 : error.ordinal() + 1);
+            long v = error == null ? value : 0;
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                output[outputPosition++] = (byte) (v >>> shift);
+            }
+        } else if (error != null) {
+            writeAscii("ERR ");
+            writeAscii(error.name());
+            output[outputPosition++] = '\n';
+        } else {
+            writeAscii("OK");
+            if (valueKind != NO_VALUE) {
+                output[outputPosition++] = ' ';
+                if (valueKind == MONEY) {
+                    writeMoney(value);
+                } else {
+                    writeLong(value);
+                }
+            }
+            output[outputPosition++] = '\n';
+        }
+    }
+    private void writeAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            output[outputPosition++] = (byte) text.charAt(i);
+        }
+    }
+    private void writeLong(long v) {
+        if (v < 0) {
+            output[outputPosition++] = '-';
+        } else {
+            v = -v;
+        }
+        // Digits are produced from the negated value so Long.MIN_VALUE needs no special case
+        int start = outputPosition;
+        do {
+            output[outputPosition++] = (byte) ('0' - v % 10);
+            v /= 10;
+        } while (v != 0);
+        for (int i = start, j = outputPosition - 1; i < j; i++, j--) {
+            byte t = output[i];
+            output[i] = output[j];
+            output[j] = t;
+        }
+    }
+    private void writeMoney(long minor) {
+        if (minor < 0) {
+            output[outputPosition++] = '-';
+        }
+        long units = Math.abs(minor / Money.MINOR_PER_UNIT);
+        int cents = (int) Math.abs(minor % Money.MINOR_PER_UNIT);
+        writeLong(units);
+        output[outputPosition++] = '.';
+        output[outputPosition++] = (byte) ('0' + cents / 10);
+        output[outputPosition++] = (byte) ('0' + cents % 10);
+    }
+    private void flushBuffer() throws IOException {
+        // Results are reported once the changes they describe are as durable as the journal's mode makes them
+        bank.awaitJournal();
+        out.write(output, 0, outputPosition);
+        outputPosition = 0;
+    }
+    private void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+}
@@ -0,0 +1,141 @@
+package org.example;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Consumer;
+// Open-addressing map from primitive int keys to values, safe for concurrent use.
+// Lookups never lock and never box the key. Inserts are serialized on the map.
+// Entries are never removed, so once a reader sees a key it also sees its value.
+class ConcurrentIntMap < V > {
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final int FREE = 0; // key 0 marks an empty slot and is stored separately
+    private static final int MIN_CAPACITY = 16;
+    private static final class Table {
+        final int[] keys;
+        final Object[] values;
+        final int mask;
+        Table(int capacity) {
+            this.keys = new int[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+        }
+    }
+    private volatile Table table;
+    private volatile V zeroValue;
+    private volatile int size;
+    public ConcurrentIntMap() {
+        this(MIN_CAPACITY);
+    }
+    public ConcurrentIntMap(int expectedSize) {
+        this.table = new Table(capacityFor(expectedSize));
+    }
+    private static int capacityFor(int expectedSize) {
+        // Keep the load factor at or below one half so probe chains stay short
+        long wanted = Math.max(MIN_CAPACITY, (long) expectedSize * 2);
+        if (wanted > (1 << 30)) {
+            throw new IllegalArgumentException("Map too large: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+    private static int slot(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == FREE) {
+            return zeroValue;
+        }
+        Table t = table;
+        int mask = t.mask;
+        for (int i = slot(key, mask);; i = (i + 1) & mask) {
+            int k = (int) KEYS.getAcquire(t.keys, i);
+            if (k == key) {
+                return (V) VALUES.getAcquire(t.values, i);
+            }
+            if (k == FREE) {
+                return null;
+            }
+        }
+    }
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+    public int size() {
+        return size;
+    }
+    public synchronized V put(int key, V value) {
+        return insert(key, value, false);
+    }
+    public synchronized V putIfAbsent(int key, V value) {
+        return insert(key, value, true);
+    }
+    @SuppressWarnings("unchecked")
+    private V insert(int key, V value, boolean onlyIfAbsent) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        if (key == FREE) {
+            V previous = zeroValue;
+            if (previous == null) {
+                size++;
+            }
+            if (previous == null || !onlyIfAbsent) {
+                zeroValue = value;
+            }
+            return previous;
+        }
+        Table t = table;
+        int mask = t.mask;
+        for (int i = slot(key, mask);; i = (i + 1) & mask) {
+            int k = t.keys[i];
+            if (k == key) {
+                V previous = (V) t.values[i];
+                if (!onlyIfAbsent) {
+                    VALUES.setRelease(t.values, i, value);
+                }
+                return previous;
+            }
+            if (k == FREE) {
+                // Publish the value before the key so lock-free readers never see a half-written slot
+                VALUES.setRelease(t.values, i, value);
+                KEYS.setRelease(t.keys, i, key);
+                size++;
+                if ((size << 1) > t.keys.length) {
+                    resize(t);
+                }
+                return null;
+            }
+        }
+    }
+    private void resize(Table old) {
+        Table grown = new Table(old.keys.length << 1);
+        int mask = grown.mask;
+        for (int j = 0; j < old.keys.length; j++) {
+            int key = old.keys[j];
+            if (key == FREE) {
+                continue;
+            }
+            int i = slot(key, mask);
+            while (grown.keys[i] != FREE) {
+                i = (i + 1) & mask;
+            }
+            grown.keys[i] = key;
+            grown.values[i] = old.values[j];
+        }
+        table = grown;
+    }
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer < ? super V > action) {
+        V zero = zeroValue;
+        if (zero != null) {
+            action.accept(zero);
+        }
+        Table t = table;
+        for (int i = 0; i < t.keys.length; i++) {
+            if ((int) KEYS.getAcquire(t.keys, i) != FREE) {
+                action.accept((V) VALUES.getAcquire(t.values, i));
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.example;
+// Prints each event on the publishing thread to whatever System.out is at that moment
+final class ConsoleEventSink implements EventSink {
+    @Override
+    public void publish(Event event, String detail, long first, long second) {
+        System.out.println(event.format(detail, first, second));
+    }
+}
@@ -0,0 +1,54 @@
+package org.example;
+// Messages the domain classes report to the customer. Each is published to the EventSink with
+// an optional detail text and two numbers, and only turned into text by the sink, so a sink
+// that formats on another thread, or not at all, keeps that work off the caller's thread.
+enum Event {
+    DEPOSIT_NOT_POSITIVE,
+    // detail: the reason, e.g. from Account.checkWithdrawal
+    REJECTED,
+    // first: the interest in minor units
+    INTEREST_APPLIED,
+    NO_INTEREST_ON_CURRENT_ACCOUNT,
+    // first: the amount in minor units, second: the loan id
+    LOAN_APPLIED,
+    LOAN_NOT_FOUND,
+    LOAN_NOT_APPROVED,
+    PAYOFF_EXCEEDED,
+    LOAN_PAID_OFF,
+    PAYMENT_NOT_ENOUGH_BALANCE,
+    LOAN_CLOSED,
+    // first: the payment, second: the remaining loan, both in minor units
+    PAYMENT_RECEIVED;
+    // The text the console showed for this event, one or more lines without a final line break
+    String format(String detail, long first, long second) {
+        switch (this) {
+            case DEPOSIT_NOT_POSITIVE:
+                return "Amount to deposit should be positive.";
+            case REJECTED:
+                return detail;
+            case INTEREST_APPLIED:
+                return "Interest applied: " + Money.toDouble(first);
+            case NO_INTEREST_ON_CURRENT_ACCOUNT:
+                return "No interest on current accounts";
+            case LOAN_APPLIED:
+                return "Loan application for " + Money.toDouble(first) + " submitted." + System.lineSeparator()
+                        + "You loan unique id is: " + second;
+            case LOAN_NOT_FOUND:
+                return "Loan not found.";
+            case LOAN_NOT_APPROVED:
+                return "Loan is not yet approved!";
+            case PAYOFF_EXCEEDED:
+                return "Payoff amount exceeded!";
+            case LOAN_PAID_OFF:
+                return "Loan paid off!";
+            case PAYMENT_NOT_ENOUGH_BALANCE:
+                return Loan.NOT_ENOUGH_BALANCE + System.lineSeparator() + "Please try a lower amount";
+            case LOAN_CLOSED:
+                return "You have completely paid off the loan.";
+            case PAYMENT_RECEIVED:
+                return "Payment of " + Money.toDouble(first) + " received. Remaining Loan balance: " + Money.toDouble(second);
+            default:
+                throw new IllegalStateException(name());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example;
+// Where domain classes send Events instead of printing them. publish() runs on the thread
+// doing the money movement, often while it holds account locks, so it must never block.
+interface EventSink {
+    // Drops every event: the domain operations then do no I/O at all
+    EventSink SILENT = (event, detail, first, second) -> {
+    };
+    void publish(Event event, String detail, long first, long second);
+    // Returns once every event published before the call has been written
+    default void flush() {
+    }
+}
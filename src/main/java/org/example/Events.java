@@ -0,0 +1,41 @@
+package org.example;
+import java.util.Locale;
+// The process-wide EventSink. Selected with -Dbanking.events=console|async|silent:
+// console (the default) prints each event on the publishing thread, so messages stay in
+// order with the menu prompts around them; async hands them to an AsyncEventSink; silent
+// drops them.
+final class Events {
+    private static volatile EventSink sink = fromName(System.getProperty("banking.events", "console"));
+    private Events() {
+    }
+    static EventSink fromName(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "console":
+                return new ConsoleEventSink();
+            case "async":
+                return new AsyncEventSink(System.out, AsyncEventSink.DEFAULT_CAPACITY);
+            case "silent":
+                return EventSink.SILENT;
+            default:
+                throw new IllegalArgumentException("Unknown event sink " + name);
+        }
+    }
+    static EventSink getSink() {
+        return sink;
+    }
+    // Returns the previous sink, which the caller may flush or close
+    static EventSink setSink(EventSink newSink) {
+        EventSink previous = sink;
+        sink = newSink;
+        return previous;
+    }
+    static void publish(Event event) {
+        sink.publish(event, null, 0, 0);
+    }
+    static void publish(Event event, String detail) {
+        sink.publish(event, detail, 0, 0);
+    }
+    static void publish(Event event, long first, long second) {
+        sink.publish(event, null, first, second);
+    }
+}
@@ -0,0 +1,98 @@
+package org.example;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+// Most-recent-first reader over one account's history, a page at a time.
+// The cursor fixes the history length when it is created: deposits and transfers appended
+// afterwards are not visible to it, so paging through a busy account never skips or repeats
+// an entry. Only the entries of the current page are turned into Transaction objects.
+//
+// A resume token records the account, the fixed length and the read position, so a later
+// cursor (from Account.history(token)) continues exactly where this one stopped.
+final class HistoryCursor {
+    static final int DEFAULT_PAGE_SIZE = 20;
+    private final TransactionLog log;
+    private final int accountNumber;
+    // Entries below end are visible; the next page starts just below remaining
+    private final int end;
+    private int remaining;
+    HistoryCursor(TransactionLog log, int accountNumber, int end, int remaining) {
+        this.log = log;
+        this.accountNumber = accountNumber;
+        this.end = end;
+        this.remaining = remaining;
+    }
+    static HistoryCursor resume(TransactionLog log, int accountNumber, String token) {
+        String[] parts = token == null ? new String[0] : token.split(":");
+        int account;
+        int end;
+        int remaining;
+        try {
+            if (parts.length != 3) {
+                throw new NumberFormatException(token);
+            }
+            account = Integer.parseInt(parts[0]);
+            end = Integer.parseInt(parts[1]);
+            remaining = Integer.parseInt(parts[2]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed resume token: " + token);
+        }
+        if (account != accountNumber) {
+            throw new IllegalArgumentException("Resume token belongs to account " + account);
+        }
+        if (remaining < 0 || remaining > end || end > log.size()) {
+            throw new IllegalArgumentException("Resume token out of range: " + token);
+        }
+        return new HistoryCursor(log, accountNumber, end, remaining);
+    }
+    public int getAccountNumber() {
+        return accountNumber;
+    }
+    // Length of the history this cursor reads
+    public int size() {
+        return end;
+    }
+    public boolean hasMore() {
+        return remaining > 0;
+    }
+    public String getResumeToken() {
+        return accountNumber + ":" + end + ":" + remaining;
+    }
+    // The next pageSize entries, newest first; empty once the cursor is exhausted
+    public Page next(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        int low = Math.max(0, remaining - pageSize);
+        List < Transaction > entries = new ArrayList < > (remaining - low);
+        for (int i = remaining - 1; i >= low; i--) {
+            entries.add(log.get(i));
+        }
+        remaining = low;
+        return new Page(Collections.unmodifiableList(entries), remaining > 0 ? getResumeToken() : null);
+    }
+    // Everything the cursor has not returned yet, newest first, without copying it; consuming the
+    // stream does not move the cursor
+    public Stream < Transaction > stream() {
+        return log.stream(0, remaining, true);
+    }
+    static final class Page {
+        private final List < Transaction > transactions;
+        private final String resumeToken;
+        Page(List < Transaction > transactions, String resumeToken) {
+            this.transactions = transactions;
+            this.resumeToken = resumeToken;
+        }
+        public List < Transaction > getTransactions() {
+            return transactions;
+        }
+        public boolean hasMore() {
+            return resumeToken != null;
+        }
+        // Token for the page after this one; null on the last page
+        public String getResumeToken() {
+            return resumeToken;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.example;
+// Source of unique ids for one kind of entity (accounts, loans, employees). Allocators count
+// in 64 bits, but entity ids are still ints: the entity classes narrow every id with
+// Math.toIntExact, so ids are capped at Integer.MAX_VALUE and running past it fails instead
+// of wrapping around to ids already in use. The account index, the journal, snapshots and the
+// binary command protocol all hold ids as 32-bit ints.
+interface IdAllocator {
+    // An id never handed out before
+    long next();
+    // Every id handed out so far is below this; ids below it may never be handed out
+    long peekNext();
+    // Ids below next are never handed out from now on, e.g. because recovery restored them
+    void advanceTo(long next);
+}
@@ -0,0 +1,167 @@
+package org.example;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+// Outcomes of recent requests by client request id, so a retried request is answered with the
+// first call's outcome instead of being executed again.
+//
+// The cache is bounded and set-associative: a request id hashes to one set of WAYS entries and
+// can only live there. An entry is a request id, an expiry time and an outcome reference, kept
+// in three flat arrays (about 20 bytes per entry, nothing allocated per request). Entries
+// expire ttlMillis after their outcome is recorded; a new id takes a free or expired entry of
+// its set, or else evicts the entry expiring soonest. Capacity should therefore cover the ids
+// issued within one ttl, or an id can be forgotten before its retries stop.
+//
+// Sets are guarded by striped monitors. begin() claims an id for its caller by entering it
+// as pending; a concurrent call with the same id waits until the first one finishes, so an
+// operation runs at most once however its retries race.
+final class IdempotencyCache {
+    static final int DEFAULT_CAPACITY = 1 << 16;
+    static final long DEFAULT_TTL_MILLIS = 60 * 60 * 1000;
+    static final int WAYS = 8;
+    private static final int STRIPES = 64;
+    // Expiry of a pending entry, so it is never evicted while its operation runs
+    private static final long PENDING = Long.MAX_VALUE;
+    // Outcome of an operation that went through; a rejected one records its reason instead
+    static final Object DONE = new Object();
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final int setMask;
+    private final long[] keys;
+    // When each entry expires; 0 for an entry never used
+    private final long[] expiries;
+    // null while the entry is pending
+    private final Object[] outcomes;
+    private final Object[] stripes;
+    private final LongAdder repeats = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    IdempotencyCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_TTL_MILLIS);
+    }
+    IdempotencyCache(int capacity, long ttlMillis) {
+        this(capacity, ttlMillis, System::currentTimeMillis);
+    }
+    IdempotencyCache(int capacity, long ttlMillis, LongSupplier clock) {
+        if (Integer.bitCount(capacity) != 1 || capacity < WAYS) {
+            throw new IllegalArgumentException("Capacity must be a power of two of at least " + WAYS);
+        }
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Time to live must be positive");
+        }
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.setMask = capacity / WAYS - 1;
+        this.keys = new long[capacity];
+        this.expiries = new long[capacity];
+        this.outcomes = new Object[capacity];
+        this.stripes = new Object[Math.min(STRIPES, capacity / WAYS)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+    }
+    public int getCapacity() {
+        return keys.length;
+    }
+    // Calls answered from the cache
+    public long getRepeats() {
+        return repeats.sum();
+    }
+    // Entries dropped before they expired to make room for a new id
+    public long getEvictions() {
+        return evictions.sum();
+    }
+    // Returns null if the caller now owns the request id and must finish() or abandon() it;
+    // otherwise the outcome recorded for the id, waiting first if its operation is still running
+    Object begin(long requestId) {
+        int set = setOf(requestId);
+        int base = set * WAYS;
+        Object stripe = stripes[set & (stripes.length - 1)];
+        boolean interrupted = false;
+        try {
+            synchronized (stripe) {
+                for (;;) {
+                    long now = clock.getAsLong();
+                    int victim = -1;
+                    long victimExpiry = PENDING;
+                    boolean pending = false;
+                    for (int i = base; i < base + WAYS; i++) {
+                        long expiry = expiries[i];
+                        if (expiry > now && keys[i] == requestId) {
+                            if (outcomes[i] != null) {
+                                repeats.increment();
+                                return outcomes[i];
+                            }
+                            pending = true;
+                            break;
+                        }
+                        if (expiry < victimExpiry) {
+                            victim = i;
+                            victimExpiry = expiry;
+                        }
+                    }
+                    if (pending || victim < 0) {
+                        // Woken by finish or abandon on this stripe
+                        try {
+                            stripe.wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                        continue;
+                    }
+                    if (victimExpiry > now) {
+                        evictions.increment();
+                    }
+                    keys[victim] = requestId;
+                    expiries[victim] = PENDING;
+                    outcomes[victim] = null;
+                    return null;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    // Records the outcome of a request id claimed by begin()
+    void finish(long requestId, Object outcome) {
+        end(requestId, outcome);
+    }
+    // Forgets a request id claimed by begin() whose operation failed, so a retry runs it again
+    void abandon(long requestId) {
+        end(requestId, null);
+    }
+    private void end(long requestId, Object outcome) {
+        int set = setOf(requestId);
+        int base = set * WAYS;
+        Object stripe = stripes[set & (stripes.length - 1)];
+        synchronized (stripe) {
+            for (int i = base; i < base + WAYS; i++) {
+                if (expiries[i] == PENDING && keys[i] == requestId) {
+                    outcomes[i] = outcome;
+                    expiries[i] = outcome == null ? 0 : clock.getAsLong() + ttlMillis;
+                    break;
+                }
+            }
+            stripe.notifyAll();
+        }
+    }
+    // Entries not yet expired, pending ones included
+    public int size() {
+        int size = 0;
+        for (int set = 0; set <= setMask; set++) {
+            synchronized (stripes[set & (stripes.length - 1)]) {
+                long now = clock.getAsLong();
+                for (int i = set * WAYS; i < (set + 1) * WAYS; i++) {
+                    if (expiries[i] > now) {
+                        size++;
+                    }
+                }
+            }
+        }
+        return size;
+    }
+    private int setOf(long requestId) {
+        long h = requestId * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32)) & setMask;
+    }
+}
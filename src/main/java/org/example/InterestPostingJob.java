@@ -0,0 +1,242 @@
+package org.example;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+// Bank-wide interest posting for every SavingsAccount, run in parallel on a ForkJoinPool.
+//
+// Account numbers are split into fixed ranges of CHUNK_SIZE numbers, and each range is
+// posted as one task: look the numbers up, skip anything that is not a SavingsAccount,
+// and credit the rest silently through Account.postInterest.
+//
+// A run is identified by a run id (e.g. 202610 for October 2026). Each account remembers
+// the last run that credited it, and that mark is journaled with the credit, so repeating
+// a run never credits an account twice. With a checkpoint file, a range is recorded there
+// once its journal records are forced, in every durability mode, and a resumed run skips
+// recorded ranges entirely.
+//
+// Accounts only remember the last run, so runs must be posted in run id order: a run older
+// than one that has already credited some account is refused, rather than crediting again
+// the accounts the newer run overwrote the mark of.
+final class InterestPostingJob {
+    static final int CHUNK_SIZE = 4096;
+    private static final int CHECKPOINT_MAGIC = 0x494e5452; // "INTR"
+    private final BankingSystem bank;
+    private final int runId;
+    private final long rateBasisPoints;
+    // Optional; null when progress is only kept in the accounts themselves
+    private final Path checkpoint;
+    private final LongAdder posted = new LongAdder();
+    private final LongAdder alreadyPosted = new LongAdder();
+    private final LongAdder totalInterest = new LongAdder();
+    private BitSet completedChunks;
+    private FileChannel checkpointChannel;
+    // Thrown by run for a run older than one that has already posted
+    public static final class RunOutOfOrderException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+        RunOutOfOrderException(int runId, int newest) {
+            super("Interest run " + runId + " is older than run " + newest + ", which has already posted");
+        }
+    }
+    public static final class Report {
+        private final int runId;
+        private final long accountsPosted;
+        private final long accountsAlreadyPosted;
+        private final int chunksSkipped;
+        private final long totalInterestMinor;
+        private final long elapsedNanos;
+        Report(int runId, long accountsPosted, long accountsAlreadyPosted, int chunksSkipped, long totalInterestMinor, long elapsedNanos) {
+            this.runId = runId;
+            this.accountsPosted = accountsPosted;
+            this.accountsAlreadyPosted = accountsAlreadyPosted;
+            this.chunksSkipped = chunksSkipped;
+            this.totalInterestMinor = totalInterestMinor;
+            this.elapsedNanos = elapsedNanos;
+        }
+        public long getAccountsPosted() {
+            return accountsPosted;
+        }
+        // Accounts in ranges that were not skipped, but had been credited by this run before
+        public long getAccountsAlreadyPosted() {
+            return accountsAlreadyPosted;
+        }
+        public int getChunksSkipped() {
+            return chunksSkipped;
+        }
+        public long getTotalInterestMinor() {
+            return totalInterestMinor;
+        }
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+        public double getAccountsPerSecond() {
+            return elapsedNanos == 0 ? 0 : accountsPosted * 1e9 / elapsedNanos;
+        }
+        @Override
+        public String toString() {
+            return String.format("Interest run %d: posted to %d accounts (%d already posted, %d ranges skipped) in %.1f ms, "
+                    + "%.0f accounts/s, total interest %.2f", runId, accountsPosted, accountsAlreadyPosted, chunksSkipped,
+                    elapsedNanos / 1e6, getAccountsPerSecond(), Money.toDouble(totalInterestMinor));
+        }
+    }
+    public InterestPostingJob(BankingSystem bank, int runId, Path checkpoint) {
+        this(bank, runId, SavingsAccount.INTEREST_RATE, checkpoint);
+    }
+    InterestPostingJob(BankingSystem bank, int runId, long rateBasisPoints, Path checkpoint) {
+        if (runId == Account.NO_INTEREST_RUN) {
+            throw new IllegalArgumentException("Run id must not be " + Account.NO_INTEREST_RUN);
+        }
+        this.bank = bank;
+        this.runId = runId;
+        this.rateBasisPoints = rateBasisPoints;
+        this.checkpoint = checkpoint;
+    }
+    public Report run() throws IOException {
+        return run(ForkJoinPool.commonPool());
+    }
+    public Report run(ForkJoinPool pool) throws IOException {
+        long begin = System.nanoTime();
+        int newest = newestPostedRun();
+        if (newest > runId) {
+            throw new RunOutOfOrderException(runId, newest);
+        }
+        int chunks = (Account.peekNextAccountNumber() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        completedChunks = new BitSet(chunks);
+        if (checkpoint != null) {
+            openCheckpoint();
+        }
+        int skipped = completedChunks.cardinality();
+        try {
+            pool.invoke(new PostRange(0, chunks));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (checkpointChannel != null) {
+                checkpointChannel.close();
+                checkpointChannel = null;
+            }
+        }
+        return new Report(runId, posted.sum(), alreadyPosted.sum(), skipped, totalInterest.sum(), System.nanoTime() - begin);
+    }
+    private int newestPostedRun() {
+        int[] newest = {Account.NO_INTEREST_RUN};
+        bank.forEachAccount(account -> newest[0] = Math.max(newest[0], account.getInterestRun()));
+        return newest[0];
+    }
+    // Checkpoint layout: magic, run id, then one int per completed range. A file for another
+    // run is started over; a torn trailing int is ignored.
+    private void openCheckpoint() throws IOException {
+        checkpointChannel = FileChannel.open(checkpoint, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = checkpointChannel.size();
+        ByteBuffer header = ByteBuffer.allocate(8);
+        if (size >= 8) {
+            checkpointChannel.read(header, 0);
+            header.flip();
+        }
+        if (size < 8 || header.getInt() != CHECKPOINT_MAGIC || header.getInt() != runId) {
+            checkpointChannel.truncate(0);
+            header.clear();
+            header.putInt(CHECKPOINT_MAGIC).putInt(runId).flip();
+            checkpointChannel.write(header, 0);
+            checkpointChannel.force(false);
+            checkpointChannel.position(8);
+            return;
+        }
+        long valid = 8 + (size - 8) / 4 * 4;
+        ByteBuffer ranges = ByteBuffer.allocate((int) (valid - 8));
+        while (ranges.hasRemaining() && checkpointChannel.read(ranges, 8 + ranges.position()) > 0) {
+        }
+        ranges.flip();
+        while (ranges.remaining() >= 4) {
+            completedChunks.set(ranges.getInt());
+        }
+        checkpointChannel.truncate(valid);
+        checkpointChannel.position(valid);
+    }
+    private void recordChunk(int chunk) {
+        if (checkpointChannel == null) {
+            return;
+        }
+        synchronized (this) {
+            try {
+                ByteBuffer record = ByteBuffer.allocate(4).putInt(chunk);
+                record.flip();
+                while (record.hasRemaining()) {
+                    checkpointChannel.write(record);
+                }
+                checkpointChannel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+    private void postChunk(int chunk) {
+        if (completedChunks.get(chunk)) {
+            return;
+        }
+        long first = (long) chunk * CHUNK_SIZE;
+        long end = first + CHUNK_SIZE;
+        long postedHere = 0;
+        long alreadyHere = 0;
+        long interestHere = 0;
+        for (long number = Math.max(first, 1); number < end; number++) {
+            Account account = bank.getAccountByNumber((int) number);
+            if (!(account instanceof SavingsAccount)) {
+                continue;
+            }
+            long interest = account.postInterest(runId, rateBasisPoints);
+            if (interest == Account.ALREADY_POSTED) {
+                alreadyHere++;
+            } else {
+                postedHere++;
+                if (interest > 0) {
+                    interestHere += interest;
+                }
+            }
+        }
+        posted.add(postedHere);
+        alreadyPosted.add(alreadyHere);
+        totalInterest.add(interestHere);
+        // One wait per range, so the journal group-commits a whole range of credits. A range is
+        // only checkpointed once forced: in ASYNC mode awaitDurable does not wait at all.
+        Journal journal = bank.getJournal();
+        if (journal != null) {
+            if (checkpointChannel == null) {
+                journal.awaitDurable();
+            } else {
+                try {
+                    journal.sync();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        recordChunk(chunk);
+    }
+    private final class PostRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        PostRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    postChunk(from);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PostRange(from, middle), new PostRange(middle, to));
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package org.example;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+// Append-only binary write-ahead journal of every state change in a BankingSystem.
+// Record layout: int payload length, byte record type, payload, int CRC32C of type and payload.
+// Appends go into an in-memory buffer under the journal's monitor; how they reach the disk
+// depends on the Durability mode. Replay stops at the first torn or corrupt record.
+class Journal implements Closeable {
+    enum Durability {
+        // every record is written and forced before the operation returns
+        PER_OP,
+        // operations wait for a force, but one force covers every record appended meanwhile
+        BATCHED,
+        // operations never wait; a background thread forces every flush interval
+        ASYNC
+    }
+    static final byte DEPOSIT = 1;
+    static final byte WITHDRAW = 2;
+    static final byte TRANSFER = 3;
+    static final byte CUSTOMER_REGISTERED = 4;
+    static final byte ACCOUNT_OPENED = 5;
+    static final byte EMPLOYEE_REGISTERED = 6;
+    static final byte LOAN_APPLIED = 7;
+    static final byte LOAN_STATUS = 8;
+    static final byte LOAN_PAYMENT = 9;
+    static final byte CUSTOMER_PASSWORD = 10;
+    static final byte EMPLOYEE_PASSWORD = 11;
+    static final byte INTEREST = 12;
+    static final int SAVINGS = 1;
+    static final int CURRENT = 2;
+    private static final int HEADER_BYTES = 5;
+    private static final int TRAILER_BYTES = 4;
+    private static final int DEFAULT_BUFFER_BYTES = 1 << 20;
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 10;
+    private final FileChannel channel;
+    private final Durability durability;
+    private final long flushIntervalMillis;
+    private final CRC32C crc = new CRC32C();
+    private final Thread flusher;
+    // Records are appended to active; the flusher swaps it with spare and writes spare out
+    private ByteBuffer active;
+    private ByteBuffer spare;
+    // File offsets just past the last appended and the last forced record
+    private long appendedPosition;
+    private volatile long durablePosition;
+    private boolean closed;
+    // The flusher found nothing to write and is parked, or about to park, until wakeFlusher()
+    private boolean flusherIdle;
+    // Appenders in reserve() waiting for the flusher to take the full buffer
+    private int roomWaiters;
+    private IOException failure;
+    // Buffer offset of the record between reserve() and commit()
+    private int recordStart;
+    private Journal(FileChannel channel, Durability durability, int bufferBytes, long flushIntervalMillis) throws IOException {
+        this.channel = channel;
+        this.durability = durability;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.active = ByteBuffer.allocateDirect(bufferBytes);
+        this.spare = ByteBuffer.allocateDirect(bufferBytes);
+        this.appendedPosition = channel.size();
+        this.durablePosition = appendedPosition;
+        channel.position(appendedPosition);
+        if (durability == Durability.PER_OP) {
+            this.flusher = null;
+        } else {
+            this.flusher = new Thread(this::flushLoop, "journal-flusher");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        }
+    }
+    public static Journal open(Path path, Durability durability) throws IOException {
+        return open(path, durability, DEFAULT_BUFFER_BYTES, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+    public static Journal open(Path path, Durability durability, int bufferBytes, long flushIntervalMillis) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Drop a torn tail left by a crash so new records follow the last good one
+        long valid = JournalReplayer.scan(channel, 0, null);
+        if (valid < channel.size()) {
+            channel.truncate(valid);
+        }
+        return new Journal(channel, durability, bufferBytes, flushIntervalMillis);
+    }
+    public Durability getDurability() {
+        return durability;
+    }
+    public long getDurablePosition() {
+        return durablePosition;
+    }
+    public synchronized long getAppendedPosition() {
+        return appendedPosition;
+    }
+    // Record writers. Each returns once the record is buffered; callers that must not
+    // return before it is durable call awaitDurable() after releasing their own locks.
+    // Balance records carry the index of each entry in the account's TransactionLog,
+    // so replay on top of a snapshot can skip entries the snapshot already holds
+    public synchronized void logDeposit(int account, int entry, long amount, long postBalance, long timestamp) {
+        ByteBuffer b = reserve(DEPOSIT, 32);
+        b.putInt(account).putInt(entry).putLong(amount).putLong(postBalance).putLong(timestamp);
+        commit(b);
+    }
+    public synchronized void logWithdraw(int account, int entry, long amount, long postBalance, long timestamp) {
+        ByteBuffer b = reserve(WITHDRAW, 32);
+        b.putInt(account).putInt(entry).putLong(amount).putLong(postBalance).putLong(timestamp);
+        commit(b);
+    }
+    public synchronized void logTransfer(int from, int withdrawEntry, int transferEntry, int to, int depositEntry, long amount,
+                                         long fromPostBalance, long toPostBalance, long transferPostBalance, long timestamp) {
+        ByteBuffer b = reserve(TRANSFER, 60);
+        b.putInt(from).putInt(withdrawEntry).putInt(transferEntry).putInt(to).putInt(depositEntry).putLong(amount)
+                .putLong(fromPostBalance).putLong(toPostBalance).putLong(transferPostBalance).putLong(timestamp);
+        commit(b);
+    }
+    // An interest credit made by a posting run; entry is -1 and amount 0 when nothing was credited
+    public synchronized void logInterest(int account, int runId, int entry, long amount, long postBalance, long timestamp) {
+        ByteBuffer b = reserve(INTEREST, 36);
+        b.putInt(account).putInt(runId).putInt(entry).putLong(amount).putLong(postBalance).putLong(timestamp);
+        commit(b);
+    }
+    public synchronized void logCustomer(int customerNumber, String name, String address, String phoneNumber, String username, String password) {
+        byte[][] fields = encode(name, address, phoneNumber, username, password);
+        ByteBuffer b = reserve(CUSTOMER_REGISTERED, 4 + length(fields));
+        b.putInt(customerNumber);
+        put(b, fields);
+        commit(b);
+    }
+    public synchronized void logAccountOpened(int customerNumber, int account, int kind) {
+        ByteBuffer b = reserve(ACCOUNT_OPENED, 12);
+        b.putInt(customerNumber).putInt(account).putInt(kind);
+        commit(b);
+    }
+    public synchronized void logEmployee(int employeeNumber, String name, String phoneNumber, String username, String password) {
+        byte[][] fields = encode(name, phoneNumber, username, password);
+        ByteBuffer b = reserve(EMPLOYEE_REGISTERED, 4 + length(fields));
+        b.putInt(employeeNumber);
+        put(b, fields);
+        commit(b);
+    }
+    // Journals written before loans had terms stop after amount, and before loans kept their
+    // application time after the tenor; replay fills in the defaults and the replay time
+    public synchronized void logLoanApplied(int loanId, int customerNumber, long amount, long annualRateBasisPoints, int tenorMonths,
+                                            long appliedAt) {
+        ByteBuffer b = reserve(LOAN_APPLIED, 36);
+        b.putInt(loanId).putInt(customerNumber).putLong(amount).putLong(annualRateBasisPoints).putInt(tenorMonths)
+                .putLong(appliedAt);
+        commit(b);
+    }
+    public synchronized void logLoanStatus(int loanId, boolean approved, boolean closed) {
+        ByteBuffer b = reserve(LOAN_STATUS, 6);
+        b.putInt(loanId).put((byte) (approved ? 1 : 0)).put((byte) (closed ? 1 : 0));
+        commit(b);
+    }
+    // Records the outstanding amount after the payment, so replaying it twice is harmless
+    public synchronized void logLoanPayment(int loanId, long remaining) {
+        ByteBuffer b = reserve(LOAN_PAYMENT, 12);
+        b.putInt(loanId).putLong(remaining);
+        commit(b);
+    }
+    public synchronized void logCustomerPassword(int customerNumber, String password) {
+        byte[][] fields = encode(password);
+        ByteBuffer b = reserve(CUSTOMER_PASSWORD, 4 + length(fields));
+        b.putInt(customerNumber);
+        put(b, fields);
+        commit(b);
+    }
+    public synchronized void logEmployeePassword(int employeeNumber, String password) {
+        byte[][] fields = encode(password);
+        ByteBuffer b = reserve(EMPLOYEE_PASSWORD, 4 + length(fields));
+        b.putInt(employeeNumber);
+        put(b, fields);
+        commit(b);
+    }
+    private static byte[][] encode(String...values) {
+        byte[][] fields = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            fields[i] = values[i] == null ? new byte[0] : values[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return fields;
+    }
+    private static int length(byte[][] fields) {
+        int total = 0;
+        for (byte[] field: fields) {
+            total += 4 + field.length;
+        }
+        return total;
+    }
+    private static void put(ByteBuffer b, byte[][] fields) {
+        for (byte[] field: fields) {
+            b.putInt(field.length).put(field);
+        }
+    }
+    // Callers hold the monitor. Makes room for one record and writes its header.
+    private ByteBuffer reserve(byte type, int payloadBytes) {
+        int recordBytes = HEADER_BYTES + payloadBytes + TRAILER_BYTES;
+        if (recordBytes > active.capacity()) {
+            throw new IllegalArgumentException("Journal record too large: " + recordBytes);
+        }
+        checkUsable();
+        if (active.remaining() < recordBytes) {
+            if (durability == Durability.PER_OP) {
+                writeActive();
+            } else {
+                // Wake the flusher, then wait for it to take the full buffer. Only the flusher
+                // notifies waiters; waiters notifying each other would keep the monitor busy and
+                // starve the flusher.
+                wakeFlusher();
+                boolean interrupted = false;
+                roomWaiters++;
+                try {
+                    while (active.remaining() < recordBytes) {
+                        interrupted |= awaitSignal(0);
+                        checkUsable();
+                    }
+                } finally {
+                    roomWaiters--;
+                    restoreInterrupt(interrupted);
+                }
+            }
+        }
+        recordStart = active.position();
+        active.putInt(payloadBytes).put(type);
+        return active;
+    }
+    // Callers hold the monitor. Seals the record reserved last with its checksum.
+    private void commit(ByteBuffer b) {
+        int typeStart = recordStart + 4;
+        crc.reset();
+        crc.update(b.duplicate().limit(b.position()).position(typeStart));
+        b.putInt((int) crc.getValue());
+        appendedPosition += b.position() - recordStart;
+        if (durability == Durability.PER_OP) {
+            writeActive();
+            force(appendedPosition);
+        } else if (durability == Durability.BATCHED && flusherIdle) {
+            wakeFlusher();
+        }
+    }
+    // Must hold the monitor. Unparks the flusher without waking any thread waiting on the
+    // monitor; an unpark that comes before the flusher parks leaves it a permit, so none is lost.
+    private void wakeFlusher() {
+        flusherIdle = false;
+        LockSupport.unpark(flusher);
+    }
+    // The flusher's pause while idle or letting records accumulate; 0 waits for wakeFlusher()
+    private void park(long millis) {
+        if (millis == 0) {
+            LockSupport.park(this);
+        } else {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+    private void checkUsable() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+    }
+    // Must hold the monitor; used by PER_OP mode, which does its I/O on the caller's thread
+    private void writeActive() {
+        active.flip();
+        try {
+            while (active.hasRemaining()) {
+                channel.write(active);
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException(e);
+        } finally {
+            active.clear();
+        }
+    }
+    private void force(long position) {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException(e);
+        }
+        durablePosition = position;
+    }
+    // Must hold the monitor. Waits without giving up on an interrupt, and returns whether one
+    // came; callers keep waiting and restore the flag once done, since a flag set again inside
+    // their loop would make every later wait return at once and spin on the monitor.
+    private boolean awaitSignal(long millis) {
+        try {
+            wait(millis);
+            return false;
+        } catch (InterruptedException e) {
+            return true;
+        }
+    }
+    private static void restoreInterrupt(boolean interrupted) {
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    // Blocks until every record appended so far is on disk; a no-op in ASYNC mode
+    public void awaitDurable() {
+        if (durability != Durability.BATCHED) {
+            return;
+        }
+        long start = Metrics.start();
+        synchronized (this) {
+            // commit() has already woken the flusher for every record up to target
+            long target = appendedPosition;
+            boolean interrupted = false;
+            while (durablePosition < target && failure == null && !closed) {
+                interrupted |= awaitSignal(0);
+            }
+            restoreInterrupt(interrupted);
+            if (failure != null) {
+                throw new UncheckedIOException(failure);
+            }
+        }
+        Metrics.record(Metrics.Operation.JOURNAL_WAIT, start);
+    }
+    private void flushLoop() {
+        for (;;) {
+            long target;
+            ByteBuffer toWrite;
+            boolean idle;
+            boolean closing;
+            synchronized (this) {
+                idle = active.position() == 0;
+                closing = closed;
+                if (idle && closing) {
+                    notifyAll();
+                    return;
+                }
+                flusherIdle = idle;
+            }
+            // Parked outside the monitor, so appends go on; BATCHED commits wake the flusher only
+            // when it is idle, ASYNC ones never do
+            if (idle) {
+                park(durability == Durability.ASYNC ? flushIntervalMillis : 0);
+                continue;
+            }
+            if (durability == Durability.ASYNC && !closing) {
+                // Let records accumulate for one interval before forcing
+                park(flushIntervalMillis);
+            }
+            synchronized (this) {
+                toWrite = active;
+                active = spare;
+                spare = toWrite;
+                target = appendedPosition;
+                if (roomWaiters > 0) {
+                    notifyAll();
+                }
+            }
+            IOException error = null;
+            toWrite.flip();
+            try {
+                while (toWrite.hasRemaining()) {
+                    channel.write(toWrite);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+            toWrite.clear();
+            synchronized (this) {
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durablePosition = target;
+                }
+                notifyAll();
+                if (error != null) {
+                    return;
+                }
+            }
+        }
+    }
+    // Forces everything appended so far, whatever the durability mode
+    public void sync() throws IOException {
+        synchronized (this) {
+            if (durability == Durability.PER_OP) {
+                return;
+            }
+            long target = appendedPosition;
+            wakeFlusher();
+            boolean interrupted = false;
+            while (durablePosition < target && failure == null) {
+                interrupted |= awaitSignal(0);
+            }
+            restoreInterrupt(interrupted);
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+    @Override
+    public void close() throws IOException {
+        sync();
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+            if (flusher != null) {
+                wakeFlusher();
+            }
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,214 @@
+package org.example;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+// Reads a Journal back. scan() validates records sequentially and reports where the
+// valid prefix ends; replay() applies that prefix to a BankingSystem. Replay must run
+// before the journal is attached to the bank, so applying a record never re-journals it.
+// Applying a record the bank already reflects is a no-op, so the journal can be replayed
+// from a snapshot's position even though the snapshot also saw some later changes.
+final class JournalReplayer {
+    private static final int HEADER_BYTES = 5;
+    private static final int TRAILER_BYTES = 4;
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+    interface RecordHandler {
+        // payload is positioned at the start of the record's payload and limited to its end
+        void record(byte type, ByteBuffer payload);
+    }
+    private JournalReplayer() {
+    }
+    // Returns the file offset just past the last intact record at or after from
+    static long scan(FileChannel channel, long from, RecordHandler handler) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+        CRC32C crc = new CRC32C();
+        long fileSize = channel.size();
+        long position = from;
+        // Invariant: the buffer's position holds the byte at file offset position
+        buffer.limit(0);
+        for (;;) {
+            if (buffer.remaining() < HEADER_BYTES && !refill(channel, buffer, position, fileSize, HEADER_BYTES)) {
+                return position;
+            }
+            int payloadBytes = buffer.getInt(buffer.position());
+            if (payloadBytes < 0 || payloadBytes > fileSize - position - HEADER_BYTES - TRAILER_BYTES) {
+                return position;
+            }
+            int recordBytes = HEADER_BYTES + payloadBytes + TRAILER_BYTES;
+            if (buffer.remaining() < recordBytes) {
+                if (recordBytes > buffer.capacity()) {
+                    buffer = grow(buffer, recordBytes);
+                }
+                if (!refill(channel, buffer, position, fileSize, recordBytes)) {
+                    return position;
+                }
+            }
+            int start = buffer.position();
+            byte type = buffer.get(start + 4);
+            crc.reset();
+            crc.update(buffer.duplicate().limit(start + HEADER_BYTES + payloadBytes).position(start + 4));
+            if ((int) crc.getValue() != buffer.getInt(start + HEADER_BYTES + payloadBytes)) {
+                return position;
+            }
+            if (handler != null) {
+                handler.record(type, buffer.duplicate().limit(start + HEADER_BYTES + payloadBytes).position(start + HEADER_BYTES).slice());
+            }
+            buffer.position(start + recordBytes);
+            position += recordBytes;
+        }
+    }
+    // Moves the unread bytes to the front of the buffer and reads until at least needed bytes are available
+    private static boolean refill(FileChannel channel, ByteBuffer buffer, long position, long fileSize, int needed) throws IOException {
+        long readFrom = position + buffer.remaining();
+        buffer.compact();
+        while (buffer.hasRemaining() && readFrom < fileSize) {
+            int read = channel.read(buffer, readFrom);
+            if (read <= 0) {
+                break;
+            }
+            readFrom += read;
+        }
+        buffer.flip();
+        return buffer.remaining() >= needed;
+    }
+    private static ByteBuffer grow(ByteBuffer buffer, int recordBytes) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(Integer.highestOneBit(recordBytes - 1) << 1);
+        grown.put(buffer);
+        grown.flip();
+        return grown;
+    }
+    public static long replay(Path path, BankingSystem bank) throws IOException {
+        return replay(path, 0, bank);
+    }
+    // Applies every intact record from the given offset and returns the offset replay stopped at
+    public static long replay(Path path, long from, BankingSystem bank) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return scan(channel, from, (type, payload) -> apply(bank, type, payload));
+        }
+    }
+    static void apply(BankingSystem bank, byte type, ByteBuffer p) {
+        switch (type) {
+            case Journal.DEPOSIT: {
+                Account account = bank.getAccountByNumber(p.getInt());
+                int entry = p.getInt();
+                long amount = p.getLong();
+                long postBalance = p.getLong();
+                account.restoreEntry(entry, TransactionLog.DEPOSIT, amount, postBalance, TransactionLog.NO_COUNTERPARTY, p.getLong(), amount);
+                break;
+            }
+            case Journal.WITHDRAW: {
+                Account account = bank.getAccountByNumber(p.getInt());
+                int entry = p.getInt();
+                long amount = p.getLong();
+                long postBalance = p.getLong();
+                account.restoreEntry(entry, TransactionLog.WITHDRAW, amount, postBalance, TransactionLog.NO_COUNTERPARTY, p.getLong(), -amount);
+                break;
+            }
+            case Journal.TRANSFER: {
+                Account from = bank.getAccountByNumber(p.getInt());
+                int withdrawEntry = p.getInt();
+                int transferEntry = p.getInt();
+                Account to = bank.getAccountByNumber(p.getInt());
+                int depositEntry = p.getInt();
+                long amount = p.getLong();
+                long fromPostBalance = p.getLong();
+                long toPostBalance = p.getLong();
+                long transferPostBalance = p.getLong();
+                long timestamp = p.getLong();
+                // Same entries, in the same order, as Account.transferMinor records
+                from.restoreEntry(withdrawEntry, TransactionLog.WITHDRAW, amount, fromPostBalance, TransactionLog.NO_COUNTERPARTY, timestamp, -amount);
+                to.restoreEntry(depositEntry, TransactionLog.DEPOSIT, amount, toPostBalance, TransactionLog.NO_COUNTERPARTY, timestamp, amount);
+                from.restoreEntry(transferEntry, TransactionLog.TRANSFER, amount, transferPostBalance, to.getAccountNumber(), timestamp, 0);
+                break;
+            }
+            case Journal.INTEREST: {
+                Account account = bank.getAccountByNumber(p.getInt());
+                int runId = p.getInt();
+                int entry = p.getInt();
+                long amount = p.getLong();
+                long postBalance = p.getLong();
+                account.restoreInterest(runId, entry, amount, postBalance, p.getLong());
+                break;
+            }
+            case Journal.CUSTOMER_REGISTERED: {
+                int customerNumber = p.getInt();
+                if (customerNumber < bank.getCustomerCount()) {
+                    break;
+                }
+                Customer customer = new Customer(string(p), string(p), string(p), string(p), string(p));
+                bank.addCustomer(customer);
+                if (customer.getCustomerNumber() != customerNumber) {
+                    throw new IllegalStateException("Journal customer " + customerNumber + " replayed as " + customer.getCustomerNumber());
+                }
+                break;
+            }
+            case Journal.ACCOUNT_OPENED: {
+                Customer customer = bank.getCustomerByNumber(p.getInt());
+                int accountNumber = p.getInt();
+                int kind = p.getInt();
+                if (bank.getAccountByNumber(accountNumber) != null) {
+                    break;
+                }
+                Account account = kind == Journal.CURRENT ? new CurrentAccount(customer, accountNumber)
+                        : new SavingsAccount(customer, accountNumber);
+                customer.addAccount(account);
+                break;
+            }
+            case Journal.EMPLOYEE_REGISTERED: {
+                int employeeNumber = p.getInt();
+                if (bank.findEmployeeByNumber(employeeNumber) != null) {
+                    break;
+                }
+                bank.addEmployee(new Employee(string(p), string(p), string(p), string(p), employeeNumber));
+                break;
+            }
+            case Journal.LOAN_APPLIED: {
+                int loanId = p.getInt();
+                Customer customer = bank.getCustomerByNumber(p.getInt());
+                if (bank.findLoanByLoanNumber(loanId) != null) {
+                    break;
+                }
+                long amount = p.getLong();
+                if (p.remaining() >= 20) {
+                    customer.addLoan(new Loan(customer, amount, loanId, p.getLong(), p.getInt(), p.getLong()));
+                } else if (p.remaining() >= 12) {
+                    customer.addLoan(new Loan(customer, amount, loanId, p.getLong(), p.getInt()));
+                } else {
+                    customer.addLoan(new Loan(customer, amount, loanId));
+                }
+                break;
+            }
+            case Journal.LOAN_STATUS: {
+                Loan loan = bank.findLoanByLoanNumber(p.getInt());
+                boolean approved = p.get() != 0;
+                loan.restoreStatus(approved, p.get() != 0);
+                break;
+            }
+            case Journal.LOAN_PAYMENT: {
+                Loan loan = bank.findLoanByLoanNumber(p.getInt());
+                loan.restorePayment(p.getLong());
+                break;
+            }
+            case Journal.CUSTOMER_PASSWORD: {
+                Customer customer = bank.getCustomerByNumber(p.getInt());
+                customer.setPassword(string(p));
+                break;
+            }
+            case Journal.EMPLOYEE_PASSWORD: {
+                Employee employee = bank.findEmployeeByNumber(p.getInt());
+                employee.setPassword(string(p));
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+    private static String string(ByteBuffer p) {
+        byte[] bytes = new byte[p.getInt()];
+        p.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,94 @@
+package org.example;
+import java.util.concurrent.atomic.AtomicLongArray;
+// Fixed-bucket log-linear histogram of latencies in nanoseconds. Values below 16 have a bucket
+// each; above that every power of two is split into 16 equal buckets, so any recorded value is
+// reported to within 1/16 (6.25%) of itself. Values from 2^43 ns (about 2.4 hours) on share
+// the last bucket.
+//
+// record() is one atomic increment on a preallocated array: lock-free and allocation-free.
+// A snapshot taken while threads record may miss increments that land concurrently, but with
+// reset each increment is counted in exactly one snapshot.
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 42;
+    static final int BUCKETS = SUB_BUCKETS * (MAX_EXPONENT - SUB_BUCKET_BITS + 2);
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    void record(long nanos) {
+        counts.getAndIncrement(bucketOf(nanos));
+    }
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return value < 0 ? 0 : (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS * (shift + 1) + sub;
+    }
+    // The largest value that falls in the bucket
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+    Snapshot snapshot(boolean reset) {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = reset ? counts.getAndSet(i, 0) : counts.get(i);
+        }
+        return new Snapshot(copy);
+    }
+    static final class Snapshot {
+        private final long[] counts;
+        private final long total;
+        Snapshot(long[] counts) {
+            this.counts = counts;
+            long sum = 0;
+            for (long count: counts) {
+                sum += count;
+            }
+            this.total = sum;
+        }
+        long getCount() {
+            return total;
+        }
+        // Counts of both snapshots together, e.g. of histograms kept per thread
+        Snapshot plus(Snapshot other) {
+            long[] sum = counts.clone();
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] += other.counts[i];
+            }
+            return new Snapshot(sum);
+        }
+        // Upper bound of the bucket holding the value at the quantile (0.5 for the median); 0 when empty
+        long valueAt(double quantile) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestValueIn(i);
+                }
+            }
+            return highestValueIn(counts.length - 1);
+        }
+        long getMax() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] != 0) {
+                    return highestValueIn(i);
+                }
+            }
+            return 0;
+        }
+    }
+}
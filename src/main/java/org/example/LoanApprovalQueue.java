@@ -0,0 +1,147 @@
+package org.example;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+// Pending loans waiting for a decision, shared by every employee of a bank.
+//
+// Employees claim loans, oldest or by amount, then approve or reject them. A claim hands a
+// loan to exactly one employee until that employee decides on it or releases it, and
+// Loan.applyApproval pays a loan out at most once, so no loan is ever approved twice.
+//
+// Unclaimed loans are kept in two concurrent skip lists, by age and by amount. Loan ids only
+// follow application order within each thread's block of ids (see BlockIdAllocator), so age
+// is the time of the application, with the loan id breaking ties within a millisecond. A claim
+// polls one of the lists and wins the loan by being the first to enter it in the claims
+// map; an entry the other list still holds for a loan claimed or decided meanwhile is
+// dropped when it is polled. LoanRegistry offers loans as they are applied for and
+// withdraws them, under the loan's monitor, once they are approved or closed.
+final class LoanApprovalQueue {
+    enum Order {
+        OLDEST_FIRST,
+        LARGEST_FIRST,
+        SMALLEST_FIRST
+    }
+    enum Outcome {
+        APPROVED,
+        REJECTED,
+        NOT_FOUND,
+        // already approved or closed
+        NOT_PENDING,
+        // claimed by another employee, who has not decided or released it yet
+        CLAIMED_BY_OTHER
+    }
+    private static final Comparator < Loan > BY_AGE =
+            Comparator.comparingLong(Loan::getAppliedAt).thenComparingInt(Loan::getLoanId);
+    private static final Comparator < Loan > BY_AMOUNT =
+            Comparator.comparingLong(Loan::getInitialLoanAmountMinor).thenComparingInt(Loan::getLoanId);
+    private final LoanRegistry registry;
+    private final ConcurrentSkipListSet < Loan > byAge;
+    private final ConcurrentSkipListSet < Loan > byAmount;
+    // Loan id -> number of the employee holding the claim
+    private final Map < Integer, Integer > claims;
+    LoanApprovalQueue(LoanRegistry registry) {
+        this.registry = registry;
+        this.byAge = new ConcurrentSkipListSet < > (BY_AGE);
+        this.byAmount = new ConcurrentSkipListSet < > (BY_AMOUNT);
+        this.claims = new ConcurrentHashMap < > ();
+    }
+    // Called by LoanRegistry for a pending loan
+    void offer(Loan loan) {
+        byAge.add(loan);
+        byAmount.add(loan);
+    }
+    // Called by LoanRegistry, under the loan's monitor, once the loan is no longer pending
+    void withdraw(Loan loan) {
+        byAge.remove(loan);
+        byAmount.remove(loan);
+        claims.remove(loan.getLoanId());
+    }
+    // Pending loans nobody has claimed
+    public int size() {
+        return byAge.size();
+    }
+    // Claims up to max pending loans for the employee, in the given order. Each loan is
+    // returned to exactly one caller until it is decided or released.
+    public List < Loan > claim(int employeeNumber, Order order, int max) {
+        List < Loan > claimed = new ArrayList < > (Math.min(max, 64));
+        ConcurrentSkipListSet < Loan > source = order == Order.OLDEST_FIRST ? byAge : byAmount;
+        ConcurrentSkipListSet < Loan > other = source == byAge ? byAmount : byAge;
+        while (claimed.size() < max) {
+            Loan loan = order == Order.LARGEST_FIRST ? source.pollLast() : source.pollFirst();
+            if (loan == null) {
+                break;
+            }
+            Integer id = loan.getLoanId();
+            if (claims.putIfAbsent(id, employeeNumber) != null) {
+                continue;
+            }
+            other.remove(loan);
+            if (loan.isApproved() || loan.isClosed()) {
+                claims.remove(id, employeeNumber);
+                continue;
+            }
+            claimed.add(loan);
+        }
+        return claimed;
+    }
+    // Gives a claimed, undecided loan back to the queue
+    public boolean release(int employeeNumber, Loan loan) {
+        synchronized (loan) {
+            if (!claims.remove(loan.getLoanId(), employeeNumber)) {
+                return false;
+            }
+            if (!loan.isApproved() && !loan.isClosed()) {
+                offer(loan);
+            }
+            return true;
+        }
+    }
+    // Releases every loan the employee still holds; returns how many
+    public int releaseAll(int employeeNumber) {
+        int released = 0;
+        for (Map.Entry < Integer, Integer > claim: claims.entrySet()) {
+            if (claim.getValue() == employeeNumber) {
+                Loan loan = registry.find(claim.getKey());
+                if (loan != null && release(employeeNumber, loan)) {
+                    released++;
+                }
+            }
+        }
+        return released;
+    }
+    // Decide on each loan id in turn, without printing or waiting for the journal.
+    // A loan need not be claimed first, but one claimed by someone else is left alone.
+    Outcome[] approveAll(int employeeNumber, int[] loanIds) {
+        return decideAll(employeeNumber, loanIds, true);
+    }
+    Outcome[] rejectAll(int employeeNumber, int[] loanIds) {
+        return decideAll(employeeNumber, loanIds, false);
+    }
+    private Outcome[] decideAll(int employeeNumber, int[] loanIds, boolean approve) {
+        Outcome[] outcomes = new Outcome[loanIds.length];
+        for (int i = 0; i < loanIds.length; i++) {
+            outcomes[i] = decide(employeeNumber, loanIds[i], approve);
+        }
+        return outcomes;
+    }
+    private Outcome decide(int employeeNumber, int loanId, boolean approve) {
+        Loan loan = registry.find(loanId);
+        if (loan == null) {
+            return Outcome.NOT_FOUND;
+        }
+        Integer holder = claims.putIfAbsent(loanId, employeeNumber);
+        if (holder != null && holder != employeeNumber) {
+            return Outcome.CLAIMED_BY_OTHER;
+        }
+        // A successful decision withdraws the loan, claim included
+        boolean decided = approve ? loan.applyApproval() : loan.applyRejection();
+        if (!decided) {
+            claims.remove(loanId, employeeNumber);
+            return Outcome.NOT_PENDING;
+        }
+        return approve ? Outcome.APPROVED : Outcome.REJECTED;
+    }
+}
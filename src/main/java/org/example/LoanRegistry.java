@@ -0,0 +1,77 @@
+package org.example;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+// Bank-wide loan registry, indexed by loan id and partitioned by status.
+// Loans move between the pending, active and closed partitions as they are
+// approved and closed, so listing one status costs time proportional to the
+// number of loans in it. Partitions are ordered by loan id, i.e. application order.
+// Pending loans are also offered to the approval queue employees work from.
+class LoanRegistry {
+    private final ConcurrentIntMap < Loan > loansById;
+    private final ConcurrentSkipListMap < Integer, Loan > pending;
+    private final ConcurrentSkipListMap < Integer, Loan > active;
+    private final ConcurrentSkipListMap < Integer, Loan > closed;
+    private final LoanApprovalQueue approvalQueue;
+    public LoanRegistry() {
+        this.loansById = new ConcurrentIntMap < > ();
+        this.pending = new ConcurrentSkipListMap < > ();
+        this.active = new ConcurrentSkipListMap < > ();
+        this.closed = new ConcurrentSkipListMap < > ();
+        this.approvalQueue = new LoanApprovalQueue(this);
+    }
+    // Returns false if the loan was already registered
+    public boolean register(Loan loan) {
+        // Hold the loan's monitor so a concurrent approve/close cannot be filed under a stale status
+        synchronized (loan) {
+            if (loansById.putIfAbsent(loan.getLoanId(), loan) != null) {
+                return false;
+            }
+            ConcurrentSkipListMap < Integer, Loan > partition = partitionOf(loan);
+            partition.put(loan.getLoanId(), loan);
+            if (partition == pending) {
+                approvalQueue.offer(loan);
+            }
+            return true;
+        }
+    }
+    // Called by Loan, under the loan's monitor, after its status flags changed
+    void statusChanged(Loan loan) {
+        Integer id = loan.getLoanId();
+        pending.remove(id);
+        active.remove(id);
+        closed.remove(id);
+        partitionOf(loan).put(id, loan);
+        // Loans only ever leave the pending status
+        approvalQueue.withdraw(loan);
+    }
+    private ConcurrentSkipListMap < Integer, Loan > partitionOf(Loan loan) {
+        if (loan.isClosed()) {
+            return closed;
+        }
+        return loan.isApproved() ? active : pending;
+    }
+    LoanApprovalQueue getApprovalQueue() {
+        return approvalQueue;
+    }
+    public Loan find(int loanId) {
+        return loansById.get(loanId);
+    }
+    public int size() {
+        return loansById.size();
+    }
+    // Every registered loan, in no particular order; loans registered meanwhile may be missed
+    void forEachLoan(Consumer < Loan > action) {
+        loansById.forEachValue(action);
+    }
+    public List < Loan > getPendingLoans() {
+        return new ArrayList < > (pending.values());
+    }
+    public List < Loan > getActiveLoans() {
+        return new ArrayList < > (active.values());
+    }
+    public List < Loan > getClosedLoans() {
+        return new ArrayList < > (closed.values());
+    }
+}
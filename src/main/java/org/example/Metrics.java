@@ -0,0 +1,80 @@
+package org.example;
+import java.util.concurrent.atomic.LongAdder;
+// Process-wide operation counters and latency histograms, recorded on the hot paths of
+// Account, BankingSystem, Loan and Journal. Recording is a nanoTime read, one atomic
+// increment in a LatencyHistogram and, for refused operations, a LongAdder increment; nothing
+// is allocated. Start the JVM with -Dbanking.metrics=false to turn recording off entirely.
+//
+// The rejected column counts refused balance changes, failed logins and account lookups
+// that found nothing. Counts accumulate from the last reset, so dumping with reset gives
+// per-interval figures: throughput is the count divided by the time since that reset.
+final class Metrics {
+    enum Operation {
+        // Balance changes, timed up to the point the change is journaled
+        DEPOSIT, WITHDRAW, TRANSFER,
+        AUTHENTICATE, FIND_ACCOUNT, LOAN_APPROVAL,
+        // Time callers spend waiting for their journal records to become durable
+        JOURNAL_WAIT
+    }
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("banking.metrics"));
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[OPERATIONS.length];
+    private static final LongAdder[] REJECTED = new LongAdder[OPERATIONS.length];
+    private static volatile long intervalStart = System.nanoTime();
+    static {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            HISTOGRAMS[i] = new LatencyHistogram();
+            REJECTED[i] = new LongAdder();
+        }
+    }
+    private Metrics() {
+    }
+    // Pass the result to record() when the operation ends
+    static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+    static void record(Operation operation, long start) {
+        if (ENABLED) {
+            HISTOGRAMS[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+    // accepted is false for an operation that ran but was refused, e.g. a withdrawal over the balance
+    static void record(Operation operation, long start, boolean accepted) {
+        if (ENABLED) {
+            HISTOGRAMS[operation.ordinal()].record(System.nanoTime() - start);
+            if (!accepted) {
+                REJECTED[operation.ordinal()].increment();
+            }
+        }
+    }
+    static long getCount(Operation operation) {
+        return HISTOGRAMS[operation.ordinal()].snapshot(false).getCount();
+    }
+    static long getRejected(Operation operation) {
+        return REJECTED[operation.ordinal()].sum();
+    }
+    static void reset() {
+        dump(true);
+    }
+    // Plain-text table of every operation since the last reset; with reset, starts a new interval
+    static String dump(boolean reset) {
+        long now = System.nanoTime();
+        long begin = intervalStart;
+        if (reset) {
+            intervalStart = now;
+        }
+        double seconds = Math.max(1, now - begin) / 1e9;
+        StringBuilder text = new StringBuilder(String.format("Metrics for the last %.1f s%s%n", seconds,
+                ENABLED ? "" : " (disabled with -Dbanking.metrics=false)"));
+        text.append(String.format("%-14s %12s %10s %12s %10s %10s %10s %10s%n",
+                "operation", "count", "rejected", "ops/s", "p50 us", "p99 us", "p99.9 us", "max us"));
+        for (Operation operation: OPERATIONS) {
+            LatencyHistogram.Snapshot snapshot = HISTOGRAMS[operation.ordinal()].snapshot(reset);
+            long rejected = reset ? REJECTED[operation.ordinal()].sumThenReset() : REJECTED[operation.ordinal()].sum();
+            text.append(String.format("%-14s %12d %10d %12.0f %10.2f %10.2f %10.2f %10.2f%n", operation,
+                    snapshot.getCount(), rejected, snapshot.getCount() / seconds, snapshot.valueAt(0.5) / 1e3,
+                    snapshot.valueAt(0.99) / 1e3, snapshot.valueAt(0.999) / 1e3, snapshot.getMax() / 1e3));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package org.example;
+// Money is held as a long count of minor units (paise/cents): 1 unit = 100 minor units.
+// All arithmetic on balances, amounts and loans is exact integer arithmetic on these
+// values; doubles only appear at the console/API boundary and in printed text.
+final class Money {
+    static final long MINOR_PER_UNIT = 100;
+    // Rates are expressed in basis points: 1% = 100 bp
+    static final long BASIS_POINTS = 10_000;
+    // Largest whole-unit amount whose minor value still fits in a long
+    private static final double MAX_UNITS = Long.MAX_VALUE / MINOR_PER_UNIT;
+    private Money() {
+    }
+    // Converts a user-entered amount, rounding half-up to the nearest minor unit.
+    // NaN, infinities and amounts too large to represent become 0, which every
+    // money operation rejects as invalid.
+    static long ofAmount(double amount) {
+        if (!(Math.abs(amount) <= MAX_UNITS)) {
+            return 0;
+        }
+        return Math.round(amount * MINOR_PER_UNIT);
+    }
+    static double toDouble(long minor) {
+        return minor / (double) MINOR_PER_UNIT;
+    }
+    // amount * basisPoints / 10000, rounded half-even so interest is deterministic
+    static long applyRate(long amount, long basisPoints) {
+        return divideHalfEven(Math.multiplyExact(amount, basisPoints), BASIS_POINTS);
+    }
+    static long divideHalfEven(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        long twice = Math.abs(remainder) * 2;
+        long absDivisor = Math.abs(divisor);
+        int sign = (dividend < 0) == (divisor < 0) ? 1 : -1;
+        if (twice > absDivisor || (twice == absDivisor && (quotient & 1) != 0)) {
+            return quotient + sign;
+        }
+        return quotient;
+    }
+}
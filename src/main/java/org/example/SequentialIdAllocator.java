@@ -0,0 +1,22 @@
+package org.example;
+import java.util.concurrent.atomic.AtomicLong;
+// One shared counter: ids in strict allocation order, but every allocation writes the same
+// cache line. See BlockIdAllocator for parallel allocation.
+final class SequentialIdAllocator implements IdAllocator {
+    private final AtomicLong next;
+    SequentialIdAllocator(long first) {
+        this.next = new AtomicLong(first);
+    }
+    @Override
+    public long next() {
+        return next.getAndIncrement();
+    }
+    @Override
+    public long peekNext() {
+        return next.get();
+    }
+    @Override
+    public void advanceTo(long next) {
+        this.next.accumulateAndGet(next, Math::max);
+    }
+}
@@ -0,0 +1,139 @@
+package org.example;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+// Renders statement text straight into a reused byte buffer and writes it to a channel
+// whenever the buffer fills, so a line costs no String.format, no Transaction and no String.
+//
+// Each history line is byte-identical to Transaction.toString followed by '\n'. Amounts are
+// written from their minor units, which prints the same digits as "%.2f" of Money.toDouble
+// as long as the amount is below FAST_LIMIT; larger amounts, or a default locale whose
+// numbers are not plain ASCII, are rendered through toString instead.
+final class StatementFormatter {
+    // 10,000,000,000.00; far below where a double stops holding two exact decimals
+    static final long FAST_LIMIT = 1_000_000_000_000L;
+    // Longest line either path can produce, with room to spare
+    private static final int MAX_LINE = 256;
+    private static final byte[][] PREFIXES = new byte[3][];
+    static {
+        for (byte type = 0; type < PREFIXES.length; type++) {
+            PREFIXES[type] = (TransactionLog.typeName(type) + " of ").getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+    private static final byte[] NEW_BALANCE = ", New balance: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRANSFERRED_TO = ", Transferred to account: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEADER = "Transaction history for account ".getBytes(StandardCharsets.US_ASCII);
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+    private final boolean plainNumbers;
+    private int length;
+    private WritableByteChannel out;
+    private long written;
+    StatementFormatter(int capacity, boolean plainNumbers) {
+        if (capacity < MAX_LINE) {
+            throw new IllegalArgumentException("Capacity must be at least " + MAX_LINE);
+        }
+        this.bytes = new byte[capacity];
+        this.buffer = ByteBuffer.wrap(bytes);
+        this.plainNumbers = plainNumbers;
+    }
+    // Whether String.format prints numbers as plain ASCII in the current default locale
+    static boolean defaultLocaleIsPlain() {
+        return String.format("%.2f %d", -1234.5, -1234).equals("-1234.50 -1234");
+    }
+    // Later output goes to out; anything still buffered for the previous channel is written first
+    void begin(WritableByteChannel out) throws IOException {
+        flush();
+        this.out = out;
+    }
+    // Same header line as Account.printTransactions
+    void appendHeader(int accountNumber) throws IOException {
+        ensureRoom();
+        append(HEADER);
+        appendLong(accountNumber);
+        bytes[length++] = ':';
+        bytes[length++] = '\n';
+    }
+    // Entry index of log, which must be below a previously read log.size()
+    void appendEntry(TransactionLog log, int index) throws IOException {
+        ensureRoom();
+        long amount = log.amountAt(index);
+        long postBalance = log.postBalanceAt(index);
+        if (!plainNumbers || !fast(amount) || !fast(postBalance)) {
+            byte[] line = log.get(index).toString().getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(line, 0, bytes, length, line.length);
+            length += line.length;
+            bytes[length++] = '\n';
+            return;
+        }
+        append(PREFIXES[log.typeAt(index)]);
+        appendMoney(amount);
+        append(NEW_BALANCE);
+        appendMoney(postBalance);
+        int counterparty = log.counterpartyAt(index);
+        if (counterparty != TransactionLog.NO_COUNTERPARTY) {
+            append(TRANSFERRED_TO);
+            appendLong(counterparty);
+        }
+        bytes[length++] = '\n';
+    }
+    // Writes out whatever is buffered
+    void flush() throws IOException {
+        if (length == 0) {
+            return;
+        }
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        written += length;
+        length = 0;
+    }
+    // Bytes handed to channels so far
+    long getBytesWritten() {
+        return written;
+    }
+    private static boolean fast(long minor) {
+        return minor > -FAST_LIMIT && minor < FAST_LIMIT;
+    }
+    private void ensureRoom() throws IOException {
+        if (bytes.length - length < MAX_LINE) {
+            flush();
+        }
+    }
+    private void append(byte[] text) {
+        System.arraycopy(text, 0, bytes, length, text.length);
+        length += text.length;
+    }
+    private void appendLong(long v) {
+        if (v < 0) {
+            bytes[length++] = '-';
+        } else {
+            v = -v;
+        }
+        // Digits are produced from the negated value so Long.MIN_VALUE needs no special case
+        int start = length;
+        do {
+            bytes[length++] = (byte) ('0' - v % 10);
+            v /= 10;
+        } while (v != 0);
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte t = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = t;
+        }
+    }
+    // Only called for amounts below FAST_LIMIT
+    private void appendMoney(long minor) {
+        if (minor < 0) {
+            bytes[length++] = '-';
+        }
+        long units = Math.abs(minor / Money.MINOR_PER_UNIT);
+        int cents = (int) Math.abs(minor % Money.MINOR_PER_UNIT);
+        appendLong(units);
+        bytes[length++] = '.';
+        bytes[length++] = (byte) ('0' + cents / 10);
+        bytes[length++] = (byte) ('0' + cents % 10);
+    }
+}
@@ -0,0 +1,164 @@
+package org.example;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+// Month-end statements for every account, rendered in parallel on a ForkJoinPool.
+//
+// Account numbers are split into fixed ranges of CHUNK_SIZE numbers, as InterestPostingJob
+// does, and each range is one task with its own StatementFormatter, so a task reuses one
+// buffer for all of its files and allocates nothing per line.
+//
+// Each account gets <directory>/statement-<account number>.txt: the header line
+// Account.printTransactions prints, then every entry whose timestamp is in [from, to), each
+// line byte-identical to Transaction.toString and ended by '\n'. An account's history length
+// is read once, so entries appended while the job runs are left for the next statement.
+final class StatementJob {
+    static final int CHUNK_SIZE = 1024;
+    private static final int BUFFER_BYTES = 1 << 16;
+    private final BankingSystem bank;
+    private final Path directory;
+    private final long fromMillis;
+    private final long toMillis;
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder transactions = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private boolean plainNumbers;
+    public static final class Report {
+        private final long statements;
+        private final long transactions;
+        private final long bytes;
+        private final long elapsedNanos;
+        Report(long statements, long transactions, long bytes, long elapsedNanos) {
+            this.statements = statements;
+            this.transactions = transactions;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+        public long getStatements() {
+            return statements;
+        }
+        // History entries that fell in the period, over all statements
+        public long getTransactions() {
+            return transactions;
+        }
+        public long getBytes() {
+            return bytes;
+        }
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+        public double getStatementsPerSecond() {
+            return elapsedNanos == 0 ? 0 : statements * 1e9 / elapsedNanos;
+        }
+        @Override
+        public String toString() {
+            return String.format("Statements: wrote %d statements (%d transactions, %d bytes) in %.1f ms, %.0f statements/s",
+                    statements, transactions, bytes, elapsedNanos / 1e6, getStatementsPerSecond());
+        }
+    }
+    // Entries with fromMillis <= timestamp < toMillis
+    public StatementJob(BankingSystem bank, Path directory, long fromMillis, long toMillis) {
+        if (fromMillis > toMillis) {
+            throw new IllegalArgumentException("Period ends before it starts");
+        }
+        this.bank = bank;
+        this.directory = directory;
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+    }
+    // The calendar month in the given zone
+    static StatementJob forMonth(BankingSystem bank, Path directory, YearMonth month, ZoneId zone) {
+        long from = month.atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        long to = month.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        return new StatementJob(bank, directory, from, to);
+    }
+    static Path statementFile(Path directory, int accountNumber) {
+        return directory.resolve("statement-" + accountNumber + ".txt");
+    }
+    public Report run() throws IOException {
+        return run(ForkJoinPool.commonPool());
+    }
+    public Report run(ForkJoinPool pool) throws IOException {
+        long begin = System.nanoTime();
+        Files.createDirectories(directory);
+        // Checked once per run; if the locale would change the text, lines go through toString
+        plainNumbers = StatementFormatter.defaultLocaleIsPlain();
+        int chunks = (Account.peekNextAccountNumber() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        try {
+            pool.invoke(new RenderRange(0, chunks));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return new Report(statements.sum(), transactions.sum(), bytes.sum(), System.nanoTime() - begin);
+    }
+    private void renderChunk(int chunk) throws IOException {
+        StatementFormatter formatter = new StatementFormatter(BUFFER_BYTES, plainNumbers);
+        long first = (long) chunk * CHUNK_SIZE;
+        long end = first + CHUNK_SIZE;
+        long statementsHere = 0;
+        long transactionsHere = 0;
+        for (long number = Math.max(first, 1); number < end; number++) {
+            Account account = bank.getAccountByNumber((int) number);
+            if (account == null) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(statementFile(directory, account.getAccountNumber()),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                formatter.begin(channel);
+                transactionsHere += render(account, formatter);
+                formatter.flush();
+            }
+            statementsHere++;
+        }
+        statements.add(statementsHere);
+        transactions.add(transactionsHere);
+        bytes.add(formatter.getBytesWritten());
+    }
+    // Returns the number of entries written
+    private long render(Account account, StatementFormatter formatter) throws IOException {
+        TransactionLog log = account.getTransactionLog();
+        int size = log.size();
+        formatter.appendHeader(account.getAccountNumber());
+        long rendered = 0;
+        for (int i = 0; i < size; i++) {
+            long timestamp = log.timestampAt(i);
+            if (timestamp >= fromMillis && timestamp < toMillis) {
+                formatter.appendEntry(log, i);
+                rendered++;
+            }
+        }
+        return rendered;
+    }
+    private final class RenderRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        RenderRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    try {
+                        renderChunk(from);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RenderRange(from, middle), new RenderRange(middle, to));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.example;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+// A seeded, deterministic population for capacity planning: N customers with one savings or
+// current account each, M employees, and loans spread over the pending, active and closed
+// states. The same Config on an empty bank always yields the same customers, balances and
+// loan states in the same order; only the global account and loan numbers depend on what was
+// created before.
+//
+// Everything is created through the bank's normal paths, so a journaled bank journals the
+// population too; the journal is awaited once at the end rather than per customer.
+final class SyntheticPopulation {
+    public static final class Config {
+        private int customers = 10_000;
+        private int employees = 10;
+        // Share of accounts that are current accounts; the rest are savings accounts
+        private double currentShare = 0.3;
+        private long minOpeningBalanceMinor = 10_000;
+        private long maxOpeningBalanceMinor = 10_000_000;
+        // Share of customers with a loan, and how those loans are split between states
+        private double loanShare = 0.2;
+        private double pendingLoanShare = 0.3;
+        private double closedLoanShare = 0.2;
+        private long seed = 42;
+        public Config customers(int customers) {
+            this.customers = customers;
+            return this;
+        }
+        public Config employees(int employees) {
+            this.employees = employees;
+            return this;
+        }
+        public Config currentShare(double currentShare) {
+            this.currentShare = currentShare;
+            return this;
+        }
+        public Config openingBalanceMinor(long min, long max) {
+            if (min <= 0 || max < min) {
+                throw new IllegalArgumentException("Need 0 < min <= max");
+            }
+            this.minOpeningBalanceMinor = min;
+            this.maxOpeningBalanceMinor = max;
+            return this;
+        }
+        // pending + closed <= 1; the remainder of the loans is active (approved, open)
+        public Config loans(double loanShare, double pendingLoanShare, double closedLoanShare) {
+            if (pendingLoanShare + closedLoanShare > 1) {
+                throw new IllegalArgumentException("Pending and closed shares exceed 1");
+            }
+            this.loanShare = loanShare;
+            this.pendingLoanShare = pendingLoanShare;
+            this.closedLoanShare = closedLoanShare;
+            return this;
+        }
+        public Config seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+    }
+    private final Customer[] customers;
+    private final Account[] accounts;
+    private final Loan[] pendingLoans;
+    private final Loan[] activeLoans;
+    private final Loan[] closedLoans;
+    private SyntheticPopulation(Customer[] customers, Account[] accounts, Loan[] pendingLoans, Loan[] activeLoans, Loan[] closedLoans) {
+        this.customers = customers;
+        this.accounts = accounts;
+        this.pendingLoans = pendingLoans;
+        this.activeLoans = activeLoans;
+        this.closedLoans = closedLoans;
+    }
+    public static SyntheticPopulation generate(BankingSystem bank, Config config) {
+        SplittableRandom random = new SplittableRandom(config.seed);
+        Customer[] customers = new Customer[config.customers];
+        Account[] accounts = new Account[config.customers];
+        Loan[][] loans = {new Loan[16], new Loan[16], new Loan[16]};
+        int[] loanCounts = new int[3];
+        for (int i = 0; i < config.customers; i++) {
+            // The password is derived from the username, so workloads can log in without storing it
+            Customer customer = new Customer("Customer " + i, i + " Synthetic Street", phoneNumber(random),
+                    username(i), password(i));
+            Account account = random.nextDouble() < config.currentShare ? new CurrentAccount(customer) : new SavingsAccount(customer);
+            customer.addAccount(account);
+            bank.addCustomer(customer, false);
+            account.applyDeposit(random.nextLong(config.minOpeningBalanceMinor, config.maxOpeningBalanceMinor + 1));
+            customers[i] = customer;
+            accounts[i] = account;
+            if (random.nextDouble() < config.loanShare) {
+                long amount = random.nextLong(config.minOpeningBalanceMinor, config.maxOpeningBalanceMinor + 1);
+                Loan loan = customer.applyForLoanMinor(amount);
+                double state = random.nextDouble();
+                int kind = state < config.pendingLoanShare ? 0 : state < config.pendingLoanShare + config.closedLoanShare ? 2 : 1;
+                if (kind != 0) {
+                    loan.approveLoan();
+                }
+                if (kind == 2) {
+                    loan.applyPayment(amount);
+                }
+                if (loanCounts[kind] == loans[kind].length) {
+                    loans[kind] = Arrays.copyOf(loans[kind], loanCounts[kind] * 2);
+                }
+                loans[kind][loanCounts[kind]++] = loan;
+            }
+        }
+        for (int i = 0; i < config.employees; i++) {
+            bank.addEmployee(new Employee("Employee " + i, phoneNumber(random), "employee" + i, "employee" + i));
+        }
+        bank.awaitJournal();
+        return new SyntheticPopulation(customers, accounts, Arrays.copyOf(loans[0], loanCounts[0]),
+                Arrays.copyOf(loans[1], loanCounts[1]), Arrays.copyOf(loans[2], loanCounts[2]));
+    }
+    private static String phoneNumber(SplittableRandom random) {
+        return Long.toString(random.nextLong(9_000_000_000L, 10_000_000_000L));
+    }
+    static String username(int customer) {
+        return "user" + customer;
+    }
+    static String password(int customer) {
+        return "pw" + customer;
+    }
+    public int size() {
+        return customers.length;
+    }
+    public Customer getCustomer(int index) {
+        return customers[index];
+    }
+    public Account getAccount(int index) {
+        return accounts[index];
+    }
+    public Loan[] getPendingLoans() {
+        return pendingLoans.clone();
+    }
+    public Loan[] getActiveLoans() {
+        return activeLoans.clone();
+    }
+    public Loan[] getClosedLoans() {
+        return closedLoans.clone();
+    }
+}
@@ -0,0 +1,229 @@
+package org.example;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+// Append-only, columnar transaction history for one account.
+// Each entry is a type code plus primitive amount, post-balance, counterparty and
+// timestamp columns, so recording a transaction allocates nothing once a chunk exists.
+// Entries live in fixed-size chunks; the first chunk starts small and grows by copying
+// until it reaches full size, after which new chunks are added and never move.
+// Appends are serialized; readers never lock. A reader that reads size() sees every
+// entry below it, because each append publishes the new size last.
+class TransactionLog {
+    static final byte DEPOSIT = 0;
+    static final byte WITHDRAW = 1;
+    static final byte TRANSFER = 2;
+    static final int NO_COUNTERPARTY = -1;
+    private static final String[] TYPE_NAMES = {"Deposit", "Withdraw", "Transfer"};
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int INITIAL_CAPACITY = 4;
+    // Ranges smaller than this are not split further for parallel streams
+    private static final int MIN_SPLIT = CHUNK_SIZE;
+    // Immutable directory of chunks; replaced whenever a chunk is added or the first chunk grows
+    private static final class Columns {
+        final byte[][] types;
+        final long[][] amounts;
+        final long[][] postBalances;
+        final int[][] counterparties;
+        final long[][] timestamps;
+        Columns(byte[][] types, long[][] amounts, long[][] postBalances, int[][] counterparties, long[][] timestamps) {
+            this.types = types;
+            this.amounts = amounts;
+            this.postBalances = postBalances;
+            this.counterparties = counterparties;
+            this.timestamps = timestamps;
+        }
+    }
+    private volatile Columns columns;
+    private volatile int size;
+    public TransactionLog() {
+        this.columns = null;
+        this.size = 0;
+    }
+    static String typeName(byte type) {
+        return TYPE_NAMES[type];
+    }
+    public int size() {
+        return size;
+    }
+    // Both append methods return the index of the new entry
+    public int append(byte type, long amount, long postBalance, int counterparty) {
+        return append(type, amount, postBalance, counterparty, System.currentTimeMillis());
+    }
+    public synchronized int append(byte type, long amount, long postBalance, int counterparty, long timestamp) {
+        int index = size;
+        Columns c = ensureCapacity(index);
+        int chunk = index >>> CHUNK_SHIFT;
+        int offset = index & CHUNK_MASK;
+        c.types[chunk][offset] = type;
+        c.amounts[chunk][offset] = amount;
+        c.postBalances[chunk][offset] = postBalance;
+        c.counterparties[chunk][offset] = counterparty;
+        c.timestamps[chunk][offset] = timestamp;
+        size = index + 1;
+        return index;
+    }
+    private Columns ensureCapacity(int index) {
+        Columns c = columns;
+        if (c == null) {
+            c = new Columns(new byte[][] {new byte[INITIAL_CAPACITY]}, new long[][] {new long[INITIAL_CAPACITY]},
+                    new long[][] {new long[INITIAL_CAPACITY]}, new int[][] {new int[INITIAL_CAPACITY]},
+                    new long[][] {new long[INITIAL_CAPACITY]});
+            columns = c;
+            return c;
+        }
+        int chunk = index >>> CHUNK_SHIFT;
+        if (chunk == 0) {
+            int capacity = c.types[0].length;
+            if (index < capacity) {
+                return c;
+            }
+            int grown = Math.min(capacity << 1, CHUNK_SIZE);
+            c = new Columns(new byte[][] {Arrays.copyOf(c.types[0], grown)},
+                    new long[][] {Arrays.copyOf(c.amounts[0], grown)},
+                    new long[][] {Arrays.copyOf(c.postBalances[0], grown)},
+                    new int[][] {Arrays.copyOf(c.counterparties[0], grown)},
+                    new long[][] {Arrays.copyOf(c.timestamps[0], grown)});
+            columns = c;
+            return c;
+        }
+        if (chunk < c.types.length) {
+            return c;
+        }
+        int chunks = c.types.length;
+        byte[][] types = Arrays.copyOf(c.types, chunks + 1);
+        long[][] amounts = Arrays.copyOf(c.amounts, chunks + 1);
+        long[][] postBalances = Arrays.copyOf(c.postBalances, chunks + 1);
+        int[][] counterparties = Arrays.copyOf(c.counterparties, chunks + 1);
+        long[][] timestamps = Arrays.copyOf(c.timestamps, chunks + 1);
+        types[chunks] = new byte[CHUNK_SIZE];
+        amounts[chunks] = new long[CHUNK_SIZE];
+        postBalances[chunks] = new long[CHUNK_SIZE];
+        counterparties[chunks] = new int[CHUNK_SIZE];
+        timestamps[chunks] = new long[CHUNK_SIZE];
+        c = new Columns(types, amounts, postBalances, counterparties, timestamps);
+        columns = c;
+        return c;
+    }
+    // Column accessors; index must be below a previously read size()
+    public byte typeAt(int index) {
+        return columns.types[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+    public long amountAt(int index) {
+        return columns.amounts[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+    public long postBalanceAt(int index) {
+        return columns.postBalances[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+    public int counterpartyAt(int index) {
+        return columns.counterparties[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+    public long timestampAt(int index) {
+        return columns.timestamps[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+    public Transaction get(int index) {
+        return entry(columns, index);
+    }
+    private static Transaction entry(Columns c, int index) {
+        int chunk = index >>> CHUNK_SHIFT;
+        int offset = index & CHUNK_MASK;
+        return new Transaction(typeName(c.types[chunk][offset]), c.amounts[chunk][offset],
+                c.postBalances[chunk][offset], c.counterparties[chunk][offset], c.timestamps[chunk][offset]);
+    }
+    // Read-only list of the entries present now; Transaction objects are built on access
+    public List < Transaction > view() {
+        int fixedSize = size;
+        return new SnapshotList(fixedSize);
+    }
+    // Entries from low (inclusive) to high (exclusive), oldest or newest first. high must not
+    // exceed a previously read size(); entries appended later are never visited.
+    // Transaction objects are built one at a time as the stream consumes them.
+    Stream < Transaction > stream(int low, int high, boolean newestFirst) {
+        if (low < 0 || low > high) {
+            throw new IndexOutOfBoundsException("Range: " + low + " to " + high);
+        }
+        return StreamSupport.stream(new RangeSpliterator(low, high, newestFirst), false);
+    }
+    private final class RangeSpliterator implements Spliterator < Transaction > {
+        private int low;
+        private int high;
+        private final boolean newestFirst;
+        RangeSpliterator(int low, int high, boolean newestFirst) {
+            this.low = low;
+            this.high = high;
+            this.newestFirst = newestFirst;
+        }
+        @Override
+        public boolean tryAdvance(Consumer < ? super Transaction > action) {
+            if (low >= high) {
+                return false;
+            }
+            int index = newestFirst ? --high : low++;
+            action.accept(get(index));
+            return true;
+        }
+        @Override
+        public void forEachRemaining(Consumer < ? super Transaction > action) {
+            // Columns read after size() hold every entry below it, so one read covers the range
+            Columns c = columns;
+            if (newestFirst) {
+                while (high > low) {
+                    action.accept(entry(c, --high));
+                }
+            } else {
+                while (low < high) {
+                    action.accept(entry(c, low++));
+                }
+            }
+        }
+        // Hands out the half that comes first in encounter order, as ORDERED requires
+        @Override
+        public Spliterator < Transaction > trySplit() {
+            if (high - low < 2 * MIN_SPLIT) {
+                return null;
+            }
+            int mid = (low + high) >>> 1;
+            Spliterator < Transaction > prefix;
+            if (newestFirst) {
+                prefix = new RangeSpliterator(mid, high, true);
+                high = mid;
+            } else {
+                prefix = new RangeSpliterator(low, mid, false);
+                low = mid;
+            }
+            return prefix;
+        }
+        @Override
+        public long estimateSize() {
+            return high - low;
+        }
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+    }
+    private final class SnapshotList extends AbstractList < Transaction > implements RandomAccess {
+        private final int fixedSize;
+        SnapshotList(int fixedSize) {
+            this.fixedSize = fixedSize;
+        }
+        @Override
+        public Transaction get(int index) {
+            if (index < 0 || index >= fixedSize) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + fixedSize);
+            }
+            return TransactionLog.this.get(index);
+        }
+        @Override
+        public int size() {
+            return fixedSize;
+        }
+    }
+}
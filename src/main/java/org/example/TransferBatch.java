@@ -0,0 +1,78 @@
+package org.example;
+import java.util.Arrays;
+// Transfers submitted together to BankingSystem.transferAll, and their per-item outcomes.
+// Items are held in parallel primitive arrays, so a large batch costs a few allocations.
+// Items are applied in the order they were added; each sees the effect of those before it.
+final class TransferBatch {
+    enum Outcome {
+        // not applied yet
+        PENDING,
+        DONE,
+        SOURCE_NOT_FOUND,
+        DESTINATION_NOT_FOUND,
+        // invalid amount or insufficient balance at the item's turn in the batch
+        REJECTED
+    }
+    private int[] sources;
+    private int[] destinations;
+    // In minor units, see Money
+    private long[] amounts;
+    private Outcome[] outcomes;
+    private int size;
+    public TransferBatch() {
+        this(16);
+    }
+    public TransferBatch(int expectedSize) {
+        int capacity = Math.max(expectedSize, 1);
+        this.sources = new int[capacity];
+        this.destinations = new int[capacity];
+        this.amounts = new long[capacity];
+        this.outcomes = new Outcome[capacity];
+        this.size = 0;
+    }
+    public TransferBatch add(int sourceAccountNumber, int destinationAccountNumber, double amount) {
+        return addMinor(sourceAccountNumber, destinationAccountNumber, Money.ofAmount(amount));
+    }
+    public TransferBatch addMinor(int sourceAccountNumber, int destinationAccountNumber, long amount) {
+        if (size == sources.length) {
+            int grown = size << 1;
+            sources = Arrays.copyOf(sources, grown);
+            destinations = Arrays.copyOf(destinations, grown);
+            amounts = Arrays.copyOf(amounts, grown);
+            outcomes = Arrays.copyOf(outcomes, grown);
+        }
+        sources[size] = sourceAccountNumber;
+        destinations[size] = destinationAccountNumber;
+        amounts[size] = amount;
+        outcomes[size] = Outcome.PENDING;
+        size++;
+        return this;
+    }
+    public int size() {
+        return size;
+    }
+    public int getSource(int index) {
+        return sources[index];
+    }
+    public int getDestination(int index) {
+        return destinations[index];
+    }
+    public long getAmountMinor(int index) {
+        return amounts[index];
+    }
+    public Outcome getOutcome(int index) {
+        return outcomes[index];
+    }
+    public int count(Outcome outcome) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (outcomes[i] == outcome) {
+                count++;
+            }
+        }
+        return count;
+    }
+    void setOutcome(int index, Outcome outcome) {
+        outcomes[index] = outcome;
+    }
+}
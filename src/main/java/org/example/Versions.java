@@ -0,0 +1,30 @@
+package org.example;
+import java.util.function.LongFunction;
+// Version clock for point-in-time reports, see BankSnapshot. A report starts a new version and
+// reads the one before it, so every change made from then on belongs to a later version.
+//
+// The first time an account or loan changes in a version, the writer copies its current state
+// into the entity itself, under the lock or monitor the change is made under. A report for
+// version v reads an entity's copy if the entity has changed in a later version, and its live
+// state otherwise. Writers never wait for a report: they read the clock, and at most once per
+// entity per report they copy a few fields. Each entity holds one copy, so reports run one at
+// a time.
+final class Versions {
+    private static final Object REPORTS = new Object();
+    private static volatile long current = 1;
+    private Versions() {
+    }
+    // Version a change made now belongs to. Changes to several entities that must be seen
+    // together read it once, while holding every one of their locks.
+    static long current() {
+        return current;
+    }
+    // Runs report over the version that ends now; report must not start another one
+    static < T > T read(LongFunction < T > report) {
+        synchronized (REPORTS) {
+            long version = current;
+            current = version + 1;
+            return report.apply(version);
+        }
+    }
+}
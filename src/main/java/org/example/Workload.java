@@ -0,0 +1,259 @@
+package org.example;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+// Drives a configurable mix of operations against a SyntheticPopulation from many threads and
+// reports throughput and latency percentiles per operation.
+//
+// Accounts and customers are picked with Zipfian skew over the population order, so with an
+// exponent near 1 the first few accounts are hot, as a few corporate accounts are in a real
+// bank. Every thread runs its own seeded random stream, so a thread's sequence of operations
+// is the same on every run; only how the threads interleave varies.
+//
+// Each operation is timed from its start until its journal records are durable, which is
+// what a customer at the menu waits for, and recorded in a LatencyHistogram of the thread's
+// own, so memory stays fixed however long the run and percentiles are reported to within
+// 1/16 of the true latency. Nothing is printed while the workload runs.
+final class Workload {
+    enum Operation {
+        DEPOSIT, WITHDRAW, TRANSFER, BALANCE, LOGIN, LOAN_APPLY, LOAN_PAYMENT
+    }
+    private static final Operation[] OPERATIONS = Operation.values();
+    public static final class Config {
+        private final int[] weights = new int[OPERATIONS.length];
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private long operations = 1_000_000;
+        private double zipfExponent = 0.99;
+        private long maxAmountMinor = 100_000;
+        private long seed = 7;
+        public Config() {
+            weights[Operation.DEPOSIT.ordinal()] = 30;
+            weights[Operation.WITHDRAW.ordinal()] = 20;
+            weights[Operation.TRANSFER.ordinal()] = 20;
+            weights[Operation.BALANCE.ordinal()] = 20;
+            weights[Operation.LOGIN.ordinal()] = 8;
+            weights[Operation.LOAN_APPLY.ordinal()] = 1;
+            weights[Operation.LOAN_PAYMENT.ordinal()] = 1;
+        }
+        // Relative weight of an operation in the mix; 0 leaves it out
+        public Config weight(Operation operation, int weight) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight");
+            }
+            weights[operation.ordinal()] = weight;
+            return this;
+        }
+        public Config threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+        // Total across all threads
+        public Config operations(long operations) {
+            this.operations = operations;
+            return this;
+        }
+        public Config zipfExponent(double zipfExponent) {
+            this.zipfExponent = zipfExponent;
+            return this;
+        }
+        public Config maxAmountMinor(long maxAmountMinor) {
+            this.maxAmountMinor = maxAmountMinor;
+            return this;
+        }
+        public Config seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+    }
+    public static final class Report {
+        private final long[] counts;
+        private final long[] rejected;
+        // Latencies in nanoseconds, per operation
+        private final LatencyHistogram.Snapshot[] latencies;
+        private final long elapsedNanos;
+        Report(long[] counts, long[] rejected, LatencyHistogram.Snapshot[] latencies, long elapsedNanos) {
+            this.counts = counts;
+            this.rejected = rejected;
+            this.latencies = latencies;
+            this.elapsedNanos = elapsedNanos;
+        }
+        public long getOperations() {
+            long total = 0;
+            for (long count: counts) {
+                total += count;
+            }
+            return total;
+        }
+        public long getCount(Operation operation) {
+            return counts[operation.ordinal()];
+        }
+        // Operations that ran but were refused, e.g. a withdrawal over the balance
+        public long getRejected(Operation operation) {
+            return rejected[operation.ordinal()];
+        }
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+        public double getOperationsPerSecond() {
+            return elapsedNanos == 0 ? 0 : getOperations() * 1e9 / elapsedNanos;
+        }
+        // Latency at the given quantile (0.5 for the median), in nanoseconds, as the upper bound
+        // of its histogram bucket; 0 if the operation never ran
+        public long getLatencyNanos(Operation operation, double quantile) {
+            return latencies[operation.ordinal()].valueAt(quantile);
+        }
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.format("%d operations in %.1f ms, %.0f ops/s%n",
+                    getOperations(), elapsedNanos / 1e6, getOperationsPerSecond()));
+            text.append(String.format("%-13s %10s %9s %10s %10s %10s %10s %10s%n",
+                    "operation", "count", "rejected", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us"));
+            for (Operation operation: OPERATIONS) {
+                if (counts[operation.ordinal()] == 0) {
+                    continue;
+                }
+                text.append(String.format("%-13s %10d %9d %10.1f %10.1f %10.1f %10.1f %10.1f%n", operation,
+                        counts[operation.ordinal()], rejected[operation.ordinal()],
+                        getLatencyNanos(operation, 0.5) / 1e3, getLatencyNanos(operation, 0.9) / 1e3,
+                        getLatencyNanos(operation, 0.99) / 1e3, getLatencyNanos(operation, 0.999) / 1e3,
+                        getLatencyNanos(operation, 1) / 1e3));
+            }
+            return text.toString();
+        }
+    }
+    private final BankingSystem bank;
+    private final SyntheticPopulation population;
+    private final Config config;
+    private final ZipfSampler sampler;
+    private final Loan[] activeLoans;
+    private final int[] cumulativeWeights;
+    public Workload(BankingSystem bank, SyntheticPopulation population, Config config) {
+        this.bank = bank;
+        this.population = population;
+        this.config = config;
+        this.sampler = new ZipfSampler(population.size(), config.zipfExponent);
+        this.activeLoans = population.getActiveLoans();
+        this.cumulativeWeights = new int[config.weights.length];
+        int total = 0;
+        for (int i = 0; i < config.weights.length; i++) {
+            total += config.weights[i];
+            cumulativeWeights[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Every operation has weight 0");
+        }
+    }
+    public Report run() throws InterruptedException {
+        int threads = config.threads;
+        Worker[] workers = new Worker[threads];
+        SplittableRandom seeds = new SplittableRandom(config.seed);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            long share = config.operations / threads + (t < config.operations % threads ? 1 : 0);
+            workers[t] = new Worker(seeds.split(), share, start);
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Worker worker: workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        int operations = OPERATIONS.length;
+        long[] counts = new long[operations];
+        long[] rejected = new long[operations];
+        LatencyHistogram.Snapshot[] latencies = new LatencyHistogram.Snapshot[operations];
+        for (int o = 0; o < operations; o++) {
+            latencies[o] = new LatencyHistogram().snapshot(false);
+            for (Worker worker: workers) {
+                counts[o] += worker.counts[o];
+                rejected[o] += worker.rejected[o];
+                latencies[o] = latencies[o].plus(worker.latencies[o].snapshot(false));
+            }
+        }
+        return new Report(counts, rejected, latencies, elapsed);
+    }
+    private Operation pick(SplittableRandom random) {
+        int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int o = 0;
+        while (cumulativeWeights[o] <= r) {
+            o++;
+        }
+        return OPERATIONS[o];
+    }
+    // Returns false if the operation was refused
+    private boolean execute(Operation operation, SplittableRandom random) {
+        int index = sampler.sample(random) - 1;
+        Account account = population.getAccount(index);
+        long amount = random.nextLong(1, config.maxAmountMinor + 1);
+        boolean done;
+        switch (operation) {
+            case DEPOSIT:
+                done = account.applyDeposit(amount);
+                break;
+            case WITHDRAW:
+                done = account.applyWithdrawal(amount) == null;
+                break;
+            case TRANSFER:
+                Account to = population.getAccount(sampler.sample(random) - 1);
+                done = account.applyTransfer(to, amount) == null;
+                break;
+            case BALANCE:
+                account.getBalanceMinor();
+                return true;
+            case LOGIN:
+                return bank.authenticateUser(SyntheticPopulation.username(index), SyntheticPopulation.password(index)) != null;
+            case LOAN_APPLY:
+                population.getCustomer(index).applyForLoanMinor(amount);
+                done = true;
+                break;
+            case LOAN_PAYMENT:
+                if (activeLoans.length == 0) {
+                    return false;
+                }
+                Loan loan = activeLoans[random.nextInt(activeLoans.length)];
+                done = !loan.isClosed() && loan.applyPayment(Math.min(amount, loan.getLoanAmountMinor())) == null;
+                break;
+            default:
+                throw new IllegalStateException(operation.name());
+        }
+        bank.awaitJournal();
+        return done;
+    }
+    private final class Worker extends Thread {
+        private final SplittableRandom random;
+        private final long operations;
+        private final CountDownLatch start;
+        private final long[] counts = new long[OPERATIONS.length];
+        private final long[] rejected = new long[OPERATIONS.length];
+        private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+        Worker(SplittableRandom random, long operations, CountDownLatch start) {
+            super("workload");
+            this.random = random;
+            this.operations = operations;
+            this.start = start;
+            for (int o = 0; o < latencies.length; o++) {
+                latencies[o] = new LatencyHistogram();
+            }
+        }
+        @Override
+        public void run() {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (long i = 0; i < operations; i++) {
+                Operation operation = pick(random);
+                long begin = System.nanoTime();
+                boolean done = execute(operation, random);
+                long latency = System.nanoTime() - begin;
+                int o = operation.ordinal();
+                counts[o]++;
+                latencies[o].record(latency);
+                if (!done) {
+                    rejected[o]++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.example;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AccountIndexTests {
+    private BankingSystem bankingSystem;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() {
+        bankingSystem = new BankingSystem();
+        System.setOut(new PrintStream(outputStream));
+    }
+
+    @Test
+    public void accountAddedAfterRegistrationIsFound() {
+        Customer customer = new Customer("jay","india","1234","jay","jay");
+        bankingSystem.addCustomer(customer);
+        Account account = new SavingsAccount(customer);
+        customer.addAccount(account);
+        Assertions.assertSame(account, bankingSystem.findAccountByNumber(account.getAccountNumber()));
+    }
+
+    @Test
+    public void accountAddedBeforeRegistrationIsFound() {
+        Customer customer = new Customer("jay","india","1234","jay","jay");
+        Account account = new CurrentAccount(customer);
+        customer.addAccount(account);
+        bankingSystem.addCustomer(customer);
+        Assertions.assertSame(account, bankingSystem.findAccountByNumber(account.getAccountNumber()));
+    }
+
+    @Test
+    public void unknownAccountIsNotFound() {
+        Assertions.assertNull(bankingSystem.findAccountByNumber(-42));
+        Assertions.assertNull(bankingSystem.findAccountByNumber(0));
+    }
+
+    @Test
+    public void unregisteredCustomerAccountIsNotFound() {
+        Customer customer = new Customer("jay","india","1234","jay","jay");
+        Account account = new SavingsAccount(customer);
+        customer.addAccount(account);
+        Assertions.assertNull(bankingSystem.findAccountByNumber(account.getAccountNumber()));
+    }
+
+    @Test
+    public void mapGrowsAndKeepsAllKeys() {
+        ConcurrentIntMap<String> map = new ConcurrentIntMap<>();
+        for (int i = -1000; i <= 1000; i++) {
+            map.put(i, "v" + i);
+        }
+        Assertions.assertEquals(2001, map.size());
+        for (int i = -1000; i <= 1000; i++) {
+            Assertions.assertEquals("v" + i, map.get(i));
+        }
+        Assertions.assertEquals("v7", map.putIfAbsent(7, "other"));
+        Assertions.assertEquals("v7", map.get(7));
+    }
+
+    @Test
+    public void concurrentRegistrationAndLookup() throws InterruptedException {
+        int threads = 4;
+        int perThread = 2000;
+        List<Thread> workers = new ArrayList<>();
+        List<Account> created = java.util.Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    Customer customer = new Customer("c","addr","1","c","c");
+                    Account account = new SavingsAccount(customer);
+                    customer.addAccount(account);
+                    bankingSystem.addCustomer(customer);
+                    created.add(account);
+                    if (bankingSystem.findAccountByNumber(account.getAccountNumber()) != account) {
+                        throw new AssertionError("lookup missed " + account.getAccountNumber());
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker: workers) {
+            worker.join();
+        }
+        Assertions.assertEquals(threads * perThread, bankingSystem.getCustomers().size());
+        for (Account account: created) {
+            Assertions.assertSame(account, bankingSystem.findAccountByNumber(account.getAccountNumber()));
+        }
+    }
+}
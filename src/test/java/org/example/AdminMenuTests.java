@@ -54,6 +54,18 @@ public class AdminMenuTests {
         Assertions.assertNull(customer1);
     }
 
+    @Test
+    public void duplicateUsernameDifferentCaseRegister(){
+        Customer customer1 = bankingSystem.verify("som","india","1234","JAY","som");
+        Assertions.assertNull(customer1);
+    }
+
+    @Test
+    public void sameNameDifferentUsernameRegister(){
+        Customer customer1 = bankingSystem.verify("jay","india","1234","jay2","som");
+        Assertions.assertNotNull(customer1);
+    }
+
     @Test
     public void emptyPasswordRegister(){
         Customer customer1 = bankingSystem.verify("som","india","1234","som","");
@@ -117,6 +129,12 @@ public class AdminMenuTests {
         Assertions.assertNull(employee1);
     }
 
+    @Test
+    public void duplicateUsernameDifferentCaseEmployeeRegister(){
+        Employee employee1 = bankingSystem.verifyEmployee("som","1234","Manan","som");
+        Assertions.assertNull(employee1);
+    }
+
     @Test
     public void emptyPasswordEmployeeRegister(){
         Employee employee1 = bankingSystem.verifyEmployee("som","1234","som","");
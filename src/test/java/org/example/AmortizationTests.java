@@ -0,0 +1,143 @@
+package org.example;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class AmortizationTests {
+    private Customer customer;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() {
+        BankingSystem bank = new BankingSystem();
+        customer = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(customer);
+        customer.addAccount(new SavingsAccount(customer));
+        System.setOut(new PrintStream(outputStream));
+    }
+
+    private static void assertConsistent(AmortizationSchedule schedule) {
+        long repaid = 0;
+        long previous = schedule.getAmountMinor();
+        for (int m = 0; m < schedule.getMonths(); m++) {
+            Assertions.assertEquals(schedule.getInstallmentMinor(m), schedule.getPrincipalPartMinor(m) + schedule.getInterestPartMinor(m));
+            Assertions.assertEquals(previous - schedule.getPrincipalPartMinor(m), schedule.getOutstandingMinor(m));
+            previous = schedule.getOutstandingMinor(m);
+            repaid += schedule.getPrincipalPartMinor(m);
+        }
+        Assertions.assertEquals(0, previous);
+        Assertions.assertEquals(schedule.getAmountMinor(), repaid);
+    }
+
+    @Test
+    public void scheduleRepaysTheLoanInEqualInstallments() {
+        // 100,000.00 at 10.5% over 12 months
+        AmortizationSchedule schedule = Amortization.schedule(10_000_000, 1050, 12);
+        Assertions.assertEquals(881_486, Amortization.installment(10_000_000, 1050, 12));
+        Assertions.assertEquals(87_500, schedule.getInterestPartMinor(0));
+        Assertions.assertEquals(881_486 - 87_500, schedule.getPrincipalPartMinor(0));
+        for (int m = 0; m < 11; m++) {
+            Assertions.assertEquals(881_486, schedule.getInstallmentMinor(m));
+        }
+        Assertions.assertTrue(Math.abs(schedule.getInstallmentMinor(11) - 881_486) <= 12);
+        assertConsistent(schedule);
+
+        AmortizationSchedule free = Amortization.schedule(100_000, 0, 3);
+        Assertions.assertEquals(33_334, free.getInstallmentMinor(0));
+        Assertions.assertEquals(33_332, free.getInstallmentMinor(2));
+        Assertions.assertEquals(0, free.getTotalInterestMinor());
+        assertConsistent(free);
+
+        for (int months: new int[] {1, 7, 60, 360}) {
+            assertConsistent(Amortization.schedule(123_456_789, 2399, months));
+        }
+        assertConsistent(Amortization.schedule(1, 1050, 24));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> customer.applyForLoanMinor(1000, 1050, 0));
+    }
+
+    @Test
+    public void scheduleIsCachedUntilAPayment() {
+        Loan loan = customer.applyForLoanMinor(1_200_000, 1200, 24);
+        loan.approveLoan();
+        AmortizationSchedule schedule = loan.getSchedule();
+        Assertions.assertSame(schedule, loan.getSchedule());
+        Assertions.assertEquals(24, schedule.getMonths());
+
+        customer.payOffLoan(loan.getLoanId(), 2000);
+        AmortizationSchedule reamortized = loan.getSchedule();
+        Assertions.assertNotSame(schedule, reamortized);
+        Assertions.assertEquals(1_000_000, reamortized.getAmountMinor());
+        // 2000.00 covers the principal of the first four installments but not the fifth
+        Assertions.assertTrue(schedule.getOutstandingMinor(3) >= 1_000_000);
+        Assertions.assertTrue(schedule.getOutstandingMinor(4) < 1_000_000);
+        Assertions.assertEquals(20, reamortized.getMonths());
+        Assertions.assertTrue(reamortized.getInstallmentMinor(0) <= schedule.getInstallmentMinor(0));
+        assertConsistent(reamortized);
+    }
+
+    @Test
+    public void paymentsShortenTheScheduleByTheInstallmentsTheyCover() {
+        Loan loan = customer.applyForLoanMinor(600_000, 1050, 12);
+        loan.approveLoan();
+        AmortizationSchedule original = loan.getSchedule();
+        Assertions.assertNull(loan.applyPayment(100));
+        Assertions.assertEquals(12, loan.getSchedule().getMonths());
+
+        // Exactly the principal of the first installment, less what was already paid
+        Assertions.assertNull(loan.applyPayment(original.getPrincipalPartMinor(0) - 100));
+        AmortizationSchedule afterOne = loan.getSchedule();
+        Assertions.assertEquals(11, afterOne.getMonths());
+        Assertions.assertEquals(original.getOutstandingMinor(0), afterOne.getAmountMinor());
+        // The same balance over the same months repays as the original schedule did, up to rounding
+        Assertions.assertTrue(Math.abs(afterOne.getInstallmentMinor(0) - original.getInstallmentMinor(1)) <= 1);
+        assertConsistent(afterOne);
+
+        // A restored loan is scheduled over the same months
+        Loan restored = new Loan(customer, 600_000, loan.getLoanId() + 1_000_000, 1050, 12);
+        restored.restorePayment(loan.getLoanAmountMinor());
+        Assertions.assertEquals(11, restored.getRemainingMonths());
+
+        // Down to the last installment's principal: one month left
+        Assertions.assertNull(loan.applyPayment(loan.getLoanAmountMinor() - original.getOutstandingMinor(10)));
+        Assertions.assertEquals(1, loan.getSchedule().getMonths());
+        assertConsistent(loan.getSchedule());
+    }
+
+    @Test
+    public void portfolioMatchesPerLoanSchedules() {
+        List<Loan> loans = new ArrayList<>();
+        for (int i = 0; i < 3 * Amortization.LOANS_PER_TASK + 17; i++) {
+            loans.add(customer.applyForLoanMinor(10_000 + i * 997L, 500 + i % 2000, 1 + i % 60));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Amortization.Portfolio portfolio;
+        try {
+            portfolio = Amortization.portfolio(loans, pool);
+        } finally {
+            pool.shutdown();
+        }
+        Assertions.assertEquals(loans.size(), portfolio.getLoanCount());
+        long[] due = new long[60];
+        for (int i = 0; i < loans.size(); i++) {
+            AmortizationSchedule schedule = loans.get(i).getSchedule();
+            Assertions.assertEquals(loans.get(i).getLoanId(), portfolio.getLoanId(i));
+            Assertions.assertEquals(schedule.getMonths(), portfolio.getMonths(i));
+            for (int m = 0; m < schedule.getMonths(); m++) {
+                int row = portfolio.getOffset(i) + m;
+                Assertions.assertEquals(schedule.getInstallmentMinor(m), portfolio.getInstallmentMinor(row));
+                Assertions.assertEquals(schedule.getPrincipalPartMinor(m), portfolio.getPrincipalPartMinor(row));
+                Assertions.assertEquals(schedule.getInterestPartMinor(m), portfolio.getInterestPartMinor(row));
+                Assertions.assertEquals(schedule.getOutstandingMinor(m), portfolio.getOutstandingMinor(row));
+                due[m] += schedule.getInstallmentMinor(m);
+            }
+        }
+        Assertions.assertArrayEquals(due, portfolio.getInstallmentsDueMinor());
+    }
+}
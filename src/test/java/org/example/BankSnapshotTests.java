@@ -0,0 +1,177 @@
+package org.example;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+public class BankSnapshotTests {
+    private BankingSystem bank;
+    private Customer jay;
+    private Account first;
+    private Account second;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() {
+        bank = new BankingSystem();
+        jay = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(jay);
+        jay.addAccount(new SavingsAccount(jay));
+        jay.addAccount(new CurrentAccount(jay));
+        first = jay.getAccounts().get(0);
+        second = jay.getAccounts().get(1);
+        first.deposit(100);
+        System.setOut(new PrintStream(outputStream));
+    }
+
+    private static int indexOfLoan(BankSnapshot snapshot, int loanId) {
+        for (int i = 0; i < snapshot.getLoanCount(); i++) {
+            if (snapshot.getLoanId(i) == loanId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void snapshotHoldsBalancesAndLoanStatuses() {
+        Loan pending = jay.applyForLoanMinor(5000);
+        Loan active = jay.applyForLoanMinor(2000);
+        Loan rejected = jay.applyForLoanMinor(1000);
+        active.applyApproval();
+        rejected.applyRejection();
+
+        BankSnapshot snapshot = bank.snapshot();
+        Assertions.assertEquals(2, snapshot.getAccountCount());
+        Assertions.assertEquals(first.getAccountNumber(), snapshot.getAccountNumber(0));
+        Assertions.assertEquals(12000, snapshot.getBalanceMinor(0));
+        Assertions.assertEquals(0, snapshot.getBalanceMinor(1));
+        Assertions.assertEquals("jay", snapshot.getOwnerName(1));
+        Assertions.assertEquals(12000, snapshot.getTotalBalanceMinor());
+        Assertions.assertEquals(BankSnapshot.LoanStatus.PENDING, snapshot.getLoanStatus(indexOfLoan(snapshot, pending.getLoanId())));
+        Assertions.assertEquals(BankSnapshot.LoanStatus.ACTIVE, snapshot.getLoanStatus(indexOfLoan(snapshot, active.getLoanId())));
+        Assertions.assertEquals(BankSnapshot.LoanStatus.CLOSED, snapshot.getLoanStatus(indexOfLoan(snapshot, rejected.getLoanId())));
+        Assertions.assertEquals(1, snapshot.countLoans(BankSnapshot.LoanStatus.PENDING));
+
+        // Later changes leave a taken snapshot alone
+        first.transferMinor(second, 4000);
+        active.applyPayment(500);
+        Assertions.assertEquals(12000, snapshot.getBalanceMinor(0));
+        Assertions.assertEquals(2000, snapshot.getLoanAmountMinor(indexOfLoan(snapshot, active.getLoanId())));
+        BankSnapshot later = bank.snapshot();
+        Assertions.assertEquals(4000, later.getBalanceMinor(1));
+        Assertions.assertEquals(1500, later.getLoanAmountMinor(indexOfLoan(later, active.getLoanId())));
+        Assertions.assertTrue(later.getVersion() > snapshot.getVersion());
+    }
+
+    @Test
+    public void changesMadeDuringAReportBelongToTheNextVersion() {
+        Loan loan = jay.applyForLoanMinor(5000);
+        long[] seen = Versions.read(version -> {
+            first.applyTransfer(second, 3000);
+            second.applyWithdrawal(1000);
+            loan.applyApproval();
+            jay.addAccount(new SavingsAccount(jay));
+            return new long[] {first.balanceAt(version), second.balanceAt(version), loan.isApprovedAt(version) ? 1 : 0,
+                    jay.getAccounts().get(2).existsAt(version) ? 1 : 0};
+        });
+        Assertions.assertArrayEquals(new long[] {10000, 0, 0, 0}, seen);
+        Assertions.assertEquals(12000, first.getBalanceMinor());
+        BankSnapshot snapshot = bank.snapshot();
+        Assertions.assertEquals(3, snapshot.getAccountCount());
+        Assertions.assertEquals(14000, snapshot.getTotalBalanceMinor());
+        Assertions.assertEquals(1, snapshot.countLoans(BankSnapshot.LoanStatus.ACTIVE));
+    }
+
+    @Test
+    public void writersDoNotWaitForAReport() throws InterruptedException {
+        CountDownLatch written = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            first.applyTransfer(second, 2500);
+            first.applyDeposit(100);
+            written.countDown();
+        });
+        boolean[] finished = new boolean[1];
+        long total = Versions.read(version -> {
+            writer.start();
+            try {
+                finished[0] = written.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return first.balanceAt(version) + second.balanceAt(version);
+        });
+        writer.join();
+        Assertions.assertTrue(finished[0]);
+        Assertions.assertEquals(10000, total);
+        Assertions.assertEquals(10100, bank.snapshot().getTotalBalanceMinor());
+    }
+
+    private void reportsSeeEveryTransferWhole(Account.Mode mode) throws InterruptedException {
+        Account.Mode previous = Account.getDefaultMode();
+        Account.setDefaultMode(mode);
+        List < Account > accounts = new ArrayList < > ();
+        try {
+            Customer ria = new Customer("ria","india","5678","ria","ria");
+            bank.addCustomer(ria);
+            for (int i = 0; i < 16; i++) {
+                Account account = new SavingsAccount(ria);
+                ria.addAccount(account);
+                account.applyDeposit(1000);
+                accounts.add(account);
+            }
+        } finally {
+            Account.setDefaultMode(previous);
+        }
+        long total = bank.snapshot().getTotalBalanceMinor();
+        List < Thread > writers = new ArrayList < > ();
+        for (int t = 0; t < 4; t++) {
+            Thread writer = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 20_000; i++) {
+                    Account from = accounts.get(random.nextInt(accounts.size()));
+                    Account to = accounts.get(random.nextInt(accounts.size()));
+                    from.applyTransfer(to, 1 + random.nextInt(300));
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        int reports = 0;
+        while (writers.stream().anyMatch(Thread::isAlive) || reports == 0) {
+            Assertions.assertEquals(total, bank.snapshot().getTotalBalanceMinor());
+            reports++;
+        }
+        for (Thread writer: writers) {
+            writer.join();
+        }
+        Assertions.assertEquals(total, bank.snapshot().getTotalBalanceMinor());
+    }
+
+    @Test
+    public void reportsSeeEveryTransferWholeWithLocking() throws InterruptedException {
+        reportsSeeEveryTransferWhole(Account.Mode.LOCKING);
+    }
+
+    @Test
+    public void reportsSeeEveryTransferWholeWhenLockFree() throws InterruptedException {
+        reportsSeeEveryTransferWhole(Account.Mode.LOCK_FREE);
+    }
+
+    @Test
+    public void bankReportPrintsEveryAccountAndTheTotal() {
+        BankingSystem.printBankReport(bank.snapshot());
+        String output = outputStream.toString();
+        Assertions.assertTrue(output.contains("Account Number: " + first.getAccountNumber() + " \tBalance: 100.0 \tOwner: jay"));
+        Assertions.assertTrue(output.contains("Total balance: 100.0"));
+        Assertions.assertTrue(output.contains("Loans: 0 pending, 0 active, 0 closed"));
+    }
+}
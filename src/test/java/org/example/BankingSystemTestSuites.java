@@ -5,6 +5,6 @@ import org.junit.runners.Suite;
 
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({MainMenuTests.class,CustomerClassTests.class, CustomerMenuTests.class, EmployeeClassTests.class, EmployeeLoansTests.class, AdminMenuTests.class})
+@Suite.SuiteClasses({MainMenuTests.class,CustomerClassTests.class, CustomerMenuTests.class, EmployeeClassTests.class, EmployeeLoansTests.class, AdminMenuTests.class, AccountIndexTests.class, MoneyTests.class, JournalTests.class, SnapshotTests.class, TransferBatchTests.class, InterestPostingJobTests.class, CommandProcessorTests.class, BulkImporterTests.class, WorkloadTests.class, MetricsTests.class, EventSinkTests.class, TransactionHistoryTests.class, StatementJobTests.class, AmortizationTests.class, LoanApprovalQueueTests.class, CommandPipelineTests.class, IdempotencyTests.class, IdAllocatorTests.class, BankSnapshotTests.class})
 public class BankingSystemTestSuites {
 }
@@ -0,0 +1,105 @@
+package org.example;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+public class BulkImporterTests {
+    private BankingSystem bank;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() {
+        bank = new BankingSystem();
+        Customer jay = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(jay);
+        jay.addAccount(new SavingsAccount(jay));
+        System.setOut(new PrintStream(outputStream));
+    }
+
+    @Test
+    public void importsValidRowsAndRejectsTheRest() throws IOException {
+        String csv = "name,address,phone,username,password,type,balance\n"
+                + "Ria,\"12 Park Street, Kolkata\",5678,ria,pw,SAVINGS,100.25\n"
+                + "Sam,x,1,sam,pw,2,0\r\n"
+                + "\n"
+                + "Jay Two,x,1,JAY,pw,1,5\n"
+                + "Ria Again,x,1,ria,pw,1,5\n"
+                + "Bad,x,1,bad,pw,3,5\n"
+                + "Bad,x,1,bad,pw,1,-5\n"
+                + "Bad,x,1,bad,pw,1,1.005\n"
+                + "Bad,x,1,bad,pw,1\n"
+                + "Blank,x,,blank,pw,1,1\n"
+                + "\"Say \"\"Hi\"\"\",x,1,quote,pw,current,7";
+        StringWriter rejects = new StringWriter();
+        BulkImporter importer = new BulkImporter(bank, ',', 64, new ForkJoinPool(2));
+        BulkImporter.Report report = importer.importFrom(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), rejects);
+
+        Assertions.assertEquals(10, report.getRows());
+        Assertions.assertEquals(3, report.getImported());
+        Assertions.assertEquals(7, report.getRejected());
+        Assertions.assertEquals("5\tUsername already exists\tJay Two,x,1,JAY,pw,1,5\n"
+                + "6\tUsername already exists\tRia Again,x,1,ria,pw,1,5\n"
+                + "7\tInvalid account type\tBad,x,1,bad,pw,3,5\n"
+                + "8\tInvalid opening balance\tBad,x,1,bad,pw,1,-5\n"
+                + "9\tInvalid opening balance\tBad,x,1,bad,pw,1,1.005\n"
+                + "10\tExpected 7 fields, found 6\tBad,x,1,bad,pw,1\n"
+                + "11\tCustomer phone number cannot be blank\tBlank,x,,blank,pw,1,1\n", rejects.toString());
+
+        Customer ria = bank.findCustomerByUsername("ria");
+        Assertions.assertEquals("12 Park Street, Kolkata", ria.getAddress());
+        Assertions.assertTrue(ria.getAccounts().get(0) instanceof SavingsAccount);
+        Assertions.assertEquals(10025, ria.getAccounts().get(0).getBalanceMinor());
+        Customer sam = bank.findCustomerByUsername("sam");
+        Assertions.assertTrue(sam.getAccounts().get(0) instanceof CurrentAccount);
+        Assertions.assertEquals(0, sam.getAccounts().get(0).getTransactions().size());
+        Assertions.assertEquals("Say \"Hi\"", bank.findCustomerByUsername("quote").getName());
+        Assertions.assertEquals(ria.getCustomerNumber() + 1, sam.getCustomerNumber());
+        Assertions.assertEquals(ria.getAccounts().get(0), bank.findAccountByNumber(ria.getAccounts().get(0).getAccountNumber()));
+        Assertions.assertEquals("", outputStream.toString());
+    }
+
+    @Test
+    public void importIsJournaledAndReplays() throws IOException {
+        Path journalPath = Files.createTempFile("banking", ".journal");
+        Path tsv = Files.createTempFile("customers", ".tsv");
+        Path rejects = Files.createTempFile("customers", ".rejects");
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            rows.append("Customer ").append(i).append("\taddr\t").append(i).append("\tuser").append(i)
+                    .append("\tpw\t").append(i % 2 + 1).append('\t').append(i).append(".50\n");
+        }
+        Files.write(tsv, rows.toString().getBytes(StandardCharsets.UTF_8));
+        BankingSystem journaled = new BankingSystem();
+        journaled.setJournal(Journal.open(journalPath, Journal.Durability.BATCHED));
+        BulkImporter.Report report = BulkImporter.forFile(journaled, tsv).importFile(tsv, rejects);
+        journaled.getJournal().close();
+        Assertions.assertEquals(500, report.getImported());
+        Assertions.assertEquals(0, Files.size(rejects));
+
+        BankingSystem recovered = new BankingSystem();
+        JournalReplayer.replay(journalPath, recovered);
+        for (int i = 0; i < 500; i += 37) {
+            Customer original = journaled.findCustomerByUsername("user" + i);
+            Customer replayed = recovered.findCustomerByUsername("user" + i);
+            Assertions.assertEquals(original.getCustomerNumber(), replayed.getCustomerNumber());
+            Account account = replayed.getAccounts().get(0);
+            Assertions.assertEquals(original.getAccounts().get(0).getAccountNumber(), account.getAccountNumber());
+            Assertions.assertEquals(i * 100L + 50, account.getBalanceMinor());
+            Assertions.assertEquals(i % 2 == 0, account instanceof SavingsAccount);
+        }
+        Files.delete(journalPath);
+        Files.delete(tsv);
+        Files.delete(rejects);
+    }
+}
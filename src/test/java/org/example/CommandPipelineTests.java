@@ -0,0 +1,153 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class CommandPipelineTests {
+    private BankingSystem bank;
+    private Customer jay;
+    private Account first;
+    private Account second;
+    private CommandPipeline pipeline;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() {
+        bank = new BankingSystem();
+        jay = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(jay);
+        jay.addAccount(new SavingsAccount(jay));
+        jay.addAccount(new CurrentAccount(jay));
+        first = jay.getAccounts().get(0);
+        second = jay.getAccounts().get(1);
+        System.setOut(new PrintStream(outputStream));
+    }
+
+    @After
+    public void tearDown() {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    private static CommandProcessor.Error errorOf(CompletableFuture<Long> result) {
+        CompletionException e = Assertions.assertThrows(CompletionException.class, result::join);
+        Assertions.assertInstanceOf(CommandPipeline.CommandFailedException.class, e.getCause());
+        return ((CommandPipeline.CommandFailedException) e.getCause()).getError();
+    }
+
+    @Test
+    public void moneyCommandsCompleteWithBalances() {
+        pipeline = new CommandPipeline(bank, CommandPipeline.WaitStrategy.PARK);
+        Assertions.assertEquals(10_000, pipeline.deposit(first.getAccountNumber(), 10_000).join());
+        Assertions.assertEquals(7_500, pipeline.withdraw(first.getAccountNumber(), 2_500).join());
+        Assertions.assertEquals(5_000, pipeline.transfer(first.getAccountNumber(), second.getAccountNumber(), 2_500).join());
+        Assertions.assertEquals(5_000, first.getBalanceMinor());
+        Assertions.assertEquals(2_500, second.getBalanceMinor());
+        Assertions.assertEquals(4, first.getTransactionLog().size());
+    }
+
+    @Test
+    public void failuresCompleteExceptionallyWithoutChanges() {
+        pipeline = new CommandPipeline(bank, CommandPipeline.WaitStrategy.YIELD);
+        Assertions.assertEquals(CommandProcessor.Error.NO_ACCOUNT, errorOf(pipeline.deposit(-1, 100)));
+        Assertions.assertEquals(CommandProcessor.Error.REJECTED, errorOf(pipeline.deposit(first.getAccountNumber(), 0)));
+        Assertions.assertEquals(CommandProcessor.Error.REJECTED, errorOf(pipeline.withdraw(first.getAccountNumber(), 1)));
+        Assertions.assertEquals(CommandProcessor.Error.NO_ACCOUNT, errorOf(pipeline.transfer(first.getAccountNumber(), -1, 1)));
+        Assertions.assertEquals(CommandProcessor.Error.NO_CUSTOMER, errorOf(pipeline.applyForLoan("nobody", 100)));
+        Assertions.assertEquals(CommandProcessor.Error.NO_LOAN, errorOf(pipeline.approveLoan(-1)));
+        Assertions.assertEquals(0, first.getBalanceMinor());
+        Assertions.assertEquals(0, first.getTransactionLog().size());
+        // The pipeline keeps going after failures
+        Assertions.assertEquals(100, pipeline.deposit(first.getAccountNumber(), 100).join());
+    }
+
+    @Test
+    public void loanCommandsApplyApproveAndPay() {
+        pipeline = new CommandPipeline(bank, CommandPipeline.WaitStrategy.PARK);
+        int loanId = pipeline.applyForLoan("jay", 50_000).join().intValue();
+        Assertions.assertEquals(CommandProcessor.Error.REJECTED, errorOf(pipeline.payLoan(loanId, 1_000)));
+        Assertions.assertEquals(50_000, pipeline.approveLoan(loanId).join());
+        Assertions.assertEquals(CommandProcessor.Error.REJECTED, errorOf(pipeline.approveLoan(loanId)));
+        Assertions.assertEquals(50_000, first.getBalanceMinor());
+        Assertions.assertEquals(40_000, pipeline.payLoan(loanId, 10_000).join());
+        Assertions.assertEquals(40_000, bank.findLoanByLoanNumber(loanId).getLoanAmountMinor());
+        first.applyWithdrawal(first.getBalanceMinor());
+        Assertions.assertEquals(CommandProcessor.Error.REJECTED, errorOf(pipeline.payLoan(loanId, 10_000)));
+        Assertions.assertEquals(40_000, bank.findLoanByLoanNumber(loanId).getLoanAmountMinor());
+        Assertions.assertEquals("", outputStream.toString());
+    }
+
+    @Test
+    public void concurrentProducersHaveEveryCommandExecutedOnce() throws InterruptedException {
+        for (CommandPipeline.WaitStrategy strategy: CommandPipeline.WaitStrategy.values()) {
+            // A small ring makes producers wait for free slots
+            CommandPipeline small = new CommandPipeline(bank, strategy, 8);
+            long before = first.getBalanceMinor();
+            int perThread = 5_000;
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread producer = new Thread(() -> {
+                    CompletableFuture<Long> last = null;
+                    for (int i = 0; i < perThread; i++) {
+                        last = small.deposit(first.getAccountNumber(), 1);
+                    }
+                    last.join();
+                });
+                producers.add(producer);
+                producer.start();
+            }
+            for (Thread producer: producers) {
+                producer.join();
+            }
+            small.close();
+            Assertions.assertEquals(before + 4 * perThread, first.getBalanceMinor(), strategy.name());
+            Assertions.assertEquals(4 * perThread, small.getCommands(), strategy.name());
+            Assertions.assertTrue(small.getBatches() <= small.getCommands());
+        }
+    }
+
+    @Test
+    public void closeExecutesPublishedCommandsAndRefusesLaterOnes() {
+        pipeline = new CommandPipeline(bank, CommandPipeline.WaitStrategy.PARK);
+        List<CompletableFuture<Long>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            results.add(pipeline.deposit(first.getAccountNumber(), 1));
+        }
+        pipeline.close();
+        for (CompletableFuture<Long> result: results) {
+            Assertions.assertTrue(result.isDone());
+        }
+        Assertions.assertEquals(100, first.getBalanceMinor());
+        Assertions.assertThrows(IllegalStateException.class, () -> pipeline.deposit(first.getAccountNumber(), 1));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new CommandPipeline(bank, CommandPipeline.WaitStrategy.PARK, 100));
+    }
+
+    @Test
+    public void menusPrintTheSameThroughThePipeline() {
+        bank.depositMoney(bank, first.getAccountNumber(), new Scanner("100\n"));
+        bank.withdrawMoney(bank, first.getAccountNumber(), new Scanner("500\n"));
+        bank.transferMoney(bank, first.getAccountNumber(), new Scanner("-1 10\n"));
+        String direct = outputStream.toString();
+        outputStream.reset();
+
+        pipeline = new CommandPipeline(bank, CommandPipeline.WaitStrategy.PARK);
+        bank.setCommandPipeline(pipeline);
+        bank.depositMoney(bank, first.getAccountNumber(), new Scanner("100\n"));
+        bank.withdrawMoney(bank, first.getAccountNumber(), new Scanner("500\n"));
+        bank.transferMoney(bank, first.getAccountNumber(), new Scanner("-1 10\n"));
+        Assertions.assertEquals(direct, outputStream.toString());
+        Assertions.assertEquals(20_000, first.getBalanceMinor());
+    }
+}
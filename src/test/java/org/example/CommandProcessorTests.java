@@ -0,0 +1,169 @@
+package org.example;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class CommandProcessorTests {
+    private BankingSystem bank;
+    private Account savings;
+    private Account current;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() {
+        bank = new BankingSystem();
+        Customer jay = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(jay);
+        jay.addAccount(new SavingsAccount(jay));
+        jay.addAccount(new CurrentAccount(jay));
+        savings = jay.getAccounts().get(0);
+        current = jay.getAccounts().get(1);
+        System.setOut(new PrintStream(outputStream));
+    }
+
+    private String runText(String script) throws IOException {
+        ByteArrayOutputStream results = new ByteArrayOutputStream();
+        new CommandProcessor(bank, new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)), results).run();
+        return results.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void textScriptWritesOneResultPerCommand() throws IOException {
+        int s = savings.getAccountNumber();
+        int c = current.getAccountNumber();
+        String script = "# money movements\n"
+                + "DEPOSIT " + s + " 100.50\n"
+                + "\n"
+                + "withdraw " + s + " 0.5\n"
+                + "TRANSFER " + s + " " + c + " 25\r\n"
+                + "WITHDRAW " + s + " 1000\n"
+                + "WITHDRAW " + c + " 1000\n"
+                + "BALANCE -7\n"
+                + "DEPOSIT " + s + " 1.234\n"
+                + "FLY " + s + "\n"
+                + "BALANCE " + s;
+        String expected = "OK 100.50\n"
+                + "OK 100.00\n"
+                + "OK 75.00\n"
+                + "ERR REJECTED\n"
+                + "ERR REJECTED\n"
+                + "ERR NO_ACCOUNT\n"
+                + "ERR MALFORMED\n"
+                + "ERR MALFORMED\n"
+                + "OK 75.00\n";
+        Assertions.assertEquals(expected, runText(script));
+        Assertions.assertEquals(2500, current.getBalanceMinor());
+        Assertions.assertEquals("", outputStream.toString());
+    }
+
+    @Test
+    public void registersCustomersAndRunsLoans() throws IOException {
+        String results = runText("REGISTER \"Ria Sen\" \"12 Park Street\" 5678 ria secret\n"
+                + "REGISTER Other x 1 RIA pw\n"
+                + "OPEN ria savings\n"
+                + "LOAN nobody 10\n");
+        String[] lines = results.split("\n");
+        Assertions.assertEquals(4, lines.length);
+        Assertions.assertEquals("ERR REJECTED", lines[1]);
+        Assertions.assertEquals("ERR NO_CUSTOMER", lines[3]);
+        Customer ria = bank.findCustomerByUsername("ria");
+        Assertions.assertEquals("Ria Sen", ria.getName());
+        Assertions.assertEquals("12 Park Street", ria.getAddress());
+        Assertions.assertEquals("OK " + ria.getCustomerNumber(), lines[0]);
+        Account account = ria.getAccounts().get(0);
+        Assertions.assertEquals("OK " + account.getAccountNumber(), lines[2]);
+
+        results = runText("LOAN ria 50\n");
+        int loanId = Integer.parseInt(results.trim().substring(3));
+        results = runText("PAY " + loanId + " 10\n"
+                + "APPROVE " + loanId + "\n"
+                + "APPROVE " + loanId + "\n"
+                + "PAY " + loanId + " 20\n"
+                + "PAY " + loanId + " 31\n"
+                + "APPROVE 1\n");
+        Assertions.assertEquals("ERR REJECTED\nOK\nERR REJECTED\nOK 30.00\nERR REJECTED\nERR NO_LOAN\n", results);
+        Assertions.assertEquals(3000, account.getBalanceMinor());
+        Assertions.assertEquals("", outputStream.toString());
+    }
+
+    @Test
+    public void journaledCommandsWaitOnceForTheWholeBuffer() throws IOException {
+        Path journalPath = Files.createTempFile("banking", ".journal");
+        Journal journal = Journal.open(journalPath, Journal.Durability.BATCHED);
+        bank.setJournal(journal);
+        try {
+            int s = savings.getAccountNumber();
+            savings.applyDeposit(10000);
+            Loan loan = bank.findCustomerByUsername("jay").applyForLoanMinor(5000);
+            loan.applyApproval();
+            Metrics.reset();
+            String results = runText("REGISTER Ria x 5678 ria secret\n"
+                    + "DEPOSIT " + s + " 1\n"
+                    + "INTEREST " + s + "\n"
+                    + "PAY " + loan.getLoanId() + " 10\n"
+                    + "PAY " + loan.getLoanId() + " 1000\n");
+            String[] lines = results.split("\n");
+            Assertions.assertEquals(5, lines.length);
+            Assertions.assertTrue(lines[2].startsWith("OK "));
+            Assertions.assertEquals("OK 40.00", lines[3]);
+            Assertions.assertEquals("ERR REJECTED", lines[4]);
+            if (Metrics.ENABLED) {
+                Assertions.assertEquals(1, Metrics.getCount(Metrics.Operation.JOURNAL_WAIT));
+            }
+            Assertions.assertEquals("", outputStream.toString());
+        } finally {
+            bank.setJournal(null);
+            journal.close();
+            Files.deleteIfExists(journalPath);
+        }
+    }
+
+    @Test
+    public void binaryScriptWritesStatusAndValue() throws IOException {
+        ByteArrayOutputStream script = new ByteArrayOutputStream();
+        DataOutputStream commands = new DataOutputStream(script);
+        commands.writeInt(CommandProcessor.BINARY_MAGIC);
+        commands.writeByte(CommandProcessor.DEPOSIT);
+        commands.writeInt(savings.getAccountNumber());
+        commands.writeLong(12345);
+        commands.writeByte(CommandProcessor.TRANSFER);
+        commands.writeInt(savings.getAccountNumber());
+        commands.writeInt(current.getAccountNumber());
+        commands.writeLong(345);
+        commands.writeByte(CommandProcessor.BALANCE);
+        commands.writeInt(-1);
+        commands.writeByte(CommandProcessor.OPEN);
+        byte[] username = "jay".getBytes(StandardCharsets.UTF_8);
+        commands.writeInt(username.length);
+        commands.write(username);
+        commands.writeInt(2);
+        commands.flush();
+
+        ByteArrayOutputStream results = new ByteArrayOutputStream();
+        CommandProcessor processor = new CommandProcessor(bank, new ByteArrayInputStream(script.toByteArray()), results);
+        Assertions.assertEquals(4, processor.run());
+        Assertions.assertEquals(1, processor.getFailures());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(results.toByteArray()));
+        Assertions.assertEquals(0, in.readByte());
+        Assertions.assertEquals(12345, in.readLong());
+        Assertions.assertEquals(0, in.readByte());
+        Assertions.assertEquals(12000, in.readLong());
+        Assertions.assertEquals(CommandProcessor.Error.NO_ACCOUNT.ordinal() + 1, in.readByte());
+        Assertions.assertEquals(0, in.readLong());
+        Assertions.assertEquals(0, in.readByte());
+        Assertions.assertEquals(bank.findCustomerByUsername("jay").getAccounts().get(2).getAccountNumber(), in.readLong());
+        Assertions.assertEquals(-1, in.read());
+    }
+}
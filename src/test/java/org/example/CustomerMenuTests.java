@@ -75,4 +75,91 @@ public class CustomerMenuTests {
         String output = outputStream.toString();
         Assertions.assertTrue(output.contains("Insufficient balance or invalid amount."));
     }
+
+    @Test
+    public void overdraftTransferChangesNothing() {
+        accountB.deposit(100);
+        int historySize = accountB.getTransactions().size();
+        outputStream.reset();
+        accountB.transfer(accountA, 200);
+        Assertions.assertEquals(100.0, accountB.getBalance());
+        Assertions.assertEquals(0.0, accountA.getBalance());
+        Assertions.assertEquals(historySize, accountB.getTransactions().size());
+        Assertions.assertTrue(accountA.getTransactions().isEmpty());
+    }
+
+    @Test
+    public void concurrentOppositeTransfersConserveMoney() throws InterruptedException {
+        accountA.deposit(100000);
+        accountB.deposit(100000);
+        Thread forward = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                accountA.transfer(accountB, 1);
+            }
+        });
+        Thread backward = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                accountB.transfer(accountA, 1);
+            }
+        });
+        forward.start();
+        backward.start();
+        forward.join(10000);
+        backward.join(10000);
+        Assertions.assertFalse(forward.isAlive() || backward.isAlive(), "transfers deadlocked");
+        Assertions.assertEquals(200000.0, accountA.getBalance() + accountB.getBalance());
+        Assertions.assertEquals(100000.0, accountA.getBalance());
+    }
+
+    @Test
+    public void lockFreeWithdrawNeverOverdraws() throws InterruptedException {
+        Account.Mode previous = Account.getDefaultMode();
+        Account.setDefaultMode(Account.Mode.LOCK_FREE);
+        Account lockFreeAccount;
+        try {
+            lockFreeAccount = new CurrentAccount(customerA);
+        } finally {
+            Account.setDefaultMode(previous);
+        }
+        Assertions.assertEquals(Account.Mode.LOCK_FREE, lockFreeAccount.getMode());
+        lockFreeAccount.deposit(1000);
+        Thread[] workers = new Thread[4];
+        for (int t = 0; t < workers.length; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    lockFreeAccount.withdraw(1);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker: workers) {
+            worker.join();
+        }
+        Assertions.assertEquals(0.0, lockFreeAccount.getBalance());
+        Assertions.assertEquals(1001, lockFreeAccount.getTransactions().size());
+    }
+
+    @Test
+    public void transactionHistoryKeepsOrderAcrossChunks() {
+        for (int i = 1; i <= 3000; i++) {
+            accountA.deposit(1);
+        }
+        accountA.transfer(accountB, 5);
+        List<Transaction> history = accountA.getTransactions();
+        Assertions.assertEquals(3002, history.size());
+        Assertions.assertEquals("Deposit of 1.00, New balance: 1.00", history.get(0).toString());
+        Assertions.assertEquals("Deposit of 1.00, New balance: 2500.00", history.get(2499).toString());
+        Assertions.assertEquals("Withdraw of 5.00, New balance: 2995.00", history.get(3000).toString());
+        Assertions.assertEquals("Transfer of 5.00, New balance: 2995.00, Transferred to account: "
+                + accountB.getAccountNumber(), history.get(3001).toString());
+    }
+
+    @Test
+    public void transactionViewIsStableWhileAppending() {
+        accountA.deposit(10);
+        List<Transaction> history = accountA.getTransactions();
+        accountA.deposit(10);
+        Assertions.assertEquals(1, history.size());
+        Assertions.assertEquals(2, accountA.getTransactions().size());
+    }
 }
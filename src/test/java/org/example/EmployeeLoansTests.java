@@ -105,4 +105,89 @@ public class EmployeeLoansTests {
         customer.payOffLoan(customer.getLoans().getLast().getLoanId(), 1000.0);
         Assertions.assertTrue(customer.getLoans().getLast().isClosed());
     }
+
+    @Test
+    public void testApprovedLoanMovesToExisting() {
+        customer.applyForLoan(1000.0);
+        Loan newLoan = bankingSystem.getUnapprovedLoans().get(0);
+        newLoan.approveLoan();
+        Assertions.assertTrue(bankingSystem.getUnapprovedLoans().isEmpty());
+        Assertions.assertEquals(1, bankingSystem.getApprovedLoans().size());
+        Assertions.assertTrue(bankingSystem.getClosedLoans().isEmpty());
+    }
+
+    @Test
+    public void testClosedLoanLeavesExisting() {
+        customer.applyForLoan(1000.0);
+        Loan newLoan = customer.getLoans().getLast();
+        newLoan.approveLoan();
+        customer.payOffLoan(newLoan.getLoanId(), 1000.0);
+        Assertions.assertTrue(bankingSystem.getApprovedLoans().isEmpty());
+        Assertions.assertEquals(newLoan, bankingSystem.getClosedLoans().get(0));
+        Assertions.assertTrue(customer.getExistingLoans().isEmpty());
+        Assertions.assertEquals(1, customer.getOlderLoans().size());
+    }
+
+    @Test
+    public void testFindLoanByLoanNumber() {
+        customer.applyForLoan(1000.0);
+        Loan newLoan = customer.getLoans().getLast();
+        Assertions.assertEquals(newLoan, bankingSystem.findLoanByLoanNumber(newLoan.getLoanId()));
+        Assertions.assertNull(bankingSystem.findLoanByLoanNumber(-1));
+    }
+
+    @Test
+    public void testLoanAppliedBeforeRegistration() {
+        BankingSystem bankingSystem1 = new BankingSystem();
+        Customer customer1 = new Customer("som","india","1234","som","som");
+        customer1.addAccount(new SavingsAccount(customer1));
+        customer1.applyForLoan(500.0);
+        bankingSystem1.addCustomer(customer1);
+        Assertions.assertEquals(1, bankingSystem1.getUnapprovedLoans().size());
+        Assertions.assertNotNull(bankingSystem1.findLoanByLoanNumber(customer1.getLoans().getFirst().getLoanId()));
+    }
+
+    @Test
+    public void testPaymentOfTheWholeBalanceDebitsIt() {
+        customer.applyForLoan(1000.0);
+        Loan newLoan = customer.getLoans().getLast();
+        newLoan.approveLoan();
+        customer.payOffLoan(newLoan.getLoanId(), 1000.0);
+        Assertions.assertTrue(newLoan.isClosed());
+        Assertions.assertEquals(0, customer.getAccounts().get(0).getBalanceMinor());
+    }
+
+    @Test
+    public void testPaymentNotCoveredByTheBalanceLeavesTheLoan() {
+        Customer customer1 = new Customer("som","india","1234","som","som");
+        customer1.addAccount(new CurrentAccount(customer1));
+        bankingSystem.addCustomer(customer1);
+        Loan newLoan = customer1.applyForLoanMinor(100_000);
+        newLoan.applyApproval();
+        customer1.getAccounts().get(0).applyWithdrawal(60_000);
+        // The overdraft cannot pay a loan
+        Assertions.assertEquals(Loan.NOT_ENOUGH_BALANCE, newLoan.applyPayment(50_000));
+        Assertions.assertEquals(100_000, newLoan.getLoanAmountMinor());
+        Assertions.assertEquals(40_000, customer1.getAccounts().get(0).getBalanceMinor());
+    }
+
+    @Test
+    public void testConcurrentPaymentsOnlyReduceTheLoanByMoneyDebited() throws InterruptedException {
+        Loan newLoan = customer.applyForLoanMinor(100_000);
+        newLoan.applyApproval();
+        Account account = customer.getAccounts().get(0);
+        account.applyWithdrawal(30_000);
+        List < Thread > payers = new java.util.ArrayList < > ();
+        for (int t = 0; t < 8; t++) {
+            Thread payer = new Thread(() -> newLoan.applyPayment(20_000));
+            payers.add(payer);
+            payer.start();
+        }
+        for (Thread payer: payers) {
+            payer.join();
+        }
+        // 70_000 covers three payments of 20_000
+        Assertions.assertEquals(40_000, newLoan.getLoanAmountMinor());
+        Assertions.assertEquals(10_000, account.getBalanceMinor());
+    }
 }
@@ -0,0 +1,102 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+
+public class EventSinkTests {
+    private Account account;
+    private EventSink previous;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() {
+        BankingSystem bank = new BankingSystem();
+        Customer jay = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(jay);
+        jay.addAccount(new SavingsAccount(jay));
+        account = jay.getAccounts().get(0);
+        System.setOut(new PrintStream(outputStream));
+        previous = Events.getSink();
+    }
+
+    @After
+    public void tearDown() {
+        Events.setSink(previous);
+    }
+
+    @Test
+    public void silentSinkDropsMessages() {
+        Events.setSink(EventSink.SILENT);
+        account.withdraw(10);
+        account.deposit(-1);
+        account.getOwner().payOffLoan(1, 1);
+        Assertions.assertEquals("", outputStream.toString());
+    }
+
+    @Test
+    public void asyncSinkWritesEventsInOrder() {
+        ByteArrayOutputStream asyncOutput = new ByteArrayOutputStream();
+        AsyncEventSink sink = new AsyncEventSink(new PrintStream(asyncOutput), 64);
+        Events.setSink(sink);
+        account.withdraw(10);
+        account.deposit(-1);
+        account.applyInterest();
+        account.getOwner().applyForLoan(250);
+        sink.close();
+        String n = System.lineSeparator();
+        Assertions.assertTrue(asyncOutput.toString().startsWith("Insufficient balance or invalid amount." + n
+                + "Amount to deposit should be positive." + n
+                + "Amount to deposit should be positive." + n
+                + "Interest applied: 0.0" + n
+                + "Loan application for 250.0 submitted." + n
+                + "You loan unique id is: "), asyncOutput.toString());
+        Assertions.assertEquals("", outputStream.toString());
+    }
+
+    @Test
+    public void asyncSinkDropsAndCountsUnderBackPressure() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        OutputStream stalled = new OutputStream() {
+            @Override
+            public void write(int b) {
+                awaitRelease();
+                written.write(b);
+            }
+            @Override
+            public void write(byte[] b, int off, int len) {
+                awaitRelease();
+                written.write(b, off, len);
+            }
+            private void awaitRelease() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        AsyncEventSink sink = new AsyncEventSink(new PrintStream(stalled), 16);
+        // The writer takes the first event, then stalls writing it out
+        sink.publish(Event.LOAN_NOT_FOUND, null, 0, 0);
+        Thread.sleep(50);
+        for (int i = 0; i < 100; i++) {
+            sink.publish(Event.REJECTED, "rejected " + i, 0, 0);
+        }
+        long dropped = sink.getDropped();
+        Assertions.assertTrue(dropped >= 100 - 16, "dropped " + dropped);
+        release.countDown();
+        sink.close();
+        String text = written.toString();
+        Assertions.assertTrue(text.startsWith("Loan not found."), text);
+        Assertions.assertTrue(text.contains("rejected 0" + System.lineSeparator()), text);
+        Assertions.assertTrue(text.contains(dropped + " events dropped"), text);
+    }
+}
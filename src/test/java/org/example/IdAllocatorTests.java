@@ -0,0 +1,131 @@
+package org.example;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class IdAllocatorTests {
+    private static long[] allocateConcurrently(IdAllocator allocator, int threads, int perThread) throws InterruptedException {
+        long[] ids = new long[threads * perThread];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    ids[offset + i] = allocator.next();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker: workers) {
+            worker.join();
+        }
+        return ids;
+    }
+
+    private static void assertDistinct(long[] ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < sorted.length; i++) {
+            Assertions.assertNotEquals(sorted[i - 1], sorted[i]);
+        }
+    }
+
+    @Test
+    public void threadsGetDistinctIdsFromTheirOwnBlocks() throws InterruptedException {
+        BlockIdAllocator allocator = new BlockIdAllocator(1, 16);
+        long[] ids = allocateConcurrently(allocator, 8, 10_000);
+        assertDistinct(ids);
+        for (long id: ids) {
+            Assertions.assertTrue(id >= 1 && id < allocator.peekNext());
+        }
+        // Consecutive within a thread's block
+        Assertions.assertEquals(ids[0] + 1, ids[1]);
+        assertDistinct(allocateConcurrently(new SequentialIdAllocator(1), 8, 10_000));
+    }
+
+    @Test
+    public void partitionsDoNotOverlapThreadBlocks() {
+        BlockIdAllocator allocator = new BlockIdAllocator(0, 4);
+        IdAllocator first = allocator.partition();
+        IdAllocator second = allocator.partition();
+        long[] ids = new long[30];
+        for (int i = 0; i < 10; i++) {
+            ids[3 * i] = first.next();
+            ids[3 * i + 1] = second.next();
+            ids[3 * i + 2] = allocator.next();
+        }
+        assertDistinct(ids);
+        Assertions.assertEquals(first.peekNext(), allocator.peekNext());
+    }
+
+    @Test
+    public void advanceSkipsIdsAlreadyInABlock() {
+        BlockIdAllocator allocator = new BlockIdAllocator(0, 100);
+        Assertions.assertEquals(0, allocator.next());
+        // Recovery restored id 50, which this thread's block also covers
+        allocator.advanceTo(51);
+        Assertions.assertEquals(100, allocator.next());
+        allocator.advanceTo(10);
+        Assertions.assertEquals(101, allocator.next());
+        Assertions.assertEquals(200, allocator.peekNext());
+    }
+
+    @Test
+    public void idsAreSixtyFourBit() {
+        long first = 1L << 40;
+        BlockIdAllocator allocator = new BlockIdAllocator(first, 8);
+        Assertions.assertEquals(first, allocator.next());
+        SequentialIdAllocator sequential = new SequentialIdAllocator(Integer.MAX_VALUE);
+        sequential.next();
+        Assertions.assertEquals(Integer.MAX_VALUE + 1L, sequential.next());
+    }
+
+    @Test
+    public void restartsResumeAboveEveryIdHandedOut() throws IOException {
+        Path file = Files.createTempFile("ids", ".hwm");
+        Files.delete(file);
+        try {
+            BlockIdAllocator before = BlockIdAllocator.open(file, 1, 8);
+            long highest = 0;
+            for (int i = 0; i < 5_000; i++) {
+                highest = Math.max(highest, before.next());
+            }
+            // Nothing else was saved: as after a crash, only the leased mark survives
+            BlockIdAllocator after = BlockIdAllocator.open(file, 1, 8);
+            Assertions.assertTrue(after.next() > highest);
+            Assertions.assertTrue(after.peekNext() > highest);
+            Assertions.assertTrue(after.peekNext() - highest <= 8L * (BlockIdAllocator.LEASE_BLOCKS + 1));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void pluggedAllocatorNumbersNewAccountsAboveEarlierOnes() {
+        Customer owner = new Customer("jay","india","1234","jay","jay");
+        int earlier = new SavingsAccount(owner).getAccountNumber();
+        IdAllocator previous = Account.getIdAllocator();
+        SequentialIdAllocator sequential = new SequentialIdAllocator(1);
+        Account.setIdAllocator(sequential);
+        try {
+            int first = new SavingsAccount(owner).getAccountNumber();
+            int second = new CurrentAccount(owner).getAccountNumber();
+            Assertions.assertTrue(first > earlier);
+            Assertions.assertEquals(first + 1, second);
+            // A restored account moves allocation past its number
+            new SavingsAccount(owner, second + 10);
+            Assertions.assertEquals(second + 11, new SavingsAccount(owner).getAccountNumber());
+        } finally {
+            Account.setIdAllocator(previous);
+        }
+        Assertions.assertTrue(new SavingsAccount(owner).getAccountNumber() > earlier + 11);
+    }
+}
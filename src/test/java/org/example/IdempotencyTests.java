@@ -0,0 +1,140 @@
+package org.example;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class IdempotencyTests {
+    private static final String DEPOSIT_TEXT = "Amount to deposit should be positive.";
+    private BankingSystem bank;
+    private Account savings;
+    private Account current;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() {
+        bank = new BankingSystem();
+        Customer jay = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(jay);
+        jay.addAccount(new SavingsAccount(jay));
+        jay.addAccount(new CurrentAccount(jay));
+        savings = jay.getAccounts().get(0);
+        current = jay.getAccounts().get(1);
+        System.setOut(new PrintStream(outputStream));
+    }
+
+    @Test
+    public void retriedDepositPostsOnce() {
+        savings.deposit(41L, 100);
+        savings.deposit(41L, 100);
+        savings.deposit(41L, 250);
+        Assertions.assertEquals(10_000, savings.getBalanceMinor());
+        Assertions.assertEquals(1, savings.getTransactionLog().size());
+        savings.deposit(42L, 100);
+        Assertions.assertEquals(20_000, savings.getBalanceMinor());
+        Assertions.assertEquals(2, bank.getIdempotencyCache().getRepeats());
+    }
+
+    @Test
+    public void retriedTransferReturnsTheFirstOutcome() {
+        savings.deposit(100);
+        Assertions.assertNull(savings.applyTransfer(7L, current, 6_000));
+        Assertions.assertNull(savings.applyTransfer(7L, current, 6_000));
+        Assertions.assertEquals(4_000, savings.getBalanceMinor());
+        Assertions.assertEquals(6_000, current.getBalanceMinor());
+        Assertions.assertEquals(3, savings.getTransactionLog().size());
+
+        // A rejection is remembered even once the transfer could go through
+        String rejection = savings.applyTransfer(8L, current, 5_000);
+        Assertions.assertNotNull(rejection);
+        savings.deposit(100);
+        Assertions.assertEquals(rejection, savings.applyTransfer(8L, current, 5_000));
+        Assertions.assertEquals(14_000, savings.getBalanceMinor());
+
+        outputStream.reset();
+        savings.transfer(8L, current, 50);
+        Assertions.assertTrue(outputStream.toString().contains(rejection));
+        Assertions.assertEquals(DEPOSIT_TEXT, savings.applyDeposit(9L, 0));
+        Assertions.assertEquals(DEPOSIT_TEXT, savings.applyDeposit(9L, 100));
+    }
+
+    @Test
+    public void concurrentRetriesRunTheOperationOnce() throws InterruptedException {
+        int threads = 8;
+        int requests = 2_000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long id = 1; id <= requests; id++) {
+                    if (savings.applyDeposit(id, 1) != null) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker: workers) {
+            worker.join();
+        }
+        Assertions.assertEquals(0, rejected.get());
+        Assertions.assertEquals(requests, savings.getBalanceMinor());
+        Assertions.assertEquals(requests, savings.getTransactionLog().size());
+        Assertions.assertEquals((long) requests * (threads - 1), bank.getIdempotencyCache().getRepeats());
+    }
+
+    @Test
+    public void idsExpireAfterTheirTimeToLive() {
+        AtomicLong now = new AtomicLong(1_000);
+        bank.setIdempotencyCache(new IdempotencyCache(64, 500, now::get));
+        savings.applyDeposit(1L, 100);
+        now.addAndGet(499);
+        savings.applyDeposit(1L, 100);
+        Assertions.assertEquals(100, savings.getBalanceMinor());
+        now.addAndGet(1);
+        savings.applyDeposit(1L, 100);
+        Assertions.assertEquals(200, savings.getBalanceMinor());
+    }
+
+    @Test
+    public void cacheStaysWithinItsCapacity() {
+        IdempotencyCache cache = new IdempotencyCache(64, 60_000);
+        bank.setIdempotencyCache(cache);
+        for (long id = 0; id < 1_000; id++) {
+            Assertions.assertNull(savings.applyDeposit(id, 1));
+        }
+        Assertions.assertEquals(64, cache.size());
+        Assertions.assertEquals(1_000 - 64, cache.getEvictions());
+        // The latest ids are still answered from the cache
+        savings.applyDeposit(999L, 1);
+        Assertions.assertEquals(1_000, savings.getBalanceMinor());
+    }
+
+    @Test
+    public void abandonedIdsCanBeRetried() {
+        IdempotencyCache cache = new IdempotencyCache(64, 60_000);
+        Assertions.assertNull(cache.begin(5L));
+        cache.abandon(5L);
+        Assertions.assertNull(cache.begin(5L));
+        cache.finish(5L, IdempotencyCache.DONE);
+        Assertions.assertSame(IdempotencyCache.DONE, cache.begin(5L));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new IdempotencyCache(100, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new IdempotencyCache(64, 0));
+    }
+}
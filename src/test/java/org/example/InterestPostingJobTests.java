@@ -0,0 +1,119 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class InterestPostingJobTests {
+    private BankingSystem bank;
+    private Account savings;
+    private Account current;
+    private Path journalPath;
+    private Path checkpoint;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() throws IOException {
+        journalPath = Files.createTempFile("banking", ".journal");
+        checkpoint = Files.createTempFile("interest", ".checkpoint");
+        bank = new BankingSystem();
+        bank.setJournal(Journal.open(journalPath, Journal.Durability.BATCHED));
+        Customer jay = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(jay);
+        jay.addAccount(new SavingsAccount(jay));
+        jay.addAccount(new CurrentAccount(jay));
+        savings = jay.getAccounts().get(0);
+        current = jay.getAccounts().get(1);
+        savings.deposit(1000);
+        current.deposit(1000);
+        System.setOut(new PrintStream(outputStream));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        bank.getJournal().close();
+        Files.deleteIfExists(journalPath);
+        Files.deleteIfExists(checkpoint);
+    }
+
+    @Test
+    public void postsToSavingsAccountsOnlyAndSilently() throws IOException {
+        InterestPostingJob.Report report = new InterestPostingJob(bank, 202610, null).run();
+        Assertions.assertEquals(1, report.getAccountsPosted());
+        Assertions.assertEquals(3000, report.getTotalInterestMinor());
+        Assertions.assertEquals(103000, savings.getBalanceMinor());
+        Assertions.assertEquals(100000, current.getBalanceMinor());
+        Assertions.assertEquals("", outputStream.toString());
+    }
+
+    @Test
+    public void repeatedRunDoesNotCreditTwice() throws IOException {
+        new InterestPostingJob(bank, 202610, null).run();
+        InterestPostingJob.Report again = new InterestPostingJob(bank, 202610, null).run();
+        Assertions.assertEquals(0, again.getAccountsPosted());
+        Assertions.assertEquals(1, again.getAccountsAlreadyPosted());
+        Assertions.assertEquals(103000, savings.getBalanceMinor());
+
+        new InterestPostingJob(bank, 202611, null).run();
+        Assertions.assertEquals(106090, savings.getBalanceMinor());
+    }
+
+    @Test
+    public void resumedRunAfterRestartSkipsPostedAccountsAndRanges() throws IOException {
+        // A crash after this account was credited, but before its range was checkpointed
+        Assertions.assertEquals(3000, savings.postInterest(202610, SavingsAccount.INTEREST_RATE));
+        bank.getJournal().close();
+        BankingSystem restarted = new BankingSystem();
+        JournalReplayer.replay(journalPath, restarted);
+        bank = restarted;
+        bank.setJournal(Journal.open(journalPath, Journal.Durability.BATCHED));
+
+        InterestPostingJob.Report resumed = new InterestPostingJob(bank, 202610, checkpoint).run();
+        Assertions.assertEquals(0, resumed.getAccountsPosted());
+        Assertions.assertEquals(1, resumed.getAccountsAlreadyPosted());
+        Assertions.assertEquals(103000, bank.findAccountByNumber(savings.getAccountNumber()).getBalanceMinor());
+
+        InterestPostingJob.Report finished = new InterestPostingJob(bank, 202610, checkpoint).run();
+        Assertions.assertEquals(0, finished.getAccountsAlreadyPosted());
+        Assertions.assertTrue(finished.getChunksSkipped() > 0);
+    }
+
+    @Test
+    public void olderRunAfterANewerOneIsRefused() throws IOException {
+        new InterestPostingJob(bank, 202611, null).run();
+        Assertions.assertThrows(InterestPostingJob.RunOutOfOrderException.class,
+                () -> new InterestPostingJob(bank, 202610, checkpoint).run());
+        Assertions.assertEquals(103000, savings.getBalanceMinor());
+    }
+
+    @Test
+    public void checkpointedRangesAreForcedEvenWhenAsync() throws IOException {
+        Path asyncPath = Files.createTempFile("banking", ".journal");
+        BankingSystem asyncBank = new BankingSystem();
+        Journal journal = Journal.open(asyncPath, Journal.Durability.ASYNC, 1 << 16, 200);
+        asyncBank.setJournal(journal);
+        try {
+            Customer ria = new Customer("ria","india","5678","ria","ria");
+            asyncBank.addCustomer(ria);
+            ria.addAccount(new SavingsAccount(ria));
+            ria.getAccounts().get(0).deposit(1000);
+            new InterestPostingJob(asyncBank, 202610, checkpoint).run();
+            // Read back while the journal is still open, as after a crash
+            BankingSystem recovered = new BankingSystem();
+            JournalReplayer.replay(asyncPath, recovered);
+            Account account = recovered.findAccountByNumber(ria.getAccounts().get(0).getAccountNumber());
+            Assertions.assertEquals(103000, account.getBalanceMinor());
+            Assertions.assertEquals(202610, account.getInterestRun());
+        } finally {
+            journal.close();
+            Files.deleteIfExists(asyncPath);
+        }
+    }
+}
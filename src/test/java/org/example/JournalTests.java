@@ -0,0 +1,131 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class JournalTests {
+    private Path path;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() throws IOException {
+        path = Files.createTempFile("banking", ".journal");
+        System.setOut(new PrintStream(outputStream));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    private BankingSystem populate(Journal.Durability durability) throws IOException {
+        BankingSystem bank = new BankingSystem();
+        Journal journal = Journal.open(path, durability);
+        bank.setJournal(journal);
+        Customer jay = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(jay);
+        jay.addAccount(new SavingsAccount(jay));
+        Customer ria = new Customer("ria","india","5678","ria","ria");
+        bank.addCustomer(ria);
+        ria.addAccount(new CurrentAccount(ria));
+        Account from = jay.getAccounts().get(0);
+        Account to = ria.getAccounts().get(0);
+        from.deposit(1000.25);
+        from.withdraw(100);
+        from.transfer(to, 250.5);
+        to.withdraw(400);
+        jay.applyForLoan(500);
+        jay.getLoans().get(0).approveLoan();
+        jay.payOffLoan(jay.getLoans().get(0).getLoanId(), 200);
+        ria.applyForLoanMinor(120_000, 899, 24);
+        bank.addEmployee(new Employee("sam","999","sam","sam"));
+        journal.close();
+        return bank;
+    }
+
+    @Test
+    public void replayRestoresState() throws IOException {
+        BankingSystem original = populate(Journal.Durability.PER_OP);
+        BankingSystem restored = new BankingSystem();
+        JournalReplayer.replay(path, restored);
+
+        for (String username: new String[] {"jay", "ria"}) {
+            Account before = original.findCustomerByUsername(username).getAccounts().get(0);
+            Account after = restored.findCustomerByUsername(username).getAccounts().get(0);
+            Assertions.assertEquals(before.getAccountNumber(), after.getAccountNumber());
+            Assertions.assertEquals(before.getClass(), after.getClass());
+            Assertions.assertEquals(before.getBalanceMinor(), after.getBalanceMinor());
+            Assertions.assertEquals(before.getTransactions().toString(), after.getTransactions().toString());
+        }
+        Loan loan = restored.findCustomerByUsername("jay").getLoans().get(0);
+        Assertions.assertTrue(loan.isApproved());
+        Assertions.assertEquals(30000, loan.getLoanAmountMinor());
+        Assertions.assertEquals(Loan.DEFAULT_ANNUAL_RATE, loan.getAnnualRateBasisPoints());
+        Loan termLoan = restored.findCustomerByUsername("ria").getLoans().get(0);
+        Assertions.assertEquals(899, termLoan.getAnnualRateBasisPoints());
+        Assertions.assertEquals(24, termLoan.getTenorMonths());
+        Assertions.assertEquals(original.findCustomerByUsername("ria").getLoans().get(0).getAppliedAt(), termLoan.getAppliedAt());
+        Assertions.assertEquals(1, restored.getLoanRegistry().getActiveLoans().size());
+        Assertions.assertNotNull(restored.authenticateEmployee("sam", "sam"));
+    }
+
+    @Test
+    public void replayedCountersContinuePastJournaledIds() throws IOException {
+        populate(Journal.Durability.BATCHED);
+        BankingSystem restored = new BankingSystem();
+        JournalReplayer.replay(path, restored);
+        Customer jay = restored.findCustomerByUsername("jay");
+        Account fresh = new SavingsAccount(jay);
+        Assertions.assertNull(restored.findAccountByNumber(fresh.getAccountNumber()));
+    }
+
+    @Test
+    public void tornTailIsDropped() throws IOException {
+        populate(Journal.Durability.ASYNC);
+        long intact = Files.size(path);
+        Files.write(path, new byte[] {40, 0, 0, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        Journal reopened = Journal.open(path, Journal.Durability.PER_OP);
+        Assertions.assertEquals(intact, reopened.getAppendedPosition());
+        reopened.close();
+        Assertions.assertEquals(intact, Files.size(path));
+        Assertions.assertEquals(intact, JournalReplayer.replay(path, new BankingSystem()));
+    }
+
+    @Test
+    public void batchedOperationsReturnOnceDurable() throws IOException {
+        BankingSystem bank = new BankingSystem();
+        Journal journal = Journal.open(path, Journal.Durability.BATCHED);
+        bank.setJournal(journal);
+        Customer jay = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(jay);
+        jay.addAccount(new SavingsAccount(jay));
+        jay.getAccounts().get(0).deposit(10);
+        Assertions.assertEquals(journal.getAppendedPosition(), journal.getDurablePosition());
+        journal.close();
+    }
+
+    @Test
+    public void interruptedCallerStillWaitsUntilDurableAndKeepsItsInterrupt() throws IOException {
+        BankingSystem bank = new BankingSystem();
+        Journal journal = Journal.open(path, Journal.Durability.BATCHED);
+        bank.setJournal(journal);
+        Customer jay = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(jay);
+        jay.addAccount(new SavingsAccount(jay));
+        Thread.currentThread().interrupt();
+        jay.getAccounts().get(0).deposit(10);
+        Assertions.assertTrue(Thread.interrupted());
+        Assertions.assertEquals(journal.getAppendedPosition(), journal.getDurablePosition());
+        journal.close();
+    }
+}
@@ -0,0 +1,155 @@
+package org.example;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+public class LoanApprovalQueueTests {
+    private BankingSystem bankingSystem;
+    private Customer customer;
+    private Employee sam;
+    private Employee ria;
+    private LoanApprovalQueue queue;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() {
+        bankingSystem = new BankingSystem();
+        customer = new Customer("jay","india","1234","jay","jay");
+        bankingSystem.addCustomer(customer);
+        customer.addAccount(new SavingsAccount(customer));
+        sam = new Employee("sam","999","sam","sam");
+        ria = new Employee("ria","998","ria","ria");
+        bankingSystem.addEmployee(sam);
+        bankingSystem.addEmployee(ria);
+        queue = bankingSystem.getLoanApprovalQueue();
+        System.setOut(new PrintStream(outputStream));
+    }
+
+    private static List<Integer> ids(List<Loan> loans) {
+        List<Integer> ids = new ArrayList<>();
+        for (Loan loan: loans) {
+            ids.add(loan.getLoanId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void claimsFollowTheRequestedOrder() {
+        Loan small = customer.applyForLoanMinor(10_000);
+        Loan large = customer.applyForLoanMinor(90_000);
+        Loan medium = customer.applyForLoanMinor(50_000);
+        Assertions.assertEquals(3, queue.size());
+
+        List<Loan> largest = queue.claim(sam.getEmployeeNumber(), LoanApprovalQueue.Order.LARGEST_FIRST, 2);
+        Assertions.assertEquals(List.of(large.getLoanId(), medium.getLoanId()), ids(largest));
+        Assertions.assertEquals(List.of(small.getLoanId()),
+                ids(queue.claim(ria.getEmployeeNumber(), LoanApprovalQueue.Order.OLDEST_FIRST, 10)));
+        Assertions.assertTrue(queue.claim(ria.getEmployeeNumber(), LoanApprovalQueue.Order.SMALLEST_FIRST, 10).isEmpty());
+
+        Assertions.assertEquals(2, queue.releaseAll(sam.getEmployeeNumber()));
+        Assertions.assertEquals(List.of(medium.getLoanId(), large.getLoanId()),
+                ids(queue.claim(ria.getEmployeeNumber(), LoanApprovalQueue.Order.SMALLEST_FIRST, 10)));
+    }
+
+    @Test
+    public void oldestFirstFollowsApplicationOrderNotLoanIds() {
+        // Ids from different threads' blocks, applied for in the opposite order
+        long now = System.currentTimeMillis();
+        Loan first = new Loan(customer, 10_000, 7_000_128, Loan.DEFAULT_ANNUAL_RATE, Loan.DEFAULT_TENOR_MONTHS, now - 2_000);
+        customer.addLoan(first);
+        Loan second = new Loan(customer, 10_000, 7_000_064, Loan.DEFAULT_ANNUAL_RATE, Loan.DEFAULT_TENOR_MONTHS, now - 1_000);
+        customer.addLoan(second);
+        // Applied for in the same millisecond as second: the lower id goes first
+        Loan tied = new Loan(customer, 10_000, 7_000_192, Loan.DEFAULT_ANNUAL_RATE, Loan.DEFAULT_TENOR_MONTHS, now - 1_000);
+        customer.addLoan(tied);
+        Loan third = customer.applyForLoanMinor(10_000);
+        Assertions.assertEquals(List.of(first.getLoanId(), second.getLoanId(), tied.getLoanId(), third.getLoanId()),
+                ids(queue.claim(sam.getEmployeeNumber(), LoanApprovalQueue.Order.OLDEST_FIRST, 10)));
+    }
+
+    @Test
+    public void bulkDecisionsRespectClaimsAndApplyOnce() {
+        Loan first = customer.applyForLoanMinor(10_000);
+        Loan second = customer.applyForLoanMinor(20_000);
+        Loan third = customer.applyForLoanMinor(30_000);
+        queue.claim(ria.getEmployeeNumber(), LoanApprovalQueue.Order.LARGEST_FIRST, 1);
+
+        LoanApprovalQueue.Outcome[] outcomes = bankingSystem.approveLoans(sam,
+                new int[] {first.getLoanId(), third.getLoanId(), first.getLoanId(), -1});
+        Assertions.assertArrayEquals(new LoanApprovalQueue.Outcome[] {LoanApprovalQueue.Outcome.APPROVED,
+                LoanApprovalQueue.Outcome.CLAIMED_BY_OTHER, LoanApprovalQueue.Outcome.NOT_PENDING,
+                LoanApprovalQueue.Outcome.NOT_FOUND}, outcomes);
+        Assertions.assertArrayEquals(new LoanApprovalQueue.Outcome[] {LoanApprovalQueue.Outcome.REJECTED,
+                LoanApprovalQueue.Outcome.NOT_PENDING},
+                bankingSystem.rejectLoans(sam, new int[] {second.getLoanId(), first.getLoanId()}));
+        Assertions.assertArrayEquals(new LoanApprovalQueue.Outcome[] {LoanApprovalQueue.Outcome.APPROVED},
+                bankingSystem.approveLoans(ria, new int[] {third.getLoanId()}));
+
+        Assertions.assertEquals(40_000, customer.getAccounts().get(0).getBalanceMinor());
+        Assertions.assertTrue(second.isRejected());
+        Assertions.assertEquals(List.of(second), bankingSystem.getClosedLoans());
+        Assertions.assertEquals(List.of(second), customer.getOlderLoans());
+        Assertions.assertEquals(0, queue.size());
+        Assertions.assertEquals(0, queue.releaseAll(ria.getEmployeeNumber()));
+    }
+
+    @Test
+    public void concurrentEmployeesClaimAndApproveEachLoanOnce() throws InterruptedException {
+        int loans = 2000;
+        for (int i = 0; i < loans; i++) {
+            customer.applyForLoanMinor(100 + i % 37);
+        }
+        long expectedBalance = 0;
+        for (Loan loan: customer.getLoans()) {
+            expectedBalance += loan.getInitialLoanAmountMinor();
+        }
+        int threads = 8;
+        ConcurrentLinkedQueue<Integer> claimed = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int employeeNumber = 1000 + t;
+            LoanApprovalQueue.Order order = LoanApprovalQueue.Order.values()[t % 3];
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                List<Loan> batch;
+                while (!(batch = queue.claim(employeeNumber, order, 16)).isEmpty()) {
+                    int[] ids = new int[batch.size()];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = batch.get(i).getLoanId();
+                        claimed.add(ids[i]);
+                    }
+                    // Racing direct approvals must not pay anything out a second time
+                    batch.get(0).approveLoan();
+                    queue.approveAll(employeeNumber, ids);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker: workers) {
+            worker.join();
+        }
+        Set<Integer> distinct = new HashSet<>(claimed);
+        Assertions.assertEquals(loans, claimed.size());
+        Assertions.assertEquals(loans, distinct.size());
+        Assertions.assertEquals(loans, bankingSystem.getApprovedLoans().size());
+        Assertions.assertEquals(expectedBalance, customer.getAccounts().get(0).getBalanceMinor());
+        Assertions.assertEquals(loans, customer.getAccounts().get(0).getTransactions().size());
+    }
+}
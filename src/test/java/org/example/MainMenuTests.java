@@ -163,6 +163,17 @@ public class MainMenuTests {
         Assertions.assertEquals(customer, bankingSystem.authenticateUser("jay", "jay"));
     }
 
+    @Test
+    public void customerLoginIsCaseSensitive() {
+        Assertions.assertNull(bankingSystem.authenticateUser("JAY", "jay"));
+    }
+
+    @Test
+    public void findCustomerByNameIgnoresCase() {
+        Assertions.assertEquals(customer, bankingSystem.findCustomerByName("JAY"));
+        Assertions.assertEquals(employee, bankingSystem.findEmployeeByName("Som"));
+    }
+
     @Test
     public void invalidEmployeeLogin() {
         Assertions.assertNull(bankingSystem.authenticateEmployee("som", "so"));
@@ -0,0 +1,85 @@
+package org.example;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+public class MetricsTests {
+    private BankingSystem bank;
+    private Account account;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() {
+        bank = new BankingSystem();
+        Customer jay = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(jay);
+        jay.addAccount(new SavingsAccount(jay));
+        account = jay.getAccounts().get(0);
+        System.setOut(new PrintStream(outputStream));
+        Metrics.reset();
+    }
+
+    @Test
+    public void histogramReportsValuesWithinOneSixteenth() {
+        for (long value: new long[] {0, 1, 15, 16, 17, 31, 32, 1000, 123_456, 987_654_321L, 1L << 42}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long highest = LatencyHistogram.highestValueIn(bucket);
+            Assertions.assertTrue(highest >= value, "value " + value);
+            Assertions.assertTrue(highest - value <= value / 16, "value " + value);
+            Assertions.assertTrue(bucket == 0 || LatencyHistogram.highestValueIn(bucket - 1) < value, "value " + value);
+        }
+        Assertions.assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot(true);
+        Assertions.assertEquals(1000, snapshot.getCount());
+        Assertions.assertEquals(500_000, snapshot.valueAt(0.5), 500_000 / 16.0);
+        Assertions.assertEquals(990_000, snapshot.valueAt(0.99), 990_000 / 16.0);
+        Assertions.assertEquals(1_000_000, snapshot.getMax(), 1_000_000 / 16.0);
+        Assertions.assertEquals(0, histogram.snapshot(false).getCount());
+    }
+
+    @Test
+    public void operationsAreCountedWithRejections() {
+        account.deposit(100);
+        account.deposit(-1);
+        account.withdraw(30);
+        account.withdraw(1000);
+        bank.findAccountByNumber(account.getAccountNumber());
+        bank.findAccountByNumber(-1);
+        bank.authenticateUser("jay", "jay");
+        bank.authenticateUser("jay", "wrong");
+
+        Assertions.assertEquals(2, Metrics.getCount(Metrics.Operation.DEPOSIT));
+        Assertions.assertEquals(1, Metrics.getRejected(Metrics.Operation.DEPOSIT));
+        Assertions.assertEquals(2, Metrics.getCount(Metrics.Operation.WITHDRAW));
+        Assertions.assertEquals(1, Metrics.getRejected(Metrics.Operation.WITHDRAW));
+        Assertions.assertEquals(2, Metrics.getCount(Metrics.Operation.FIND_ACCOUNT));
+        Assertions.assertEquals(1, Metrics.getRejected(Metrics.Operation.FIND_ACCOUNT));
+        Assertions.assertEquals(1, Metrics.getRejected(Metrics.Operation.AUTHENTICATE));
+
+        String dump = Metrics.dump(true);
+        Assertions.assertTrue(dump.contains("p99.9 us"));
+        Assertions.assertTrue(dump.matches("(?s).*\\nWITHDRAW +2 +1 .*"), dump);
+        Assertions.assertEquals(0, Metrics.getCount(Metrics.Operation.WITHDRAW));
+        Assertions.assertEquals(0, Metrics.getRejected(Metrics.Operation.WITHDRAW));
+    }
+
+    @Test
+    public void interestPostingScansAreNotCountedAsLookups() throws IOException {
+        account.deposit(100);
+        Metrics.reset();
+        new InterestPostingJob(bank, 202610, null).run();
+
+        Assertions.assertEquals(0, Metrics.getCount(Metrics.Operation.FIND_ACCOUNT));
+        Assertions.assertEquals(0, Metrics.getRejected(Metrics.Operation.FIND_ACCOUNT));
+    }
+}
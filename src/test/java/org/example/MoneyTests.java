@@ -0,0 +1,69 @@
+package org.example;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+public class MoneyTests {
+    private Customer customer;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() {
+        customer = new Customer("jay","india","1234","jay","jay");
+        customer.addAccount(new SavingsAccount(customer));
+        System.setOut(new PrintStream(outputStream));
+    }
+
+    @Test
+    public void amountsRoundToMinorUnits() {
+        Assertions.assertEquals(1050, Money.ofAmount(10.5));
+        Assertions.assertEquals(1, Money.ofAmount(0.005));
+        Assertions.assertEquals(0, Money.ofAmount(0.004));
+        Assertions.assertEquals(0, Money.ofAmount(Double.NaN));
+        Assertions.assertEquals(0, Money.ofAmount(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void interestRoundsHalfEven() {
+        // 3% of 0.50 is 1.5 minor units, 3% of 1.50 is 4.5 minor units
+        Assertions.assertEquals(2, Money.applyRate(50, 300));
+        Assertions.assertEquals(4, Money.applyRate(150, 300));
+        Assertions.assertEquals(-2, Money.applyRate(-50, 300));
+    }
+
+    @Test
+    public void repeatedDepositsDoNotDrift() {
+        Account account = customer.getAccounts().get(0);
+        for (int i = 0; i < 10; i++) {
+            account.deposit(0.1);
+        }
+        Assertions.assertEquals(100, account.getBalanceMinor());
+        Assertions.assertEquals(1.0, account.getBalance());
+    }
+
+    @Test
+    public void fractionalPaymentsCloseLoanExactly() {
+        Account account = customer.getAccounts().get(0);
+        account.deposit(10);
+        customer.applyForLoan(0.3);
+        Loan loan = customer.getLoans().getFirst();
+        loan.approveLoan();
+        customer.payOffLoan(loan.getLoanId(), 0.1);
+        customer.payOffLoan(loan.getLoanId(), 0.2);
+        Assertions.assertTrue(loan.isClosed());
+        Assertions.assertEquals(0, loan.getLoanAmountMinor());
+    }
+
+    @Test
+    public void interestIsCreditedInMinorUnits() {
+        Account account = customer.getAccounts().get(0);
+        account.deposit(1000.01);
+        account.applyInterest();
+        // 3% of 100001 minor units is 3000.03, rounded to 3000
+        Assertions.assertEquals(103001, account.getBalanceMinor());
+    }
+}
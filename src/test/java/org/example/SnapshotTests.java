@@ -0,0 +1,258 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+public class SnapshotTests {
+    private Path snapshot;
+    private Path journalPath;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() throws IOException {
+        snapshot = Files.createTempFile("banking", ".snapshot");
+        journalPath = Files.createTempFile("banking", ".journal");
+        System.setOut(new PrintStream(outputStream));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(journalPath);
+    }
+
+    private static void assertSameState(BankingSystem expected, BankingSystem actual) {
+        Assertions.assertEquals(expected.getCustomers().size(), actual.getCustomers().size());
+        for (int c = 0; c < expected.getCustomers().size(); c++) {
+            Customer before = expected.getCustomers().get(c);
+            Customer after = actual.getCustomers().get(c);
+            Assertions.assertEquals(before.getUsername(), after.getUsername());
+            Assertions.assertEquals(before.getPassword(), after.getPassword());
+            for (int a = 0; a < before.getAccounts().size(); a++) {
+                Account account = before.getAccounts().get(a);
+                Account restored = after.getAccounts().get(a);
+                Assertions.assertEquals(account.getAccountNumber(), restored.getAccountNumber());
+                Assertions.assertEquals(account.getBalanceMinor(), restored.getBalanceMinor());
+                Assertions.assertEquals(account.getTransactions().toString(), restored.getTransactions().toString());
+            }
+            Assertions.assertEquals(before.getExistingLoans().size(), after.getExistingLoans().size());
+            Assertions.assertEquals(before.getOlderLoans().size(), after.getOlderLoans().size());
+        }
+        for (Loan loan: expected.getLoanRegistry().getActiveLoans()) {
+            Loan restored = actual.findLoanByLoanNumber(loan.getLoanId());
+            Assertions.assertTrue(restored.isApproved());
+            Assertions.assertEquals(loan.getLoanAmountMinor(), restored.getLoanAmountMinor());
+            Assertions.assertEquals(loan.getAnnualRateBasisPoints(), restored.getAnnualRateBasisPoints());
+            Assertions.assertEquals(loan.getTenorMonths(), restored.getTenorMonths());
+        }
+        Assertions.assertEquals(expected.getEmployees().size(), actual.getEmployees().size());
+    }
+
+    @Test
+    public void loadRestoresStateAndCounters() throws IOException {
+        BankingSystem bank = new BankingSystem();
+        BankingSystem.initializeData(bank);
+        Customer aarav = bank.findCustomerByUsername("aarav");
+        aarav.addAccount(new CurrentAccount(aarav));
+        aarav.getAccounts().get(0).transfer(aarav.getAccounts().get(1), 300);
+        aarav.payOffLoan(aarav.getLoans().get(0).getLoanId(), 1000);
+        Loan termLoan = aarav.applyForLoanMinor(50_000, 1200, 36);
+        Snapshot.write(bank, snapshot);
+
+        BankingSystem restored = new BankingSystem();
+        Snapshot.load(snapshot, restored);
+        assertSameState(bank, restored);
+        Assertions.assertTrue(restored.findAccountByNumber(aarav.getAccounts().get(1).getAccountNumber()) instanceof CurrentAccount);
+        Assertions.assertNotNull(restored.authenticateEmployee("yash", "yash"));
+        Assertions.assertEquals(1200, restored.findLoanByLoanNumber(termLoan.getLoanId()).getAnnualRateBasisPoints());
+        Assertions.assertEquals(36, restored.findLoanByLoanNumber(termLoan.getLoanId()).getTenorMonths());
+        Account fresh = new SavingsAccount(aarav);
+        Assertions.assertNull(restored.findAccountByNumber(fresh.getAccountNumber()));
+    }
+
+    @Test
+    public void loadKeepsTheApplicationOrderOfPendingLoans() throws IOException {
+        BankingSystem bank = new BankingSystem();
+        BankingSystem.initializeData(bank);
+        Customer aarav = bank.findCustomerByUsername("aarav");
+        Customer rohan = bank.findCustomerByUsername("rohan");
+        List<Integer> applied = List.of(aarav.applyForLoanMinor(1000).getLoanId(), rohan.applyForLoanMinor(1000).getLoanId(),
+                aarav.applyForLoanMinor(1000).getLoanId());
+        Snapshot.write(bank, snapshot);
+
+        BankingSystem restored = new BankingSystem();
+        Snapshot.load(snapshot, restored);
+        List<Integer> claimed = new ArrayList<>();
+        for (Loan loan: restored.getLoanApprovalQueue().claim(1, LoanApprovalQueue.Order.OLDEST_FIRST, Integer.MAX_VALUE)) {
+            if (applied.contains(loan.getLoanId())) {
+                claimed.add(loan.getLoanId());
+            }
+        }
+        Assertions.assertEquals(applied, claimed);
+    }
+
+    @Test
+    public void snapshotTakenDuringWritesPlusJournalMatchesLiveState() throws Exception {
+        BankingSystem bank = new BankingSystem();
+        Journal journal = Journal.open(journalPath, Journal.Durability.BATCHED);
+        bank.setJournal(journal);
+        BankingSystem.initializeData(bank);
+        Account from = bank.findCustomerByUsername("aarav").getAccounts().get(0);
+        Account to = bank.findCustomerByUsername("rohan").getAccounts().get(0);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                from.deposit(2);
+                from.transfer(to, 1);
+                to.withdraw(1);
+            }
+        });
+        writer.start();
+        Snapshot.writeInBackground(bank, snapshot).get();
+        writer.join();
+        journal.close();
+
+        BankingSystem restored = new BankingSystem();
+        long position = Snapshot.load(snapshot, restored);
+        JournalReplayer.replay(journalPath, position, restored);
+        assertSameState(bank, restored);
+    }
+
+    @Test
+    public void corruptSnapshotIsRejected() throws IOException {
+        BankingSystem bank = new BankingSystem();
+        BankingSystem.initializeData(bank);
+        Snapshot.write(bank, snapshot);
+        try (RandomAccessFile file = new RandomAccessFile(snapshot.toFile(), "rw")) {
+            file.seek(40);
+            file.write(file.read() ^ 0x5a);
+        }
+        Assertions.assertThrows(IOException.class, () -> Snapshot.load(snapshot, new BankingSystem()));
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    // A file as an older version wrote it: one customer with one savings account holding one
+    // deposit, and one approved loan partly paid off. Version 4 files also hold two pending
+    // loans, the one with the higher id applied for first.
+    private static byte[] olderSnapshot(int version) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.putInt(0x424b534e).putInt(version).putLong(0);
+        buffer.putInt(900_000).putInt(900_000).putInt(900_000);
+        buffer.putInt(1);
+        for (String field: new String[] {"old", "india", "1234", "old", "old"}) {
+            putString(buffer, field);
+        }
+        buffer.putInt(1);
+        buffer.putInt(800_001).put((byte) Journal.SAVINGS).putInt(1);
+        buffer.put(TransactionLog.DEPOSIT).putLong(5000).putLong(5000).putInt(TransactionLog.NO_COUNTERPARTY).putLong(1L);
+        buffer.putLong(5000);
+        if (version >= 2) {
+            buffer.putInt(202610);
+        }
+        buffer.putInt(version >= 4 ? 3 : 1);
+        buffer.putInt(800_001).putLong(2000).putLong(1500).put((byte) 1).put((byte) 0);
+        if (version >= 4) {
+            buffer.putLong(Loan.DEFAULT_ANNUAL_RATE).putInt(Loan.DEFAULT_TENOR_MONTHS).putLong(1);
+            buffer.putInt(800_002).putLong(1000).putLong(1000).put((byte) 0).put((byte) 0);
+            buffer.putLong(Loan.DEFAULT_ANNUAL_RATE).putInt(Loan.DEFAULT_TENOR_MONTHS).putLong(7);
+            buffer.putInt(800_003).putLong(1000).putLong(1000).put((byte) 0).put((byte) 0);
+            buffer.putLong(Loan.DEFAULT_ANNUAL_RATE).putInt(Loan.DEFAULT_TENOR_MONTHS).putLong(3);
+        }
+        buffer.putInt(0);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    @Test
+    public void scheduledSnapshotsGoOnAfterAFailedWrite() throws Exception {
+        BankingSystem bank = new BankingSystem();
+        BankingSystem.initializeData(bank);
+        // Writes fail until the directory exists
+        Path dir = snapshot.resolveSibling(snapshot.getFileName() + ".dir");
+        Path target = dir.resolve("bank.snapshot");
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(new ByteArrayOutputStream()));
+        Thread writer = Snapshot.scheduleEvery(bank, target, 5);
+        try {
+            Thread.sleep(50);
+            Files.createDirectory(dir);
+            for (int i = 0; i < 400 && !Files.exists(target); i++) {
+                Thread.sleep(5);
+            }
+            Assertions.assertTrue(writer.isAlive());
+            Assertions.assertTrue(Files.exists(target));
+        } finally {
+            writer.interrupt();
+            writer.join();
+            System.setErr(err);
+            Files.deleteIfExists(target);
+            Files.deleteIfExists(target.resolveSibling("bank.snapshot.tmp"));
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void versionFourSequencesKeepTheirOrderAheadOfNewLoans() throws IOException {
+        Files.write(snapshot, olderSnapshot(4));
+        BankingSystem bank = new BankingSystem();
+        Snapshot.load(snapshot, bank);
+        Loan fresh = bank.findCustomerByUsername("old").applyForLoanMinor(1000);
+        List<Integer> claimed = new ArrayList<>();
+        for (Loan loan: bank.getLoanApprovalQueue().claim(1, LoanApprovalQueue.Order.OLDEST_FIRST, 10)) {
+            claimed.add(loan.getLoanId());
+        }
+        Assertions.assertEquals(List.of(800_003, 800_002, fresh.getLoanId()), claimed);
+    }
+
+    @Test
+    public void versionTwoSnapshotLoadsWithDefaultLoanTerms() throws IOException {
+        Files.write(snapshot, olderSnapshot(2));
+        BankingSystem bank = new BankingSystem();
+        Assertions.assertEquals(0, Snapshot.load(snapshot, bank));
+        Account account = bank.findAccountByNumber(800_001);
+        Assertions.assertEquals(5000, account.getBalanceMinor());
+        Assertions.assertEquals(202610, account.getInterestRun());
+        Loan loan = bank.findLoanByLoanNumber(800_001);
+        Assertions.assertTrue(loan.isApproved());
+        Assertions.assertEquals(1500, loan.getLoanAmountMinor());
+        Assertions.assertEquals(Loan.DEFAULT_ANNUAL_RATE, loan.getAnnualRateBasisPoints());
+        Assertions.assertEquals(Loan.DEFAULT_TENOR_MONTHS, loan.getTenorMonths());
+    }
+
+    @Test
+    public void versionOneSnapshotLoadsWithoutInterestRuns() throws IOException {
+        Files.write(snapshot, olderSnapshot(1));
+        BankingSystem bank = new BankingSystem();
+        Snapshot.load(snapshot, bank);
+        Account account = bank.findAccountByNumber(800_001);
+        Assertions.assertEquals(5000, account.getBalanceMinor());
+        Assertions.assertEquals(Account.NO_INTEREST_RUN, account.getInterestRun());
+        Assertions.assertEquals(1500, bank.findLoanByLoanNumber(800_001).getLoanAmountMinor());
+    }
+
+    @Test
+    public void unknownSnapshotVersionIsRejected() throws IOException {
+        Files.write(snapshot, olderSnapshot(0));
+        Assertions.assertThrows(IOException.class, () -> Snapshot.load(snapshot, new BankingSystem()));
+    }
+}
@@ -0,0 +1,155 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+public class StatementJobTests {
+    private BankingSystem bank;
+    private Account savings;
+    private Account current;
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("statements");
+        bank = new BankingSystem();
+        Customer jay = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(jay);
+        jay.addAccount(new SavingsAccount(jay));
+        jay.addAccount(new CurrentAccount(jay));
+        savings = jay.getAccounts().get(0);
+        current = jay.getAccounts().get(1);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static String expected(TransactionLog log) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < log.size(); i++) {
+            text.append(log.get(i)).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static String rendered(TransactionLog log, boolean plainNumbers) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StatementFormatter formatter = new StatementFormatter(1024, plainNumbers);
+        formatter.begin(Channels.newChannel(bytes));
+        for (int i = 0; i < log.size(); i++) {
+            formatter.appendEntry(log, i);
+        }
+        formatter.flush();
+        Assertions.assertEquals(bytes.size(), formatter.getBytesWritten());
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static TransactionLog sampleLog() {
+        TransactionLog log = new TransactionLog();
+        long[] edges = {0, 1, -1, 5, -5, 9, 10, 99, 100, 101, -50_000, 123_456_789, -99_999,
+                StatementFormatter.FAST_LIMIT - 1, -(StatementFormatter.FAST_LIMIT - 1),
+                StatementFormatter.FAST_LIMIT, 12_345_678_901_234_567L, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long edge: edges) {
+            log.append(TransactionLog.DEPOSIT, edge, edge, TransactionLog.NO_COUNTERPARTY);
+            log.append(TransactionLog.TRANSFER, edge, -edge, Integer.MAX_VALUE);
+        }
+        Random random = new Random(19);
+        for (int i = 0; i < 20_000; i++) {
+            long amount = random.nextLong() % (i % 2 == 0 ? 1_000_000 : StatementFormatter.FAST_LIMIT);
+            int counterparty = i % 3 == 0 ? random.nextInt(1_000_000) : TransactionLog.NO_COUNTERPARTY;
+            log.append((byte) (i % 3), Math.abs(amount), amount, counterparty);
+        }
+        return log;
+    }
+
+    @Test
+    public void linesMatchTransactionToString() throws IOException {
+        TransactionLog log = sampleLog();
+        Assertions.assertEquals(expected(log), rendered(log, true));
+        Assertions.assertEquals(expected(log), rendered(log, false));
+    }
+
+    @Test
+    public void otherLocalesFallBackToToString() throws IOException {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            Assertions.assertFalse(StatementFormatter.defaultLocaleIsPlain());
+            TransactionLog log = sampleLog();
+            Assertions.assertEquals(expected(log), rendered(log, StatementFormatter.defaultLocaleIsPlain()));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    public void writesOneStatementPerAccountForThePeriod() throws IOException {
+        TransactionLog log = savings.getTransactionLog();
+        log.append(TransactionLog.DEPOSIT, 100, 100, TransactionLog.NO_COUNTERPARTY, 999);
+        log.append(TransactionLog.DEPOSIT, 250, 350, TransactionLog.NO_COUNTERPARTY, 1000);
+        log.append(TransactionLog.TRANSFER, 50, 300, current.getAccountNumber(), 1500);
+        log.append(TransactionLog.WITHDRAW, 25, 275, TransactionLog.NO_COUNTERPARTY, 2000);
+
+        Metrics.reset();
+        StatementJob.Report report = new StatementJob(bank, directory, 1000, 2000).run();
+        Assertions.assertEquals(2, report.getStatements());
+        Assertions.assertEquals(2, report.getTransactions());
+        // The job's scan over account numbers is not an operator lookup
+        Assertions.assertEquals(0, Metrics.getCount(Metrics.Operation.FIND_ACCOUNT));
+
+        String text = Files.readString(StatementJob.statementFile(directory, savings.getAccountNumber()));
+        Assertions.assertEquals("Transaction history for account " + savings.getAccountNumber() + ":\n"
+                + log.get(1) + "\n" + log.get(2) + "\n", text);
+        Assertions.assertEquals("Transaction history for account " + current.getAccountNumber() + ":\n",
+                Files.readString(StatementJob.statementFile(directory, current.getAccountNumber())));
+        Assertions.assertEquals(Files.size(StatementJob.statementFile(directory, savings.getAccountNumber()))
+                + Files.size(StatementJob.statementFile(directory, current.getAccountNumber())), report.getBytes());
+    }
+
+    @Test
+    public void parallelRunsMatchSingleThreadedOutput() throws IOException {
+        Customer owner = bank.getCustomers().get(0);
+        for (int i = 0; i < 3 * StatementJob.CHUNK_SIZE; i++) {
+            Account account = new SavingsAccount(owner);
+            owner.addAccount(account);
+            for (int j = 0; j <= i % 7; j++) {
+                account.depositMinor(i * 7L + j + 1);
+            }
+        }
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(4);
+        try {
+            StatementJob.Report one = new StatementJob(bank, directory.resolve("one"), 0, Long.MAX_VALUE).run(single);
+            StatementJob.Report many = new StatementJob(bank, directory.resolve("many"), 0, Long.MAX_VALUE).run(parallel);
+            Assertions.assertEquals(owner.getAccounts().size(), one.getStatements());
+            Assertions.assertEquals(one.getTransactions(), many.getTransactions());
+            Assertions.assertEquals(one.getBytes(), many.getBytes());
+        } finally {
+            single.shutdown();
+            parallel.shutdown();
+        }
+        for (Account account: owner.getAccounts()) {
+            String text = Files.readString(StatementJob.statementFile(directory.resolve("many"), account.getAccountNumber()));
+            Assertions.assertEquals("Transaction history for account " + account.getAccountNumber() + ":\n"
+                    + expected(account.getTransactionLog()), text);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.example;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+import java.util.stream.Collectors;
+
+public class TransactionHistoryTests {
+    private Account account;
+    private Account other;
+
+    @Before
+    public void setUp() {
+        BankingSystem bank = new BankingSystem();
+        Customer jay = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(jay);
+        jay.addAccount(new SavingsAccount(jay));
+        jay.addAccount(new SavingsAccount(jay));
+        account = jay.getAccounts().get(0);
+        other = jay.getAccounts().get(1);
+        for (int i = 1; i <= 45; i++) {
+            account.depositMinor(i);
+        }
+    }
+
+    @Test
+    public void pagesAreNewestFirstAndIgnoreLaterAppends() {
+        HistoryCursor cursor = account.history();
+        HistoryCursor.Page first = cursor.next(20);
+        Assertions.assertEquals(20, first.getTransactions().size());
+        Assertions.assertEquals(45, first.getTransactions().get(0).getAmountMinor());
+        Assertions.assertEquals(26, first.getTransactions().get(19).getAmountMinor());
+        Assertions.assertTrue(first.hasMore());
+
+        account.depositMinor(1000);
+        HistoryCursor resumed = account.history(first.getResumeToken());
+        Assertions.assertEquals(45, resumed.size());
+        HistoryCursor.Page second = resumed.next(20);
+        HistoryCursor.Page third = resumed.next(20);
+        Assertions.assertEquals(25, second.getTransactions().get(0).getAmountMinor());
+        Assertions.assertEquals(5, third.getTransactions().size());
+        Assertions.assertEquals(1, third.getTransactions().get(4).getAmountMinor());
+        Assertions.assertFalse(third.hasMore());
+        Assertions.assertNull(third.getResumeToken());
+        Assertions.assertTrue(resumed.next(20).getTransactions().isEmpty());
+
+        // The original cursor is unaffected by the resumed one and still sees 45 entries
+        Assertions.assertEquals(25, cursor.stream().count());
+        Assertions.assertEquals(1000, account.history().next(1).getTransactions().get(0).getAmountMinor());
+    }
+
+    @Test
+    public void resumeTokensAreValidated() {
+        String token = account.history().getResumeToken();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> other.history(token));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> account.history("garbage"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> account.history(account.getAccountNumber() + ":46:46"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> account.history().next(0));
+    }
+
+    @Test
+    public void streamsMatchTheListViewWithoutSeeingLaterAppends() throws InterruptedException {
+        for (int i = 0; i < 5000; i++) {
+            account.depositMinor(1);
+        }
+        List<String> expected = account.getTransactions().stream().map(Transaction::toString).collect(Collectors.toList());
+        Assertions.assertEquals(expected, account.transactionStream().map(Transaction::toString).collect(Collectors.toList()));
+        Assertions.assertEquals(expected, account.transactionStream().parallel().map(Transaction::toString).collect(Collectors.toList()));
+
+        List<String> newestFirst = account.history().stream().parallel().map(Transaction::toString).collect(Collectors.toList());
+        List<String> reversed = new ArrayList<>(expected);
+        Collections.reverse(reversed);
+        Assertions.assertEquals(reversed, newestFirst);
+
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                other.depositMinor(1);
+            }
+        });
+        for (int i = 0; i < 20; i++) {
+            other.depositMinor(1);
+        }
+        long visible = other.getTransactions().size();
+        HistoryCursor cursor = other.history();
+        writer.start();
+        Assertions.assertEquals(visible, cursor.stream().count());
+        writer.join();
+        Assertions.assertEquals(visible, cursor.stream().count());
+    }
+
+    @Test
+    public void menuPrintingStopsWhenAsked() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PrintStream previous = System.out;
+        System.setOut(new PrintStream(outputStream));
+        try {
+            account.printTransactions(new Scanner("y\nn\n"));
+        } finally {
+            System.setOut(previous);
+        }
+        String output = outputStream.toString();
+        Assertions.assertTrue(output.startsWith("Transaction history for account " + account.getAccountNumber()
+                + " (45 transactions, newest first):"), output);
+        Assertions.assertTrue(output.contains("Deposit of 0.06,"), output);
+        Assertions.assertFalse(output.contains("Deposit of 0.05,"), output);
+        Assertions.assertEquals(2, output.split("Show older transactions", -1).length - 1);
+    }
+}
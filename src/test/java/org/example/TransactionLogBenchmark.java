@@ -0,0 +1,40 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Retained heap per history entry: ArrayList<Transaction> (the previous layout) vs TransactionLog.
+// A main rather than a JMH benchmark: JMH reports time and, with the GC profiler, bytes allocated,
+// which counts the copies each array growth leaves behind; this measures the heap the history retains.
+// Run with: java -Xmx4g -cp target/classes:target/test-classes org.example.TransactionLogBenchmark [entries]
+public class TransactionLogBenchmark {
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        long base = usedHeap();
+        List<Transaction> objects = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            objects.add(new Transaction("Deposit", i, i * 2L, -1));
+        }
+        double objectBytes = (double) (usedHeap() - base) / entries;
+        System.out.printf("%-26s %8.1f bytes/entry (%d retained)%n", "ArrayList<Transaction>", objectBytes, objects.size());
+        objects = null;
+
+        base = usedHeap();
+        TransactionLog log = new TransactionLog();
+        for (int i = 0; i < entries; i++) {
+            log.append(TransactionLog.DEPOSIT, i, i * 2L, TransactionLog.NO_COUNTERPARTY);
+        }
+        double columnBytes = (double) (usedHeap() - base) / entries;
+        System.out.printf("%-26s %8.1f bytes/entry (%d retained)%n", "TransactionLog", columnBytes, log.size());
+        System.out.printf("saving: %.1f bytes/entry (%.0f%%)%n",
+                objectBytes - columnBytes, 100 * (objectBytes - columnBytes) / objectBytes);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,100 @@
+package org.example;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+public class TransferBatchTests {
+    private BankingSystem bank;
+    private Account first;
+    private Account second;
+    private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() {
+        bank = new BankingSystem();
+        Customer jay = new Customer("jay","india","1234","jay","jay");
+        bank.addCustomer(jay);
+        jay.addAccount(new SavingsAccount(jay));
+        jay.addAccount(new CurrentAccount(jay));
+        first = jay.getAccounts().get(0);
+        second = jay.getAccounts().get(1);
+        first.deposit(100);
+        System.setOut(new PrintStream(outputStream));
+    }
+
+    @Test
+    public void itemsSeeEarlierItemsAndReportOutcomes() {
+        TransferBatch batch = new TransferBatch()
+                .add(first.getAccountNumber(), second.getAccountNumber(), 80)
+                .add(first.getAccountNumber(), second.getAccountNumber(), 30)
+                .add(second.getAccountNumber(), first.getAccountNumber(), 50)
+                .add(-5, first.getAccountNumber(), 1)
+                .add(first.getAccountNumber(), -6, 1)
+                .add(first.getAccountNumber(), second.getAccountNumber(), 0);
+        bank.transferAll(batch);
+
+        Assertions.assertEquals(TransferBatch.Outcome.DONE, batch.getOutcome(0));
+        Assertions.assertEquals(TransferBatch.Outcome.REJECTED, batch.getOutcome(1));
+        Assertions.assertEquals(TransferBatch.Outcome.DONE, batch.getOutcome(2));
+        Assertions.assertEquals(TransferBatch.Outcome.SOURCE_NOT_FOUND, batch.getOutcome(3));
+        Assertions.assertEquals(TransferBatch.Outcome.DESTINATION_NOT_FOUND, batch.getOutcome(4));
+        Assertions.assertEquals(TransferBatch.Outcome.REJECTED, batch.getOutcome(5));
+        Assertions.assertEquals(7000, first.getBalanceMinor());
+        Assertions.assertEquals(3000, second.getBalanceMinor());
+        Assertions.assertEquals("", outputStream.toString());
+    }
+
+    @Test
+    public void historyMatchesSingleTransfers() {
+        Customer ria = new Customer("ria","india","5678","ria","ria");
+        bank.addCustomer(ria);
+        ria.addAccount(new SavingsAccount(ria));
+        ria.addAccount(new SavingsAccount(ria));
+        Account third = ria.getAccounts().get(0);
+        Account fourth = ria.getAccounts().get(1);
+        third.deposit(100);
+        third.transfer(fourth, 40);
+        third.transfer(third, 10);
+
+        bank.transferAll(new TransferBatch()
+                .add(first.getAccountNumber(), second.getAccountNumber(), 40)
+                .add(first.getAccountNumber(), first.getAccountNumber(), 10));
+
+        Assertions.assertEquals(types(third), types(first));
+        Assertions.assertEquals(types(fourth), types(second));
+        Assertions.assertEquals(third.getBalanceMinor(), first.getBalanceMinor());
+        Assertions.assertEquals(fourth.getBalanceMinor(), second.getBalanceMinor());
+    }
+
+    @Test
+    public void lockFreeAccountsUseCompareAndSet() {
+        Account.setDefaultMode(Account.Mode.LOCK_FREE);
+        try {
+            Customer ria = new Customer("ria","india","5678","ria","ria");
+            bank.addCustomer(ria);
+            ria.addAccount(new SavingsAccount(ria));
+            Account lockFree = ria.getAccounts().get(0);
+            bank.transferAll(new TransferBatch()
+                    .add(first.getAccountNumber(), lockFree.getAccountNumber(), 60)
+                    .add(lockFree.getAccountNumber(), second.getAccountNumber(), 70));
+            Assertions.assertEquals(4000, first.getBalanceMinor());
+            Assertions.assertEquals(6000, lockFree.getBalanceMinor());
+            Assertions.assertEquals(0, second.getBalanceMinor());
+        } finally {
+            Account.setDefaultMode(Account.Mode.LOCKING);
+        }
+    }
+
+    private static String types(Account account) {
+        StringBuilder types = new StringBuilder();
+        for (Transaction t: account.getTransactions()) {
+            types.append(t.getType()).append(' ').append(t.getAmountMinor()).append(' ')
+                    .append(t.getPostBalanceMinor()).append(';');
+        }
+        return types.toString();
+    }
+}
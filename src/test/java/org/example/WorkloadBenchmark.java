@@ -0,0 +1,40 @@
+package org.example;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+// Builds a synthetic population and runs the default operation mix against it, printing
+// throughput and latency percentiles per operation.
+// A main rather than a JMH benchmark: Workload is itself the harness, with its own seeded threads,
+// operation mix and per-operation histograms, and a JMH method around run() would time one whole run.
+// Run with: java -Xmx4g -cp target/classes:target/test-classes org.example.WorkloadBenchmark
+//     [customers] [threads] [operations] [zipf exponent] [none|per_op|batched|async]
+public class WorkloadBenchmark {
+    public static void main(String[] args) throws Exception {
+        int customers = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long operations = args.length > 2 ? Long.parseLong(args[2]) : 2_000_000;
+        double exponent = args.length > 3 ? Double.parseDouble(args[3]) : 0.99;
+        String durability = args.length > 4 ? args[4].toUpperCase(Locale.ROOT) : "NONE";
+        BankingSystem bank = new BankingSystem();
+        Path journalPath = null;
+        if (!durability.equals("NONE")) {
+            journalPath = Files.createTempFile("workload", ".journal");
+            bank.setJournal(Journal.open(journalPath, Journal.Durability.valueOf(durability)));
+        }
+        long begin = System.nanoTime();
+        SyntheticPopulation population = SyntheticPopulation.generate(bank, new SyntheticPopulation.Config().customers(customers));
+        System.out.printf("Population of %d customers in %.1f ms (%d pending, %d active, %d closed loans)%n", customers,
+                (System.nanoTime() - begin) / 1e6, population.getPendingLoans().length, population.getActiveLoans().length,
+                population.getClosedLoans().length);
+        Workload.Config config = new Workload.Config().threads(threads).zipfExponent(exponent);
+        // Warm-up run, then the measured one
+        new Workload(bank, population, config.operations(operations / 4).seed(1)).run();
+        System.out.print(new Workload(bank, population, config.operations(operations).seed(2)).run());
+        if (journalPath != null) {
+            bank.getJournal().close();
+            Files.delete(journalPath);
+        }
+    }
+}
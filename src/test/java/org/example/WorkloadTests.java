@@ -0,0 +1,82 @@
+package org.example;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.util.SplittableRandom;
+
+public class WorkloadTests {
+    @Test
+    public void populationIsDeterministic() {
+        SyntheticPopulation.Config config = new SyntheticPopulation.Config().customers(2000).employees(3)
+                .loans(0.5, 0.2, 0.3).seed(11);
+        BankingSystem first = new BankingSystem();
+        BankingSystem second = new BankingSystem();
+        SyntheticPopulation a = SyntheticPopulation.generate(first, config);
+        SyntheticPopulation b = SyntheticPopulation.generate(second, config);
+
+        Assertions.assertEquals(2000, first.getCustomerCount());
+        Assertions.assertEquals(3, first.getEmployees().size());
+        for (int i = 0; i < a.size(); i++) {
+            Assertions.assertEquals(a.getCustomer(i).getPhoneNumber(), b.getCustomer(i).getPhoneNumber());
+            Assertions.assertEquals(a.getAccount(i).getClass(), b.getAccount(i).getClass());
+            Assertions.assertEquals(a.getAccount(i).getBalanceMinor(), b.getAccount(i).getBalanceMinor());
+        }
+        Assertions.assertEquals(a.getPendingLoans().length, b.getPendingLoans().length);
+        Assertions.assertEquals(a.getActiveLoans().length, b.getActiveLoans().length);
+        Assertions.assertEquals(a.getClosedLoans().length, b.getClosedLoans().length);
+
+        int loans = a.getPendingLoans().length + a.getActiveLoans().length + a.getClosedLoans().length;
+        Assertions.assertTrue(loans > 900 && loans < 1100, "loans: " + loans);
+        Assertions.assertEquals(a.getPendingLoans().length, first.getUnapprovedLoans().size());
+        Assertions.assertEquals(a.getActiveLoans().length, first.getApprovedLoans().size());
+        Assertions.assertEquals(a.getClosedLoans().length, first.getClosedLoans().size());
+        Assertions.assertNotNull(first.authenticateUser(SyntheticPopulation.username(5), SyntheticPopulation.password(5)));
+    }
+
+    @Test
+    public void zipfSamplesAreSkewedTowardsLowRanks() {
+        ZipfSampler sampler = new ZipfSampler(1000, 1.0);
+        SplittableRandom random = new SplittableRandom(3);
+        int[] counts = new int[1001];
+        for (int i = 0; i < 200_000; i++) {
+            counts[sampler.sample(random)]++;
+        }
+        Assertions.assertEquals(0, counts[0]);
+        // P(1) = 1 / H(1000) ~ 0.134, and P(1) / P(2) = 2
+        Assertions.assertEquals(0.134, counts[1] / 200_000.0, 0.01);
+        Assertions.assertEquals(2.0, counts[1] / (double) counts[2], 0.15);
+        Assertions.assertTrue(counts[1000] < counts[10]);
+
+        ZipfSampler uniform = new ZipfSampler(10, 0);
+        int[] flat = new int[11];
+        for (int i = 0; i < 100_000; i++) {
+            flat[uniform.sample(random)]++;
+        }
+        for (int k = 1; k <= 10; k++) {
+            Assertions.assertEquals(10_000, flat[k], 600);
+        }
+    }
+
+    @Test
+    public void workloadRunsTheConfiguredMix() throws InterruptedException {
+        BankingSystem bank = new BankingSystem();
+        SyntheticPopulation population = SyntheticPopulation.generate(bank, new SyntheticPopulation.Config().customers(500));
+        Workload.Config config = new Workload.Config().threads(4).operations(20_001)
+                .weight(Workload.Operation.LOGIN, 0).weight(Workload.Operation.LOAN_PAYMENT, 5);
+        Workload.Report report = new Workload(bank, population, config).run();
+
+        Assertions.assertEquals(20_001, report.getOperations());
+        Assertions.assertEquals(0, report.getCount(Workload.Operation.LOGIN));
+        Assertions.assertTrue(report.getCount(Workload.Operation.DEPOSIT) > 4000);
+        Assertions.assertEquals(0, report.getRejected(Workload.Operation.DEPOSIT));
+        Assertions.assertTrue(report.getLatencyNanos(Workload.Operation.DEPOSIT, 0.5)
+                <= report.getLatencyNanos(Workload.Operation.DEPOSIT, 0.99));
+        Assertions.assertTrue(report.toString().contains("TRANSFER"));
+        for (int i = 0; i < population.size(); i++) {
+            Account account = population.getAccount(i);
+            long floor = account instanceof CurrentAccount ? -50_000 : 0;
+            Assertions.assertTrue(account.getBalanceMinor() >= floor);
+        }
+    }
+}